@@ -0,0 +1,39 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.exception.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link GlobalExceptionHandler} takes to turn a rejected transfer into its error response, with and
+ * without creating the exception, whose stack trace is filled in on creation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private MockHttpServletRequest request;
+    private InsufficientBalanceException exception;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler();
+        request = new MockHttpServletRequest("POST", "/api/v1/fts/transaction");
+        exception = new InsufficientBalanceException(ExceptionMessage.INSUFFICIENT_BALANCE);
+    }
+
+    @Benchmark
+    public ResponseEntity<APIError> handle() {
+        return handler.insufficientBalanceException(exception, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<APIError> createAndHandle() {
+        return handler.insufficientBalanceException(new InsufficientBalanceException(ExceptionMessage.INSUFFICIENT_BALANCE), request);
+    }
+}
@@ -0,0 +1,105 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * InMemoryAccountRepository keeps the accounts in a map, so that the benchmarks measure the service code rather than
+ * the database. Rows are not locked; the operations the services do not call are not supported.
+ */
+class InMemoryAccountRepository implements AccountRepository {
+
+    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @Override
+    public Optional<Account> findByIdForUpdate(Long id) {
+        return findById(id);
+    }
+
+    @Override
+    public Optional<Account> findByIdForShare(Long id) {
+        return findById(id);
+    }
+
+    @Override
+    public List<Account> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <S extends Account> S save(S account) {
+        if (account.getId() == null) {
+            account.setId(nextId.getAndIncrement());
+        }
+        accounts.put(account.getId(), account);
+        return account;
+    }
+
+    @Override
+    public <S extends Account> Iterable<S> saveAll(Iterable<S> accounts) {
+        List<S> saved = new ArrayList<>();
+        accounts.forEach(account -> saved.add(save(account)));
+        return saved;
+    }
+
+    @Override
+    public Optional<Account> findById(Long id) {
+        return Optional.ofNullable(accounts.get(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return accounts.containsKey(id);
+    }
+
+    @Override
+    public Iterable<Account> findAll() {
+        return List.copyOf(accounts.values());
+    }
+
+    @Override
+    public Iterable<Account> findAllById(Iterable<Long> ids) {
+        List<Account> found = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return accounts.size();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        accounts.remove(id);
+    }
+
+    @Override
+    public void delete(Account account) {
+        accounts.remove(account.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(accounts::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Account> accounts) {
+        accounts.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        accounts.clear();
+    }
+}
@@ -0,0 +1,118 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * InMemoryTransactionRepository hands out IDs to saved transactions without keeping them, so that a long benchmark run
+ * does not fill the heap. The operations the transfers do not call are not supported.
+ */
+class InMemoryTransactionRepository implements TransactionRepository {
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @Override
+    public <S extends Transaction> S save(S transaction) {
+        transaction.setId(nextId.getAndIncrement());
+        return transaction;
+    }
+
+    @Override
+    public <S extends Transaction> Iterable<S> saveAll(Iterable<S> transactions) {
+        transactions.forEach(this::save);
+        return transactions;
+    }
+
+    @Override
+    public Stream<Transaction> streamAllByOrderByIdAsc() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Transaction> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Transaction> findByIdGreaterThanAndCreatedAtGreaterThanEqualAndCreatedAtLessThanOrderByIdAsc(Long id, Timestamp from, Timestamp to,
+                                                                                                           Pageable pageable) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Transaction> findBySourceAccountIdOrderByIdAsc(Long sourceAccountId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Transaction> findByTargetAccountIdOrderByIdAsc(Long targetAccountId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Transaction> findBySourceAccountIdOrTargetAccountIdOrderByIdAsc(Long sourceAccountId, Long targetAccountId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Transaction> findByAccountIdCreatedBetween(Long accountId, Timestamp from, Timestamp to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return false;
+    }
+
+    @Override
+    public Iterable<Transaction> findAll() {
+        return List.of();
+    }
+
+    @Override
+    public Iterable<Transaction> findAllById(Iterable<Long> ids) {
+        return List.of();
+    }
+
+    @Override
+    public long count() {
+        return 0;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete(Transaction transaction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Transaction> transactions) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteAll() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,76 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.APIError;
+import com.anastasiakassari.financialtransactionservice.exception.ExceptionMessage;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JSON serialization of the response bodies and the deserialization of the transfer request, with an
+ * object mapper configured like the one Spring Boot gives the controllers. The amounts go through {@code MinorUnits}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+
+    private ObjectWriter accountWriter;
+    private ObjectWriter transactionWriter;
+    private ObjectWriter apiErrorWriter;
+    private ObjectReader transactionDTOReader;
+    private Account account;
+    private Transaction transaction;
+    private APIError apiError;
+    private byte[] transactionRequest;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        accountWriter = objectMapper.writerFor(Account.class);
+        transactionWriter = objectMapper.writerFor(Transaction.class);
+        apiErrorWriter = objectMapper.writerFor(APIError.class);
+        transactionDTOReader = objectMapper.readerFor(TransactionDTO.class);
+
+        account = new Account(1L, 1_000_050L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null);
+        transaction = new Transaction(1L, 1L, 2L, 10_050L, Currency.EUR);
+        apiError = APIError.builder()
+                .errorMessage(ExceptionMessage.INSUFFICIENT_BALANCE)
+                .errorCode(400)
+                .request("/api/v1/fts/transaction")
+                .requestType("POST")
+                .customMessage("Request is not valid")
+                .build();
+        transactionRequest = "{\"sourceAccountId\":1,\"targetAccountId\":2,\"amount\":100.50,\"currency\":\"EUR\"}".getBytes();
+    }
+
+    @Benchmark
+    public byte[] writeAccount() throws JsonProcessingException {
+        return accountWriter.writeValueAsBytes(account);
+    }
+
+    @Benchmark
+    public byte[] writeTransaction() throws JsonProcessingException {
+        return transactionWriter.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] writeAPIError() throws JsonProcessingException {
+        return apiErrorWriter.writeValueAsBytes(apiError);
+    }
+
+    @Benchmark
+    public TransactionDTO readTransactionDTO() throws Exception {
+        return transactionDTOReader.readValue(transactionRequest);
+    }
+}
@@ -0,0 +1,100 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.config.AccountCacheProperties;
+import com.anastasiakassari.financialtransactionservice.config.ArchiveProperties;
+import com.anastasiakassari.financialtransactionservice.config.IdempotencyProperties;
+import com.anastasiakassari.financialtransactionservice.config.ReplicaProperties;
+import com.anastasiakassari.financialtransactionservice.config.TransferCoalescingProperties;
+import com.anastasiakassari.financialtransactionservice.config.TransferRetryProperties;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.FinancialTransactionServiceException;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.AccountSlotRepository;
+import com.anastasiakassari.financialtransactionservice.repository.IdempotencyKeyRepository;
+import com.anastasiakassari.financialtransactionservice.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TransactionServiceImpl#createTransaction} with the repositories kept in memory and transactions that
+ * commit without a database, so that only the validation, balance updates, retry wrapper and cache eviction of the
+ * transfer path are timed. The rejected transfers include building their exception.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransferBenchmark {
+
+    private TransactionService transactionService;
+    private TransactionDTO forward;
+    private TransactionDTO backward;
+    private TransactionDTO overdraft;
+    private TransactionDTO wrongCurrency;
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        InMemoryAccountRepository accountRepository = new InMemoryAccountRepository();
+        InMemoryTransactionRepository transactionRepository = new InMemoryTransactionRepository();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TransferRetryExecutor transferRetryExecutor = new TransferRetryExecutor(new NoOpTransactionManager(), new TransferRetryProperties(), meterRegistry);
+        HotAccounts hotAccounts = new HotAccounts(accountRepository, new AccountSlotRepository(null));
+        AccountCache accountCache = new AccountCache(new AccountCacheProperties(), new ReplicaProperties(), meterRegistry);
+        BatchTransferProcessor batchTransferProcessor = new BatchTransferProcessor(null, transferRetryExecutor, hotAccounts, accountCache);
+        transactionService = new TransactionServiceImpl(transactionRepository, accountRepository, batchTransferProcessor,
+                transferRetryExecutor, hotAccounts, new TransferCoalescer(batchTransferProcessor, new TransferCoalescingProperties()),
+                accountCache, new IdempotencyStore(new IdempotencyKeyRepository(null), transactionRepository, new IdempotencyProperties()),
+                new TransferMetrics(meterRegistry), new TransactionArchive(new ArchiveProperties(), null, new NoOpTransactionManager()),
+                null, new ObjectMapper());
+
+        long source = accountRepository.save(new Account(null, 1_000_000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null)).getId();
+        long target = accountRepository.save(new Account(null, 1_000_000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null)).getId();
+        long other = accountRepository.save(new Account(null, 1_000_000L, Currency.GBP, new Timestamp(System.currentTimeMillis()), null)).getId();
+        forward = transactionDTO(source, target, 100L, Currency.EUR);
+        backward = transactionDTO(target, source, 100L, Currency.EUR);
+        overdraft = transactionDTO(source, target, 10_000_000L, Currency.EUR);
+        wrongCurrency = transactionDTO(source, other, 100L, Currency.EUR);
+    }
+
+    /**
+     * Moves the same amount back and forth between two accounts, so that the balances stay the same.
+     */
+    @Benchmark
+    public Transaction transfer() {
+        flip = !flip;
+        return transactionService.createTransaction(flip ? forward : backward);
+    }
+
+    @Benchmark
+    public Object rejectedForInsufficientBalance() {
+        try {
+            return transactionService.createTransaction(overdraft);
+        } catch (FinancialTransactionServiceException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object rejectedForCurrency() {
+        try {
+            return transactionService.createTransaction(wrongCurrency);
+        } catch (FinancialTransactionServiceException e) {
+            return e;
+        }
+    }
+
+    private static TransactionDTO transactionDTO(long sourceId, long targetId, long amount, Currency currency) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setSourceAccountId(sourceId);
+        dto.setTargetAccountId(targetId);
+        dto.setAmount(amount);
+        dto.setCurrency(currency);
+        return dto;
+    }
+}
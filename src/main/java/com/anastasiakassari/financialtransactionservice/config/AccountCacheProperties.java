@@ -0,0 +1,19 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * AccountCacheProperties bounds the in-process cache of accounts read by ID. An account is evicted when the cache is
+ * full or when it was cached longer than the time to live, which bounds how stale a cached balance can be.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.account.cache")
+public class AccountCacheProperties {
+    private long maximumSize = 10_000;
+    private Duration timeToLive = Duration.ofSeconds(30);
+}
@@ -0,0 +1,26 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * AdmissionProperties configures the adaptive limit on the number of transfers in flight. The limit grows by one while
+ * transfers complete within the latency threshold, and is multiplied by the backoff ratio when one does not, or fails
+ * with a database error, at most once for the transfers in flight at the time. Transfers over the limit are rejected,
+ * and the client is asked to retry after the delay.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.admission")
+public class AdmissionProperties {
+    private boolean enabled = false;
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 200;
+    private Duration latencyThreshold = Duration.ofMillis(100);
+    private double backoffRatio = 0.9;
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,28 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * ArchiveProperties configures the archive of old transactions. Every interval, the monthly partitions older than the
+ * age are written to segment files in the directory, in blocks of the specified number of transactions, and dropped
+ * from the database.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.archive")
+public class ArchiveProperties {
+    private boolean enabled = false;
+    private Path directory = Path.of("archive");
+    /**
+     * The number of months, including the current one, that stay in the database. The previous month always stays, as
+     * its partition is kept for transactions created just before the turn of the month.
+     */
+    private int ageMonths = 12;
+    private int blockSize = 4096;
+    private Duration interval = Duration.ofHours(1);
+}
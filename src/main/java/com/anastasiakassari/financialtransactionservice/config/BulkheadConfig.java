@@ -0,0 +1,44 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import com.anastasiakassari.financialtransactionservice.controller.BulkheadInterceptor;
+import com.anastasiakassari.financialtransactionservice.service.Bulkhead;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * BulkheadConfig splits the requests of the API into a read partition and a write partition, see {@link Bulkhead}, so
+ * that slow reads such as the transaction export cannot take the threads and connections transfers need. Enabled with
+ * {@code fts.bulkhead.enabled=true}. Each partition has a connection pool of its own, see
+ * {@link RoutingDataSourceConfig}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "fts.bulkhead.enabled", havingValue = "true")
+public class BulkheadConfig implements WebMvcConfigurer {
+
+    private final BulkheadProperties properties;
+
+    public BulkheadConfig(BulkheadProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public Bulkhead readBulkhead() {
+        return new Bulkhead(Bulkhead.Partition.READ, properties.getRead(), properties.getRetryAfter());
+    }
+
+    @Bean
+    public Bulkhead writeBulkhead() {
+        return new Bulkhead(Bulkhead.Partition.WRITE, properties.getWrite(), properties.getRetryAfter());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new BulkheadInterceptor(readBulkhead(), writeBulkhead()))
+                .addPathPatterns("/api/**");
+    }
+}
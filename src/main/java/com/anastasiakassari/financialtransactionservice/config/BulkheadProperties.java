@@ -0,0 +1,41 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * BulkheadProperties configures the two partitions requests are split into: the read-only requests and the requests
+ * that move money or change accounts. Each partition runs up to its maximum of requests at once, queues up to its
+ * maximum of the others for at most the maximum wait, and has a connection pool of its own.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.bulkhead")
+public class BulkheadProperties {
+    private boolean enabled = false;
+    private Duration retryAfter = Duration.ofSeconds(1);
+    private Partition read = new Partition(20, 20, Duration.ofMillis(500), 4);
+    private Partition write = new Partition(150, 50, Duration.ofSeconds(1), 10);
+
+    @Getter
+    @Setter
+    public static class Partition {
+        private int maxConcurrent;
+        private int maxQueued;
+        private Duration maxWait;
+        private int poolSize;
+
+        public Partition() {
+        }
+
+        public Partition(int maxConcurrent, int maxQueued, Duration maxWait, int poolSize) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueued = maxQueued;
+            this.maxWait = maxWait;
+            this.poolSize = poolSize;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * IdempotencyProperties configures how long idempotency keys are remembered. The most recently used keys are also kept
+ * in memory, up to the maximum size. Expired keys are deleted from the database every cleanup interval.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.idempotency")
+public class IdempotencyProperties {
+    private Duration timeToLive = Duration.ofHours(24);
+    private long maximumSize = 100_000;
+    private Duration cleanupInterval = Duration.ofMinutes(10);
+}
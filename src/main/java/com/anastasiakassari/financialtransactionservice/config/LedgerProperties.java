@@ -0,0 +1,51 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * LedgerProperties configures the in-memory ledger engine, selected with {@code fts.transaction.engine=in-memory}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.ledger")
+public class LedgerProperties {
+    /**
+     * The number of transfers that can wait for the sequencer. Must be a power of two.
+     */
+    private int ringCapacity = 65_536;
+    /**
+     * The maximum number of transfers written to the database in one transaction.
+     */
+    private int maxBatchSize = 10_000;
+    /**
+     * How long to wait before writing a batch again after the database failed.
+     */
+    private Duration retryInterval = Duration.ofSeconds(1);
+    /**
+     * The write-ahead journal of the applied transfers.
+     */
+    private final Journal journal = new Journal();
+
+    @Getter
+    @Setter
+    public static class Journal {
+        /**
+         * Whether transfers are journaled before they are acknowledged, and replayed on startup.
+         */
+        private boolean enabled = false;
+        /**
+         * The directory of the journal segments.
+         */
+        private Path directory = Path.of("journal");
+        /**
+         * The size of a journal segment file.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+    }
+}
@@ -0,0 +1,79 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import org.hibernate.HibernateException;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.io.Serializable;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LockingPooledLoOptimizer hands out IDs exactly like the pooled-lo optimizer of Hibernate: each value read from the
+ * sequence is the lowest ID of a block of increment size IDs. Hibernate's own optimizer reads the sequence while holding
+ * its monitor, which pins a virtual thread to its carrier for the whole database round trip, so this one takes a lock
+ * instead. Multi-tenancy is not supported, as the service does not use it.
+ * <p>
+ * Selected with {@code hibernate.id.optimizer.pooled.preferred}, which Hibernate instantiates by class name.
+ */
+public class LockingPooledLoOptimizer implements Optimizer {
+
+    private final int incrementSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private IntegralDataTypeHolder lastSourceValue;
+    private IntegralDataTypeHolder upperLimitValue;
+    private IntegralDataTypeHolder value;
+
+    /**
+     * The signature Hibernate instantiates optimizers with. The return class is not needed, as the IDs come typed from the sequence.
+     */
+    public LockingPooledLoOptimizer(Class<?> returnClass, int incrementSize) {
+        if (incrementSize < 1) {
+            throw new HibernateException("increment size cannot be less than 1");
+        }
+        this.incrementSize = incrementSize;
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        if (callback.getTenantIdentifier() != null) {
+            throw new HibernateException("Multi-tenancy is not supported by " + getClass().getSimpleName());
+        }
+        lock.lock();
+        try {
+            if (lastSourceValue == null || !value.lt(upperLimitValue)) {
+                lastSourceValue = callback.getNextValue();
+                upperLimitValue = lastSourceValue.copy().add(incrementSize);
+                value = lastSourceValue.copy();
+                // The sequence may start below one
+                while (value.lt(1)) {
+                    value.increment();
+                }
+            }
+            return value.makeValueThenIncrement();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        lock.lock();
+        try {
+            return lastSourceValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+}
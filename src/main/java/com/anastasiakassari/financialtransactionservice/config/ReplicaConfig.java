@@ -0,0 +1,38 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import com.anastasiakassari.financialtransactionservice.controller.ReadYourWritesInterceptor;
+import com.anastasiakassari.financialtransactionservice.service.ReadYourWrites;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * ReplicaConfig pins the clients that changed data to the primary for the read-your-writes window, see
+ * {@link ReadYourWrites}. Enabled with {@code fts.replica.read-your-writes.enabled=true}, on top of the replica the
+ * read-only transactions are routed to by {@link RoutingDataSourceConfig}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = {"fts.replica.enabled", "fts.replica.read-your-writes.enabled"}, havingValue = "true")
+public class ReplicaConfig implements WebMvcConfigurer {
+
+    private final ReplicaProperties properties;
+
+    public ReplicaConfig(ReplicaProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites() {
+        return new ReadYourWrites(properties.getReadYourWrites());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(readYourWrites(), properties.getReadYourWrites().getClientHeader()))
+                .addPathPatterns("/api/**");
+    }
+}
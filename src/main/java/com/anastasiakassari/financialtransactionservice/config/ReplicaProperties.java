@@ -0,0 +1,34 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * ReplicaProperties configures the read replica that read-only transactions use. The pool of the replica is configured
+ * like the primary one, with its own connection details and size. The maximum lag is how far the replica may trail the
+ * primary, and with read-your-writes a client that changed data reads from the primary for the window that follows.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.replica")
+public class ReplicaProperties {
+    private boolean enabled = false;
+    private String url;
+    private String username;
+    private String password;
+    private int poolSize = 10;
+    private Duration maxLag = Duration.ofSeconds(1);
+    private ReadYourWrites readYourWrites = new ReadYourWrites();
+
+    @Getter
+    @Setter
+    public static class ReadYourWrites {
+        private boolean enabled = false;
+        private Duration window = Duration.ofSeconds(2);
+        private String clientHeader = "X-Client-Id";
+        private int maximumClients = 100_000;
+    }
+}
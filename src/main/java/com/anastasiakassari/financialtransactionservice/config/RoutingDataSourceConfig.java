@@ -0,0 +1,155 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import com.anastasiakassari.financialtransactionservice.service.Bulkhead;
+import com.anastasiakassari.financialtransactionservice.service.ReadYourWrites;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RoutingDataSourceConfig replaces the single connection pool with a pool per target when the requests are split into
+ * bulkheads or read-only transactions go to a replica, see {@link BulkheadConfig} and {@link ReplicaProperties}.
+ * <p>
+ * A statement goes to the replica inside a read-only transaction, unless read-your-writes pinned the request to the
+ * primary. Otherwise it goes to the read pool in the read partition of the bulkheads, and to the primary pool in any
+ * other case. The pools are configured like the single pool otherwise is, with the {@code spring.datasource.hikari}
+ * settings, and sized for their target. The physical connection is only taken once the first statement runs, when the
+ * partition and the read-only flag of the transaction are both known.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Conditional(RoutingDataSourceConfig.OnRouting.class)
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    enum Target {
+        PRIMARY, READ, REPLICA
+    }
+
+    private final BulkheadProperties bulkheadProperties;
+    private final ReplicaProperties replicaProperties;
+
+    public RoutingDataSourceConfig(BulkheadProperties bulkheadProperties, ReplicaProperties replicaProperties) {
+        this.bulkheadProperties = bulkheadProperties;
+        this.replicaProperties = replicaProperties;
+    }
+
+    /**
+     * The pool of the primary, which is the pool of the write partition when the requests are split into bulkheads.
+     */
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties, Environment environment) {
+        HikariDataSource pool = pool(dataSourceProperties, environment);
+        if (bulkheadProperties.isEnabled()) {
+            size(pool, "fts-write", bulkheadProperties.getWrite().getPoolSize());
+        } else {
+            pool.setPoolName("fts-primary");
+        }
+        return pool;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "fts.bulkhead.enabled", havingValue = "true")
+    public HikariDataSource readDataSource(DataSourceProperties dataSourceProperties, Environment environment) {
+        HikariDataSource pool = pool(dataSourceProperties, environment);
+        size(pool, "fts-read", bulkheadProperties.getRead().getPoolSize());
+        return pool;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "fts.replica.enabled", havingValue = "true")
+    public HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties, Environment environment) {
+        HikariDataSource pool = pool(dataSourceProperties, environment);
+        pool.setJdbcUrl(replicaProperties.getUrl());
+        pool.setUsername(replicaProperties.getUsername());
+        pool.setPassword(replicaProperties.getPassword());
+        pool.setReadOnly(true);
+        size(pool, "fts-replica", replicaProperties.getPoolSize());
+        return pool;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("readDataSource") ObjectProvider<HikariDataSource> readDataSource,
+                                 @Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replicaDataSource) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primaryDataSource);
+        readDataSource.ifAvailable(pool -> targets.put(Target.READ, pool));
+        replicaDataSource.ifAvailable(pool -> targets.put(Target.REPLICA, pool));
+        boolean bulkheads = targets.containsKey(Target.READ);
+        boolean replica = targets.containsKey(Target.REPLICA);
+
+        AbstractRoutingDataSource routingDataSource = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return target(bulkheads, replica);
+            }
+        };
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    static Target target(boolean bulkheads, boolean replica) {
+        if (replica && TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReadYourWrites.isPinned()) {
+            return Target.REPLICA;
+        }
+        if (bulkheads && Bulkhead.currentPartition() == Bulkhead.Partition.READ) {
+            return Target.READ;
+        }
+        return Target.PRIMARY;
+    }
+
+    /**
+     * Creates a pool the way Spring Boot creates the single one, with the {@code spring.datasource.hikari} settings.
+     */
+    private static HikariDataSource pool(DataSourceProperties dataSourceProperties, Environment environment) {
+        HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        return pool;
+    }
+
+    private static void size(HikariDataSource pool, String name, int size) {
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(size);
+        if (pool.getMinimumIdle() > size) {
+            pool.setMinimumIdle(size);
+        }
+    }
+
+    static class OnRouting extends AnyNestedCondition {
+
+        OnRouting() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(name = "fts.bulkhead.enabled", havingValue = "true")
+        static class Bulkheads {
+        }
+
+        @ConditionalOnProperty(name = "fts.replica.enabled", havingValue = "true")
+        static class Replica {
+        }
+    }
+}
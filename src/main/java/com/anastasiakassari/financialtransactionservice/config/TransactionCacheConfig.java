@@ -0,0 +1,42 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+
+/**
+ * TransactionCacheConfig backs the second-level cache of Hibernate with a local Caffeine cache, through JCache.
+ * The cache manager is created here rather than from a provider configuration file, so that the size of the
+ * transactions region is set with {@code fts.transaction.cache.maximum-size} like the rest of the settings.
+ */
+@Configuration
+public class TransactionCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(TransactionCacheProperties properties) {
+        // Every application context gets a cache manager of its own
+        URI uri = URI.create("fts-hibernate-" + System.identityHashCode(properties));
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(uri, getClass().getClassLoader());
+
+        CaffeineConfiguration<Object, Object> transactions = new CaffeineConfiguration<>();
+        transactions.setMaximumSize(OptionalLong.of(properties.getMaximumSize()));
+        transactions.setStatisticsEnabled(true);
+        cacheManager.createCache(Transaction.CACHE_REGION, transactions);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -0,0 +1,16 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * TransactionCacheProperties bounds the second-level cache region of transactions. Transactions never change, so they
+ * only leave the region when it is full.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.transaction.cache")
+public class TransactionCacheProperties {
+    private long maximumSize = 100_000;
+}
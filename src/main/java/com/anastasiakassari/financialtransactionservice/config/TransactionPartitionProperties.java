@@ -0,0 +1,25 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * TransactionPartitionProperties configures the monthly partitions of the transactions table. The partitions of the
+ * coming months are created ahead of time, every maintenance interval. With a retention, the partitions of the months
+ * before it are detached from the table, and are left in the database as tables of their own.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.transaction.partitioning")
+public class TransactionPartitionProperties {
+    private boolean enabled = false;
+    private int monthsAhead = 3;
+    /**
+     * The number of months, including the current one, whose partitions stay attached. Zero keeps every partition.
+     */
+    private int retentionMonths = 0;
+    private Duration maintenanceInterval = Duration.ofHours(1);
+}
@@ -0,0 +1,21 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * TransferCoalescingProperties configures how concurrent single transfers are collected into batches that share a
+ * database transaction. A batch closes when the window after its first transfer has passed or when it is full.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.transfer.coalescing")
+public class TransferCoalescingProperties {
+    private boolean enabled = false;
+    private Duration window = Duration.ofMillis(2);
+    private int maxBatchSize = 200;
+    private int workers = 4;
+}
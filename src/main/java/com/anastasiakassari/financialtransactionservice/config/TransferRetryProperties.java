@@ -0,0 +1,20 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * TransferRetryProperties configures how transfers that fail with a transient database error are retried.
+ * Each retry waits a random delay between zero and the backoff, and the backoff doubles up to the maximum.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fts.transfer.retry")
+public class TransferRetryProperties {
+    private int maxAttempts = 5;
+    private Duration initialBackoff = Duration.ofMillis(10);
+    private Duration maxBackoff = Duration.ofMillis(200);
+}
@@ -0,0 +1,58 @@
+package com.anastasiakassari.financialtransactionservice.controller;
+
+import com.anastasiakassari.financialtransactionservice.service.Bulkhead;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * BulkheadInterceptor admits the requests of the API through the bulkhead of their partition: {@code GET} requests
+ * through the read bulkhead and all others through the write bulkhead. A request rejected by its bulkhead fails with a
+ * {@code TooManyRequestsException}, which is mapped to a 429 response.
+ * <p>
+ * A streamed response keeps the place of its request until it is complete. The request is dispatched again to
+ * complete it, and that dispatch does not take another place.
+ */
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String BULKHEAD_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".bulkhead";
+
+    private final Bulkhead readBulkhead;
+    private final Bulkhead writeBulkhead;
+
+    public BulkheadInterceptor(Bulkhead readBulkhead, Bulkhead writeBulkhead) {
+        this.readBulkhead = readBulkhead;
+        this.writeBulkhead = writeBulkhead;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Bulkhead bulkhead = (Bulkhead) request.getAttribute(BULKHEAD_ATTRIBUTE);
+        if (bulkhead != null) {
+            bulkhead.attach();
+            return true;
+        }
+        bulkhead = HttpMethod.GET.matches(request.getMethod()) ? readBulkhead : writeBulkhead;
+        bulkhead.enter();
+        request.setAttribute(BULKHEAD_ATTRIBUTE, bulkhead);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Bulkhead bulkhead = (Bulkhead) request.getAttribute(BULKHEAD_ATTRIBUTE);
+        if (bulkhead != null) {
+            bulkhead.detach();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Bulkhead bulkhead = (Bulkhead) request.getAttribute(BULKHEAD_ATTRIBUTE);
+        if (bulkhead != null) {
+            request.removeAttribute(BULKHEAD_ATTRIBUTE);
+            bulkhead.exit();
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.anastasiakassari.financialtransactionservice.controller;
 
 import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
 import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
 import com.anastasiakassari.financialtransactionservice.exception.FinancialTransactionServiceException;
 import com.anastasiakassari.financialtransactionservice.model.Account;
 import com.anastasiakassari.financialtransactionservice.model.Transaction;
 import com.anastasiakassari.financialtransactionservice.service.AccountService;
+import com.anastasiakassari.financialtransactionservice.service.AdmissionLimiter;
 import com.anastasiakassari.financialtransactionservice.service.TransactionService;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,9 +17,15 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.List;
 
 @Schema(description = "Financial Transaction Service")
@@ -27,32 +36,44 @@ import java.util.List;
 )
 @RestController
 @RequestMapping("/api/v1/fts")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class FinancialTransactionController {
 
     private final AccountService accountService;
     private final TransactionService transactionService;
+    private final AdmissionLimiter admissionLimiter;
 
     /**
      * The application controller, initialized with the specified accountService and transactionService.
      *
      * @param accountService     The account service to be used for account-related operations.
      * @param transactionService The transaction service to be used for transaction-related operations.
+     * @param admissionLimiter   The limiter that rejects transfers while the service is overloaded.
      */
     @Autowired
-    public FinancialTransactionController(AccountService accountService, TransactionService transactionService) {
+    public FinancialTransactionController(AccountService accountService, TransactionService transactionService,
+                                          AdmissionLimiter admissionLimiter) {
         this.accountService = accountService;
         this.transactionService = transactionService;
+        this.admissionLimiter = admissionLimiter;
     }
 
     /**
-     * Retrieves a list of all accounts.
+     * Retrieves a page of accounts, ordered by ID.
      *
-     * @return The list of accounts.
+     * @param cursor The cursor returned with the previous page, or none for the first page.
+     * @param limit  The maximum number of accounts in the page.
+     * @return The page of accounts and the cursor of the next page.
      */
     @GetMapping("/accounts")
     @Operation(tags = {"Financial Transaction Service"}, summary = "Get all accounts")
-    public List<Account> getAccounts() {
-        return accountService.getAccounts();
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved"),
+            @ApiResponse(responseCode = "400", description = "Bad request - The cursor or the page size is invalid")
+    })
+    public PageDTO<Account> getAccounts(@RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer limit) {
+        return accountService.getAccounts(cursor, limit);
     }
 
     /**
@@ -90,14 +111,125 @@ public class FinancialTransactionController {
     }
 
     /**
-     * Retrieves a list of all transactions.
+     * Creates a batch of accounts. Either all accounts are created or none.
+     *
+     * @param accounts The account data to create the accounts.
+     * @return The created accounts, in the same order as the request.
+     * @throws FinancialTransactionServiceException If the batch is invalid or any of the accounts is invalid.
+     */
+    @PostMapping("/accounts/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(tags = {"Financial Transaction Service"}, summary = "Create a batch of accounts")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Successfully created"),
+            @ApiResponse(responseCode = "400", description = "Bad request - The batch is missing or too large, or one or more of the provided parameters is invalid")
+    })
+    public List<Account> createAccounts(@RequestBody List<AccountDTO> accounts) throws FinancialTransactionServiceException {
+        return accountService.createAccounts(accounts);
+    }
+
+    /**
+     * Splits the balance of an account across slots, making it a hot account. Concurrent transfers to and from a hot
+     * account mostly update different slots instead of waiting for each other.
+     *
+     * @param id    The ID of the account.
+     * @param count The number of slots.
+     * @return The account.
+     * @throws FinancialTransactionServiceException If the account does not exist, is already hot or the count is invalid.
+     */
+    @PostMapping("/account/{id}/slots")
+    @Operation(tags = {"Financial Transaction Service"}, summary = "Split the balance of an account across slots")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully split"),
+            @ApiResponse(responseCode = "400", description = "Bad request - The count is invalid or the account is already split"),
+            @ApiResponse(responseCode = "404", description = "Not found - The account was not found")
+    })
+    public Account stripeAccount(@PathVariable Long id, @RequestParam Integer count) throws FinancialTransactionServiceException {
+        return accountService.stripeAccount(id, count);
+    }
+
+    /**
+     * Retrieves all the transactions sent from or received by an account, optionally only the ones created in a time
+     * range.
+     *
+     * @param id   The ID of the account.
+     * @param from The start of the time range, inclusive, or none.
+     * @param to   The end of the time range, exclusive, or none.
+     * @return The list of the account's transactions.
+     */
+    @GetMapping("/account/{id}/transactions")
+    @Operation(tags = {"Financial Transaction Service"}, summary = "Get all transactions of an account")
+    public List<Transaction> getAccountTransactions(@PathVariable Long id,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        if (from == null && to == null) {
+            return accountService.getAllTransactions(id);
+        }
+        return accountService.getAllTransactions(id, from, to);
+    }
+
+    /**
+     * Retrieves the transactions received by an account.
+     *
+     * @param id The ID of the account.
+     * @return The list of the account's incoming transactions.
+     */
+    @GetMapping("/account/{id}/transactions/incoming")
+    @Operation(tags = {"Financial Transaction Service"}, summary = "Get incoming transactions of an account")
+    public List<Transaction> getIncomingAccountTransactions(@PathVariable Long id) {
+        return accountService.getIncomingTransactions(id);
+    }
+
+    /**
+     * Retrieves the transactions sent from an account.
      *
-     * @return The list of transactions.
+     * @param id The ID of the account.
+     * @return The list of the account's outgoing transactions.
+     */
+    @GetMapping("/account/{id}/transactions/outgoing")
+    @Operation(tags = {"Financial Transaction Service"}, summary = "Get outgoing transactions of an account")
+    public List<Transaction> getOutgoingAccountTransactions(@PathVariable Long id) {
+        return accountService.getOutgoingTransactions(id);
+    }
+
+    /**
+     * Retrieves a page of transactions, ordered by ID, optionally only the ones created in a time range. A range only
+     * reads the partitions of the months it covers.
+     *
+     * @param cursor The cursor returned with the previous page, or none for the first page.
+     * @param limit  The maximum number of transactions in the page.
+     * @param from   The start of the time range, inclusive, or none.
+     * @param to     The end of the time range, exclusive, or none.
+     * @return The page of transactions and the cursor of the next page.
      */
     @GetMapping("/transactions")
     @Operation(tags = {"Financial Transaction Service"}, summary = "Get all transactions")
-    public List<Transaction> getTransactions() {
-        return transactionService.getTransactions();
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved"),
+            @ApiResponse(responseCode = "400", description = "Bad request - The cursor, the page size or the time range is invalid")
+    })
+    public PageDTO<Transaction> getTransactions(@RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        if (from == null && to == null) {
+            return transactionService.getTransactions(cursor, limit);
+        }
+        return transactionService.getTransactions(cursor, limit, from, to);
+    }
+
+    /**
+     * Streams all transactions as newline-delimited JSON, ordered by ID.
+     *
+     * @return The body writing one transaction per line.
+     */
+    @GetMapping(value = "/transactions/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(tags = {"Financial Transaction Service"}, summary = "Export all transactions as NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportTransactions() {
+        StreamingResponseBody body = transactionService::exportTransactions;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     /**
@@ -119,7 +251,9 @@ public class FinancialTransactionController {
     /**
      * Creates a new transaction.
      *
-     * @param transaction The transaction data to create the transaction.
+     * @param transaction    The transaction data to create the transaction.
+     * @param idempotencyKey The optional key of the request. A retried request with the same key returns the
+     *                       transaction created by the first one instead of creating another.
      * @return The created transaction.
      * @throws FinancialTransactionServiceException If an error occurs during the transaction creation.
      */
@@ -129,11 +263,36 @@ public class FinancialTransactionController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully created"),
             @ApiResponse(responseCode = "400", description = "Bad request - One or more of the provided parameters is invalid"),
-            @ApiResponse(responseCode = "404", description = "Not found - One or more of the provided accounts does not exist")
+            @ApiResponse(responseCode = "404", description = "Not found - One or more of the provided accounts does not exist"),
+            @ApiResponse(responseCode = "422", description = "Unprocessable entity - The idempotency key was already used for a different request"),
+            @ApiResponse(responseCode = "429", description = "Too many requests - The service is overloaded, retry after the Retry-After header")
     })
-    public Transaction createTransaction(@RequestBody TransactionDTO transaction) throws FinancialTransactionServiceException {
-        return transactionService.createTransaction(transaction);
+    public Transaction createTransaction(@RequestBody TransactionDTO transaction,
+                                         @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey)
+            throws FinancialTransactionServiceException {
+        return admissionLimiter.execute(() -> {
+            if (idempotencyKey == null) {
+                return transactionService.createTransaction(transaction);
+            }
+            return transactionService.createTransaction(transaction, idempotencyKey);
+        });
     }
 
-}
+    /**
+     * Creates a batch of transactions, applying them in order.
+     *
+     * @param transactions The transaction data to create the transactions.
+     * @return The result of each transaction, in the same order as the request.
+     * @throws FinancialTransactionServiceException If the batch itself is invalid.
+     */
+    @PostMapping("/transactions/batch")
+    @Operation(tags = {"Financial Transaction Service"}, summary = "Create a batch of transactions")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully processed - Each result holds either the created transaction or the error"),
+            @ApiResponse(responseCode = "400", description = "Bad request - The batch is missing or too large")
+    })
+    public List<BatchTransactionResultDTO> createTransactions(@RequestBody List<TransactionDTO> transactions) throws FinancialTransactionServiceException {
+        return transactionService.createTransactions(transactions);
+    }
 
+}
@@ -0,0 +1,134 @@
+package com.anastasiakassari.financialtransactionservice.controller;
+
+import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.service.AdmissionLimiter;
+import com.anastasiakassari.financialtransactionservice.service.ReactiveAccountService;
+import com.anastasiakassari.financialtransactionservice.service.ReactiveTransactionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * ReactiveFinancialTransactionController serves the same API as {@link FinancialTransactionController}, with the same
+ * requests, responses and errors, when the application runs as a reactive web application (the {@code reactive}
+ * profile). Every endpoint returns without blocking, and the lists of transactions are streamed from the database as
+ * the client reads them. The API documentation is only served by the servlet API.
+ */
+@RestController
+@RequestMapping("/api/v1/fts")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFinancialTransactionController {
+
+    private final ReactiveAccountService accountService;
+    private final ReactiveTransactionService transactionService;
+    private final AdmissionLimiter admissionLimiter;
+
+    @Autowired
+    public ReactiveFinancialTransactionController(ReactiveAccountService accountService, ReactiveTransactionService transactionService,
+                                                  AdmissionLimiter admissionLimiter) {
+        this.accountService = accountService;
+        this.transactionService = transactionService;
+        this.admissionLimiter = admissionLimiter;
+    }
+
+    @GetMapping("/accounts")
+    public Mono<PageDTO<Account>> getAccounts(@RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limit) {
+        return accountService.getAccounts(cursor, limit);
+    }
+
+    @GetMapping("/account/{id}")
+    public Mono<Account> getAccountById(@PathVariable Long id) {
+        return accountService.getAccountById(id);
+    }
+
+    @PostMapping("/account")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Account> createAccount(@RequestBody AccountDTO account) {
+        return accountService.createAccount(account);
+    }
+
+    @PostMapping("/accounts/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<List<Account>> createAccounts(@RequestBody List<AccountDTO> accounts) {
+        return accountService.createAccounts(accounts);
+    }
+
+    @PostMapping("/account/{id}/slots")
+    public Mono<Account> stripeAccount(@PathVariable Long id, @RequestParam Integer count) {
+        return accountService.stripeAccount(id, count);
+    }
+
+    @GetMapping("/account/{id}/transactions")
+    public Flux<Transaction> getAccountTransactions(@PathVariable Long id,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        if (from == null && to == null) {
+            return accountService.getAllTransactions(id);
+        }
+        return accountService.getAllTransactions(id, from, to);
+    }
+
+    @GetMapping("/account/{id}/transactions/incoming")
+    public Flux<Transaction> getIncomingAccountTransactions(@PathVariable Long id) {
+        return accountService.getIncomingTransactions(id);
+    }
+
+    @GetMapping("/account/{id}/transactions/outgoing")
+    public Flux<Transaction> getOutgoingAccountTransactions(@PathVariable Long id) {
+        return accountService.getOutgoingTransactions(id);
+    }
+
+    @GetMapping("/transactions")
+    public Mono<PageDTO<Transaction>> getTransactions(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        if (from == null && to == null) {
+            return transactionService.getTransactions(cursor, limit);
+        }
+        return transactionService.getTransactions(cursor, limit, from, to);
+    }
+
+    /**
+     * Streams all transactions as newline-delimited JSON, ordered by ID. Each transaction is written as soon as it is
+     * read, and rows are only fetched as fast as the client reads them.
+     */
+    @GetMapping(value = "/transactions/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Transaction> exportTransactions() {
+        return transactionService.getTransactions();
+    }
+
+    @GetMapping("/transaction/{id}")
+    public Mono<Transaction> getTransactionById(@PathVariable Long id) {
+        return transactionService.getTransactionById(id);
+    }
+
+    @PostMapping("/transaction")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Transaction> createTransaction(@RequestBody TransactionDTO transaction,
+                                               @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return admissionLimiter.executeMono(transactionService.createTransaction(transaction));
+        }
+        return admissionLimiter.executeMono(transactionService.createTransaction(transaction, idempotencyKey));
+    }
+
+    @PostMapping("/transactions/batch")
+    public Mono<List<BatchTransactionResultDTO>> createTransactions(@RequestBody List<TransactionDTO> transactions) {
+        return transactionService.createTransactions(transactions);
+    }
+}
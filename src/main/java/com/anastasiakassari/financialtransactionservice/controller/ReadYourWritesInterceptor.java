@@ -0,0 +1,54 @@
+package com.anastasiakassari.financialtransactionservice.controller;
+
+import com.anastasiakassari.financialtransactionservice.service.ReadYourWrites;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * ReadYourWritesInterceptor pins the requests of a client that changed data within the window to the primary. A client
+ * is identified by the client header, or by its address without one. A request that is not a {@code GET} starts the
+ * window of its client when it arrives, so that no read can overtake it, and starts it again once it succeeded, so that
+ * the window covers the replica catching up with the change.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private final ReadYourWrites readYourWrites;
+    private final String clientHeader;
+
+    public ReadYourWritesInterceptor(ReadYourWrites readYourWrites, String clientHeader) {
+        this.readYourWrites = readYourWrites;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String client = client(request);
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            readYourWrites.written(client);
+        }
+        readYourWrites.pin(client);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        readYourWrites.unpin();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && ex == null
+                && !HttpStatus.valueOf(response.getStatus()).isError()) {
+            readYourWrites.written(client(request));
+        }
+        readYourWrites.unpin();
+    }
+
+    private String client(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        return client != null ? client : request.getRemoteAddr();
+    }
+}
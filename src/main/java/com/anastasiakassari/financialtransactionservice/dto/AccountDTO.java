@@ -1,6 +1,10 @@
 package com.anastasiakassari.financialtransactionservice.dto;
 
 import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.MinorUnits;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -13,5 +17,8 @@ import lombok.ToString;
 @ToString
 public class AccountDTO {
     private Currency currency;
-    private Double balance;
+    @Schema(type = "number", example = "10.50")
+    @JsonSerialize(using = MinorUnits.Serializer.class)
+    @JsonDeserialize(using = MinorUnits.Deserializer.class)
+    private Long balance;
 }
@@ -0,0 +1,19 @@
+package com.anastasiakassari.financialtransactionservice.dto;
+
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * BatchTransactionResultDTO represents the outcome of one transaction of a batch.
+ * The index is the position of the transaction in the request; exactly one of transaction and errorMessage is set.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BatchTransactionResultDTO {
+    private int index;
+    private Transaction transaction;
+    private String errorMessage;
+}
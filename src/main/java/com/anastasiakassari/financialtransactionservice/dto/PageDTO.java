@@ -0,0 +1,19 @@
+package com.anastasiakassari.financialtransactionservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * PageDTO represents a single page of a keyset-paginated listing.
+ * The next cursor is an opaque token for the following page and is null on the last page.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+}
@@ -1,6 +1,10 @@
 package com.anastasiakassari.financialtransactionservice.dto;
 
 import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.MinorUnits;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -14,6 +18,9 @@ import lombok.ToString;
 public class TransactionDTO {
     private Long sourceAccountId;
     private Long targetAccountId;
-    private Double amount;
+    @Schema(type = "number", example = "10.50")
+    @JsonSerialize(using = MinorUnits.Serializer.class)
+    @JsonDeserialize(using = MinorUnits.Deserializer.class)
+    private Long amount;
     private Currency currency;
 }
@@ -2,15 +2,27 @@ package com.anastasiakassari.financialtransactionservice.exception;
 
 public class ExceptionMessage {
 
+    public static final String ACCOUNT_CHANGES_NOT_ALLOWED = "Accounts cannot be changed while the in-memory engine applies the transfers";
+    public static final String ACCOUNT_ALREADY_HOT = "Account balance is already split across slots: ";
     public static final String ACCOUNT_NOT_FOUND = "Account not found";
+    public static final String BALANCE_OVERFLOW = "Amount exceeds the maximum balance of the target account";
+    public static final String BATCH_CHUNK_FAILED = "Could not process the transactions of this part of the batch";
+    public static final String BATCH_TOO_LARGE = "Batch size exceeds the limit: ";
+    public static final String IDEMPOTENCY_KEY_REUSED = "Idempotency key was already used for a different request: ";
     public static final String INSUFFICIENT_BALANCE = "Insufficient balance";
     public static final String INVALID_AMOUNT = "Invalid amount";
     public static final String INVALID_CURRENCY = "Invalid currency";
+    public static final String INVALID_CURSOR = "Invalid cursor: ";
+    public static final String INVALID_IDEMPOTENCY_KEY = "Invalid idempotency key";
+    public static final String INVALID_PAGE_SIZE = "Invalid page size: ";
     public static final String INVALID_PARAMETERS = "Invalid parameters";
+    public static final String INVALID_SLOT_COUNT = "Invalid slot count: ";
+    public static final String INVALID_TIME_RANGE = "The start of the time range must be before its end: ";
 
     public static final String INVALID_REQUEST = "Invalid request";
     public static final String MISSING_PARAMETER = "One or more parameters are missing";
     public static final String SAME_ACCOUNT = "Source and target accounts cannot be the same";
+    public static final String TOO_MANY_REQUESTS = "Too many requests, the service is overloaded";
     public static final String TRANSACTION_NOT_FOUND = "Transaction not found";
 
     private ExceptionMessage() {
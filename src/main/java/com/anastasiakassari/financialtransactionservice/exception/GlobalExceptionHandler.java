@@ -3,12 +3,16 @@ package com.anastasiakassari.financialtransactionservice.exception;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler {
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
@@ -46,6 +50,38 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler({HttpMessageNotReadableException.class})
+    public ResponseEntity<APIError> httpMessageNotReadableException(HttpMessageNotReadableException httpMessageNotReadableException, HttpServletRequest request) {
+        String errorMessage = "HttpMessageNotReadableException: " + httpMessageNotReadableException.getMessage() + " for " + request.getRequestURI();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.INVALID_REQUEST)
+                        .errorCode(HttpStatus.BAD_REQUEST.value())
+                        .request(request.getRequestURI())
+                        .requestType(request.getMethod())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler({IdempotencyKeyReusedException.class})
+    public ResponseEntity<APIError> idempotencyKeyReusedException(IdempotencyKeyReusedException idempotencyKeyReusedException, HttpServletRequest request) {
+        String errorMessage = "IdempotencyKeyReusedException: " + idempotencyKeyReusedException.getMessage() + " for " + request.getRequestURI();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.IDEMPOTENCY_KEY_REUSED)
+                        .errorCode(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                        .request(request.getRequestURI())
+                        .requestType(request.getMethod())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.UNPROCESSABLE_ENTITY
+        );
+    }
+
     @ExceptionHandler({InsufficientBalanceException.class})
     public ResponseEntity<APIError> insufficientBalanceException(InsufficientBalanceException insufficientBalanceException, HttpServletRequest request) {
         String errorMessage = "InsufficientBalanceException: " + insufficientBalanceException.getMessage() + " for " + request.getRequestURI();
@@ -142,6 +178,23 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler({TooManyRequestsException.class})
+    public ResponseEntity<APIError> tooManyRequestsException(TooManyRequestsException tooManyRequestsException, HttpServletRequest request) {
+        String errorMessage = "TooManyRequestsException: " + tooManyRequestsException.getMessage() + " for " + request.getRequestURI();
+        logger.error(errorMessage);
+        // Whole seconds, rounded up
+        long retryAfter = Math.max(1, (tooManyRequestsException.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(APIError.builder()
+                        .errorMessage(ExceptionMessage.TOO_MANY_REQUESTS)
+                        .errorCode(HttpStatus.TOO_MANY_REQUESTS.value())
+                        .request(request.getRequestURI())
+                        .requestType(request.getMethod())
+                        .customMessage("Could not process request")
+                        .build());
+    }
+
     @ExceptionHandler({TransactionNotFoundException.class})
     public ResponseEntity<APIError> transactionNotFoundException(TransactionNotFoundException transactionNotFoundException, HttpServletRequest request) {
         String errorMessage = "TransactionNotFoundException: " + transactionNotFoundException.getMessage() + " for " + request.getRequestURI();
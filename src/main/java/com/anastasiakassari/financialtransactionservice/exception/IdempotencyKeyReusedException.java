@@ -0,0 +1,11 @@
+package com.anastasiakassari.financialtransactionservice.exception;
+
+public class IdempotencyKeyReusedException extends FinancialTransactionServiceException {
+    public IdempotencyKeyReusedException() {
+        super();
+    }
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,252 @@
+package com.anastasiakassari.financialtransactionservice.exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * ReactiveGlobalExceptionHandler maps the exceptions of the reactive API to the same error responses as
+ * {@link GlobalExceptionHandler} does for the servlet API.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveGlobalExceptionHandler {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveGlobalExceptionHandler.class);
+
+    private static final String REQUEST_NOT_VALID = "Request is not valid";
+
+    @ExceptionHandler({AccountNotFoundException.class})
+    public ResponseEntity<APIError> accountNotFoundException(AccountNotFoundException accountNotFoundException, ServerHttpRequest request) {
+        String errorMessage = "AccountNotFoundException: " + accountNotFoundException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.ACCOUNT_NOT_FOUND)
+                        .errorCode(HttpStatus.NOT_FOUND.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.NOT_FOUND
+        );
+    }
+
+    @ExceptionHandler(FinancialTransactionServiceException.class)
+    public ResponseEntity<APIError> financialTransactionServiceException(FinancialTransactionServiceException financialTransactionServiceException, ServerHttpRequest request) {
+        String errorMessage = "FinancialTransactionServiceException: " + financialTransactionServiceException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.INVALID_REQUEST)
+                        .errorCode(HttpStatus.BAD_REQUEST.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler({ServerWebInputException.class})
+    public ResponseEntity<APIError> serverWebInputException(ServerWebInputException serverWebInputException, ServerHttpRequest request) {
+        String errorMessage = "ServerWebInputException: " + serverWebInputException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.INVALID_REQUEST)
+                        .errorCode(HttpStatus.BAD_REQUEST.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler({IdempotencyKeyReusedException.class})
+    public ResponseEntity<APIError> idempotencyKeyReusedException(IdempotencyKeyReusedException idempotencyKeyReusedException, ServerHttpRequest request) {
+        String errorMessage = "IdempotencyKeyReusedException: " + idempotencyKeyReusedException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.IDEMPOTENCY_KEY_REUSED)
+                        .errorCode(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.UNPROCESSABLE_ENTITY
+        );
+    }
+
+    @ExceptionHandler({InsufficientBalanceException.class})
+    public ResponseEntity<APIError> insufficientBalanceException(InsufficientBalanceException insufficientBalanceException, ServerHttpRequest request) {
+        String errorMessage = "InsufficientBalanceException: " + insufficientBalanceException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.INSUFFICIENT_BALANCE)
+                        .errorCode(HttpStatus.BAD_REQUEST.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler({InvalidAmountException.class})
+    public ResponseEntity<APIError> invalidAmountException(InvalidAmountException invalidAmountException, ServerHttpRequest request) {
+        String errorMessage = "InvalidAmountException: " + invalidAmountException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.INVALID_AMOUNT)
+                        .errorCode(HttpStatus.BAD_REQUEST.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler({InvalidCurrencyException.class})
+    public ResponseEntity<APIError> invalidCurrencyException(InvalidCurrencyException invalidCurrencyException, ServerHttpRequest request) {
+        String errorMessage = "InvalidCurrencyException: " + invalidCurrencyException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.INVALID_CURRENCY)
+                        .errorCode(HttpStatus.BAD_REQUEST.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler({InvalidParametersException.class})
+    public ResponseEntity<APIError> invalidParametersException(InvalidParametersException invalidParametersException, ServerHttpRequest request) {
+        String errorMessage = "InvalidParametersException: " + invalidParametersException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.INVALID_PARAMETERS)
+                        .errorCode(HttpStatus.BAD_REQUEST.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler({MissingParameterException.class})
+    public ResponseEntity<APIError> missingParameterException(MissingParameterException missingParameterException, ServerHttpRequest request) {
+        String errorMessage = "MissingParameterException: " + missingParameterException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.MISSING_PARAMETER)
+                        .errorCode(HttpStatus.BAD_REQUEST.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler({SameAccountException.class})
+    public ResponseEntity<APIError> sameAccountException(SameAccountException sameAccountException, ServerHttpRequest request) {
+        String errorMessage = "SameAccountException: " + sameAccountException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.SAME_ACCOUNT)
+                        .errorCode(HttpStatus.BAD_REQUEST.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler({TooManyRequestsException.class})
+    public ResponseEntity<APIError> tooManyRequestsException(TooManyRequestsException tooManyRequestsException, ServerHttpRequest request) {
+        String errorMessage = "TooManyRequestsException: " + tooManyRequestsException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        // Whole seconds, rounded up
+        long retryAfter = Math.max(1, (tooManyRequestsException.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(APIError.builder()
+                        .errorMessage(ExceptionMessage.TOO_MANY_REQUESTS)
+                        .errorCode(HttpStatus.TOO_MANY_REQUESTS.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage("Could not process request")
+                        .build());
+    }
+
+    @ExceptionHandler({TransactionNotFoundException.class})
+    public ResponseEntity<APIError> transactionNotFoundException(TransactionNotFoundException transactionNotFoundException, ServerHttpRequest request) {
+        String errorMessage = "TransactionNotFoundException: " + transactionNotFoundException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(ExceptionMessage.TRANSACTION_NOT_FOUND)
+                        .errorCode(HttpStatus.NOT_FOUND.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                HttpStatus.NOT_FOUND
+        );
+    }
+
+    @ExceptionHandler({ResponseStatusException.class})
+    public ResponseEntity<APIError> responseStatusException(ResponseStatusException responseStatusException, ServerHttpRequest request) {
+        String errorMessage = "ResponseStatusException: " + responseStatusException.getMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(responseStatusException.getReason())
+                        .errorCode(responseStatusException.getStatusCode().value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage(REQUEST_NOT_VALID)
+                        .build(),
+                responseStatusException.getStatusCode()
+        );
+    }
+
+    @ExceptionHandler({Exception.class})
+    public ResponseEntity<APIError> genericException(Exception exception, ServerHttpRequest request) {
+        String errorMessage = "Exception : " + exception.getLocalizedMessage() + " for " + request.getPath().value();
+        logger.error(errorMessage);
+
+        return new ResponseEntity<>(
+                APIError.builder()
+                        .errorMessage(exception.getLocalizedMessage())
+                        .errorCode(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                        .request(request.getPath().value())
+                        .requestType(request.getMethod().name())
+                        .customMessage("Could not process request")
+                        .build(),
+                HttpStatus.INTERNAL_SERVER_ERROR
+        );
+    }
+
+}
\ No newline at end of file
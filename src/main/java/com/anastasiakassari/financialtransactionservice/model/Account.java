@@ -1,5 +1,8 @@
 package com.anastasiakassari.financialtransactionservice.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,16 +23,28 @@ import java.sql.Timestamp;
 @Builder
 @Table(name = "accounts")
 public class Account implements Serializable {
+    private static final String ID_SEQUENCE = "accounts_seq";
+    private static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Column(updatable = false, nullable = false)
     private Long id;
     @Column
-    private Double balance;
+    @Schema(type = "number", example = "10.50")
+    @JsonSerialize(using = MinorUnits.Serializer.class)
+    @JsonDeserialize(using = MinorUnits.Deserializer.class)
+    private Long balance;
     @Column
     @Enumerated(EnumType.STRING)
     private Currency currency;
     @Column
     private Timestamp createdAt;
+    /**
+     * The number of slots the balance of a hot account is split across, see {@link AccountSlot}. Null for other accounts.
+     */
+    @Column
+    private Integer slotCount;
 
 }
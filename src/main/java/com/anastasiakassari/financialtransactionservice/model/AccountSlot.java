@@ -0,0 +1,38 @@
+package com.anastasiakassari.financialtransactionservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * AccountSlot holds a part of the balance of a hot account. The balance of a hot account is the sum of its slots, so
+ * that concurrent transfers to and from it update different rows.
+ */
+@SuppressWarnings("JpaDataSourceORMInspection")
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(AccountSlot.Key.class)
+@Table(name = "account_slots")
+public class AccountSlot implements Serializable {
+    @Id
+    @Column(updatable = false, nullable = false)
+    private Long accountId;
+    @Id
+    @Column(updatable = false, nullable = false)
+    private Integer slot;
+    @Column(nullable = false)
+    private Long balance;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Long accountId;
+        private Integer slot;
+    }
+}
@@ -0,0 +1,38 @@
+package com.anastasiakassari.financialtransactionservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * IdempotencyKey records the transaction created for a request carrying an idempotency key, so that a retry of the
+ * request gets the same transaction back instead of transferring again.
+ */
+@SuppressWarnings("JpaDataSourceORMInspection")
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "createdAt")
+})
+public class IdempotencyKey implements Serializable {
+    public static final int MAX_LENGTH = 255;
+
+    @Id
+    @Column(updatable = false, nullable = false, length = MAX_LENGTH)
+    private String idempotencyKey;
+    /**
+     * The parameters of the request, which a retry has to repeat.
+     */
+    @Column(nullable = false)
+    private String request;
+    @Column(nullable = false)
+    private Long transactionId;
+    @Column(nullable = false)
+    private Timestamp createdAt;
+}
@@ -0,0 +1,74 @@
+package com.anastasiakassari.financialtransactionservice.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * MinorUnits converts money between minor units (cents), which is how balances and amounts are stored and computed,
+ * and major units with two decimal places, which is how they are exposed over the API.
+ */
+public final class MinorUnits {
+
+    public static final int SCALE = 2;
+
+    private MinorUnits() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Converts a major unit value to minor units.
+     *
+     * @throws ArithmeticException if the value has more than two decimal places or does not fit in a long
+     */
+    public static long fromMajor(BigDecimal value) {
+        return value.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toMajor(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    /**
+     * Writes minor units as a decimal number in major units, e.g. 1050 as 10.50.
+     */
+    public static class Serializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long value, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            generator.writeNumber(toMajor(value));
+        }
+    }
+
+    /**
+     * Reads a decimal number in major units as minor units, rejecting values with more than two decimal places.
+     */
+    public static class Deserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            BigDecimal value = parser.currentToken() == JsonToken.VALUE_STRING
+                    ? parseText(parser)
+                    : parser.getDecimalValue();
+            try {
+                return fromMajor(value);
+            } catch (ArithmeticException e) {
+                throw InvalidFormatException.from(parser, "Not a valid amount: " + value, value, Long.class);
+            }
+        }
+
+        private static BigDecimal parseText(JsonParser parser) throws IOException {
+            try {
+                return new BigDecimal(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                throw InvalidFormatException.from(parser, "Not a valid amount: " + parser.getText(), parser.getText(), Long.class);
+            }
+        }
+    }
+}
@@ -1,24 +1,48 @@
 package com.anastasiakassari.financialtransactionservice.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
 import java.io.Serializable;
+import java.sql.Timestamp;
 
 /**
  * Transaction represents a financial transaction between two accounts.
+ * Transactions are never changed once created, so they are kept in a read-only second-level cache region.
+ * The table can be partitioned by the month in UTC the transactions were created in, see {@code TransactionPartitions}.
  */
 @SuppressWarnings("JpaDataSourceORMInspection")
 @Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = Transaction.CACHE_REGION)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_source_account_id", columnList = "sourceAccountId, id"),
+        @Index(name = "idx_transactions_target_account_id", columnList = "targetAccountId, id")
+})
 public class Transaction implements Serializable {
+    /**
+     * The name of the ID sequence. With the pooled-lo optimizer every value taken from it reserves the next
+     * {@link #ID_ALLOCATION_SIZE} IDs, so that inserts outside JPA draw IDs from the same sequence without clashing.
+     */
+    public static final String ID_SEQUENCE = "transactions_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String CACHE_REGION = "transactions";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Column(updatable = false, nullable = false)
     private Long id;
     @Column
@@ -26,9 +50,23 @@ public class Transaction implements Serializable {
     @Column
     private Long targetAccountId;
     @Column
-    private Double amount;
+    @Schema(type = "number", example = "10.50")
+    @JsonSerialize(using = MinorUnits.Serializer.class)
+    @JsonDeserialize(using = MinorUnits.Deserializer.class)
+    private Long amount;
     @Column
     @Enumerated(EnumType.STRING)
     private Currency currency;
+    /**
+     * Stored as an instant, so that it falls into the partition of the same month in UTC whatever the time zone.
+     */
+    @Column(updatable = false, nullable = false, columnDefinition = "timestamp(6) with time zone")
+    private Timestamp createdAt;
 
+    /**
+     * Creates a transaction at the current time.
+     */
+    public Transaction(Long id, Long sourceAccountId, Long targetAccountId, Long amount, Currency currency) {
+        this(id, sourceAccountId, targetAccountId, amount, currency, new Timestamp(System.currentTimeMillis()));
+    }
 }
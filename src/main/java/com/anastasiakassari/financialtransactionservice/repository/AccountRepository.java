@@ -1,9 +1,47 @@
 package com.anastasiakassari.financialtransactionservice.repository;
 
 import com.anastasiakassari.financialtransactionservice.model.Account;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface AccountRepository extends CrudRepository<Account, Long> {
+
+    /**
+     * Retrieves an account and locks its row with {@code SELECT ... FOR UPDATE} until the end of the transaction.
+     *
+     * @param id The ID of the account.
+     * @return The locked account, if it exists.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Retrieves an account and locks its row with {@code SELECT ... FOR SHARE} until the end of the transaction.
+     * Share locks do not block each other, but keep the account from being updated or deleted.
+     *
+     * @param id The ID of the account.
+     * @return The locked account, if it exists.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select a from Account a where a.id = :id")
+    Optional<Account> findByIdForShare(@Param("id") Long id);
+
+    /**
+     * Retrieves the accounts after the specified ID, served by the primary key index.
+     *
+     * @param id       The ID of the last seen account.
+     * @param pageable The maximum number of accounts to retrieve.
+     * @return The accounts, ordered by ID.
+     */
+    List<Account> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
@@ -0,0 +1,119 @@
+package com.anastasiakassari.financialtransactionservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * AccountSlotRepository reads and updates the slot rows of hot accounts with plain JDBC.
+ * Must be called inside a transaction.
+ */
+@Repository
+public class AccountSlotRepository {
+
+    private static final String INSERT_SLOT = "INSERT INTO account_slots (account_id, slot, balance) VALUES (?, ?, ?)";
+    private static final String CREDIT_SLOT = "UPDATE account_slots SET balance = balance + ? WHERE account_id = ? AND slot = ?";
+    private static final String CREDIT_ANY_SLOT = """
+            UPDATE account_slots SET balance = balance + ?
+            WHERE account_id = ? AND slot = (
+                SELECT slot FROM account_slots WHERE account_id = ?
+                ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED
+            )""";
+    private static final String DEBIT_ANY_SLOT = """
+            UPDATE account_slots SET balance = balance - ?
+            WHERE account_id = ? AND slot = (
+                SELECT slot FROM account_slots WHERE account_id = ? AND balance >= ?
+                ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED
+            )""";
+    private static final String LOCK_SLOTS = "SELECT slot, balance FROM account_slots WHERE account_id = ? ORDER BY slot FOR UPDATE";
+    private static final String UPDATE_SLOT = "UPDATE account_slots SET balance = ? WHERE account_id = ? AND slot = ?";
+    private static final String SUM_BALANCES = "SELECT coalesce(sum(balance), 0) FROM account_slots WHERE account_id = ?";
+    private static final String DELETE_SLOTS = "DELETE FROM account_slots WHERE account_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountSlotRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the slots of an account, numbered from zero.
+     *
+     * @param accountId The ID of the account.
+     * @param balances  The balance of each slot.
+     */
+    public void createSlots(long accountId, List<Long> balances) {
+        List<Integer> slots = IntStream.range(0, balances.size()).boxed().toList();
+        jdbcTemplate.batchUpdate(INSERT_SLOT, slots, slots.size(), (statement, slot) -> {
+            statement.setLong(1, accountId);
+            statement.setInt(2, slot);
+            statement.setLong(3, balances.get(slot));
+        });
+    }
+
+    /**
+     * Adds the amount to a slot, waiting for the slot if another transaction holds it.
+     */
+    public void credit(long accountId, int slot, long amount) {
+        jdbcTemplate.update(CREDIT_SLOT, amount, accountId, slot);
+    }
+
+    /**
+     * Adds the amount to a random slot, skipping slots other transactions hold.
+     *
+     * @return Whether a free slot was found.
+     */
+    public boolean creditAnySlot(long accountId, long amount) {
+        return jdbcTemplate.update(CREDIT_ANY_SLOT, amount, accountId, accountId) == 1;
+    }
+
+    /**
+     * Takes the amount from a random slot that covers it, skipping slots other transactions hold.
+     *
+     * @return Whether such a slot was found.
+     */
+    public boolean debitAnySlot(long accountId, long amount) {
+        return jdbcTemplate.update(DEBIT_ANY_SLOT, amount, accountId, accountId, amount) == 1;
+    }
+
+    /**
+     * Locks all slots of an account in slot order.
+     *
+     * @return The balances by slot.
+     */
+    public Map<Integer, Long> lockSlots(long accountId) {
+        Map<Integer, Long> balances = new TreeMap<>();
+        jdbcTemplate.query(LOCK_SLOTS, resultSet -> {
+            balances.put(resultSet.getInt("slot"), resultSet.getLong("balance"));
+        }, accountId);
+        return balances;
+    }
+
+    /**
+     * Writes the balances of the specified slots in one JDBC batch. The slots should be locked.
+     *
+     * @param accountId The ID of the account.
+     * @param balances  The new balances by slot.
+     */
+    public void updateSlots(long accountId, Map<Integer, Long> balances) {
+        List<Map.Entry<Integer, Long>> slots = List.copyOf(balances.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_SLOT, slots, slots.size(), (statement, slot) -> {
+            statement.setLong(1, slot.getValue());
+            statement.setLong(2, accountId);
+            statement.setInt(3, slot.getKey());
+        });
+    }
+
+    public long sumBalances(long accountId) {
+        Long sum = jdbcTemplate.queryForObject(SUM_BALANCES, Long.class, accountId);
+        return sum == null ? 0 : sum;
+    }
+
+    public void deleteSlots(long accountId) {
+        jdbcTemplate.update(DELETE_SLOTS, accountId);
+    }
+}
@@ -0,0 +1,59 @@
+package com.anastasiakassari.financialtransactionservice.repository;
+
+import com.anastasiakassari.financialtransactionservice.model.IdempotencyKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * IdempotencyKeyRepository stores idempotency keys with plain JDBC, so that a key is inserted in the same database
+ * transaction as its transfer and a concurrent insert of the same key waits for it.
+ */
+@Repository
+public class IdempotencyKeyRepository {
+
+    private static final String INSERT_KEY = """
+            INSERT INTO idempotency_keys (idempotency_key, request, transaction_id, created_at) VALUES (?, ?, ?, ?)
+            ON CONFLICT (idempotency_key) DO UPDATE
+            SET request = excluded.request, transaction_id = excluded.transaction_id, created_at = excluded.created_at
+            WHERE idempotency_keys.created_at < ?""";
+    private static final String FIND_KEY = "SELECT idempotency_key, request, transaction_id, created_at FROM idempotency_keys WHERE idempotency_key = ?";
+    private static final String DELETE_KEYS_CREATED_BEFORE = "DELETE FROM idempotency_keys WHERE created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyKeyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts a key, replacing the stored key only if it has expired.
+     *
+     * @param key           The key to insert.
+     * @param expiredBefore The creation time before which a stored key has expired.
+     * @return Whether the key was inserted. False if an unexpired key with the same value exists.
+     */
+    public boolean insert(IdempotencyKey key, Timestamp expiredBefore) {
+        return jdbcTemplate.update(INSERT_KEY, key.getIdempotencyKey(), key.getRequest(), key.getTransactionId(),
+                key.getCreatedAt(), expiredBefore) == 1;
+    }
+
+    public Optional<IdempotencyKey> find(String idempotencyKey) {
+        List<IdempotencyKey> keys = jdbcTemplate.query(FIND_KEY, (resultSet, rowNum) -> new IdempotencyKey(
+                resultSet.getString("idempotency_key"),
+                resultSet.getString("request"),
+                resultSet.getLong("transaction_id"),
+                resultSet.getTimestamp("created_at")), idempotencyKey);
+        return keys.stream().findFirst();
+    }
+
+    /**
+     * @return The number of deleted keys.
+     */
+    public int deleteCreatedBefore(Timestamp createdBefore) {
+        return jdbcTemplate.update(DELETE_KEYS_CREATED_BEFORE, createdBefore);
+    }
+}
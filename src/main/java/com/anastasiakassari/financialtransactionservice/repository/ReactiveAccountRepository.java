@@ -0,0 +1,138 @@
+package com.anastasiakassari.financialtransactionservice.repository;
+
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * ReactiveAccountRepository reads and writes the account rows with R2DBC, for the reactive services.
+ * The accounts read without a lock come with their whole balance, including the balance of their slots if they are hot.
+ * The ID of a created account is the first of a whole block of the ID sequence, the rest of the block is left unused.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountRepository {
+
+    private static final String COLUMNS = "id, balance, currency, created_at, slot_count";
+    private static final String TOTAL_COLUMNS = """
+            id, balance + CASE WHEN slot_count > 0 THEN (
+                SELECT coalesce(sum(s.balance), 0) FROM account_slots s WHERE s.account_id = accounts.id
+            )::bigint ELSE 0 END AS balance, currency, created_at, slot_count""";
+    private static final String FIND_ALL = "SELECT " + TOTAL_COLUMNS + " FROM accounts ORDER BY id";
+    private static final String FIND_PAGE = "SELECT " + TOTAL_COLUMNS + " FROM accounts WHERE id > :afterId ORDER BY id LIMIT :limit";
+    private static final String FIND_BY_ID = "SELECT " + TOTAL_COLUMNS + " FROM accounts WHERE id = :id";
+    private static final String FIND_BY_ID_FOR_UPDATE = "SELECT " + COLUMNS + " FROM accounts WHERE id = :id FOR NO KEY UPDATE";
+    private static final String FIND_BY_ID_FOR_SHARE = "SELECT " + COLUMNS + " FROM accounts WHERE id = :id FOR SHARE";
+    private static final String INSERT = """
+            INSERT INTO accounts (id, balance, currency, created_at) VALUES (nextval('accounts_seq'), :balance, :currency, :createdAt)
+            RETURNING id""";
+    private static final String ADD_TO_BALANCE = "UPDATE accounts SET balance = balance + :amount WHERE id = :id";
+    private static final String STRIPE = "UPDATE accounts SET balance = 0, slot_count = :slotCount WHERE id = :id";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveAccountRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<Account> findAll() {
+        return databaseClient.sql(FIND_ALL)
+                .map(ReactiveAccountRepository::account)
+                .all();
+    }
+
+    /**
+     * @return Up to limit accounts with an ID greater than afterId, ordered by ID.
+     */
+    public Flux<Account> findPage(long afterId, int limit) {
+        return databaseClient.sql(FIND_PAGE)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveAccountRepository::account)
+                .all();
+    }
+
+    public Mono<Account> findById(long id) {
+        return databaseClient.sql(FIND_BY_ID)
+                .bind("id", id)
+                .map(ReactiveAccountRepository::account)
+                .one();
+    }
+
+    /**
+     * Locks the account row for update. Must be called inside a transaction.
+     */
+    public Mono<Account> findByIdForUpdate(long id) {
+        return databaseClient.sql(FIND_BY_ID_FOR_UPDATE)
+                .bind("id", id)
+                .map(ReactiveAccountRepository::account)
+                .one();
+    }
+
+    /**
+     * Share-locks the account row, which keeps it from being changed but not its slots. Must be called inside a transaction.
+     */
+    public Mono<Account> findByIdForShare(long id) {
+        return databaseClient.sql(FIND_BY_ID_FOR_SHARE)
+                .bind("id", id)
+                .map(ReactiveAccountRepository::account)
+                .one();
+    }
+
+    /**
+     * @return The account with the ID it was inserted with.
+     */
+    public Mono<Account> insert(Account account) {
+        return databaseClient.sql(INSERT)
+                .bind("balance", account.getBalance())
+                .bind("currency", account.getCurrency().name())
+                .bind("createdAt", account.getCreatedAt().toLocalDateTime())
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> Account.builder()
+                        .id(id)
+                        .balance(account.getBalance())
+                        .currency(account.getCurrency())
+                        .createdAt(account.getCreatedAt())
+                        .build());
+    }
+
+    /**
+     * Adds the amount, which may be negative, to the balance held by the account row. The row should be locked.
+     */
+    public Mono<Void> addToBalance(long id, long amount) {
+        return databaseClient.sql(ADD_TO_BALANCE)
+                .bind("id", id)
+                .bind("amount", amount)
+                .then();
+    }
+
+    /**
+     * Marks the account as hot, its balance being held by its slots from now on. The row should be locked.
+     */
+    public Mono<Void> stripe(long id, int slotCount) {
+        return databaseClient.sql(STRIPE)
+                .bind("id", id)
+                .bind("slotCount", slotCount)
+                .then();
+    }
+
+    private static Account account(Readable row) {
+        LocalDateTime createdAt = row.get("created_at", LocalDateTime.class);
+        return Account.builder()
+                .id(row.get("id", Long.class))
+                .balance(row.get("balance", Long.class))
+                .currency(Currency.valueOf(row.get("currency", String.class)))
+                .createdAt(createdAt == null ? null : Timestamp.valueOf(createdAt))
+                .slotCount(row.get("slot_count", Integer.class))
+                .build();
+    }
+}
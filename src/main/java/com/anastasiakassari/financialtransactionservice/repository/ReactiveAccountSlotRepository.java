@@ -0,0 +1,127 @@
+package com.anastasiakassari.financialtransactionservice.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ReactiveAccountSlotRepository reads and updates the slot rows of hot accounts with R2DBC, like
+ * {@link AccountSlotRepository} does with JDBC. The slots of an account are created and updated with one statement each.
+ * Must be called inside a transaction.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountSlotRepository {
+
+    private static final String INSERT_SLOTS = """
+            INSERT INTO account_slots (account_id, slot, balance)
+            SELECT :accountId, slot - 1, balance FROM unnest(:balances::bigint[]) WITH ORDINALITY AS slots (balance, slot)""";
+    private static final String CREDIT_SLOT = "UPDATE account_slots SET balance = balance + :amount WHERE account_id = :accountId AND slot = :slot";
+    private static final String CREDIT_ANY_SLOT = """
+            UPDATE account_slots SET balance = balance + :amount
+            WHERE account_id = :accountId AND slot = (
+                SELECT slot FROM account_slots WHERE account_id = :accountId
+                ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED
+            )""";
+    private static final String DEBIT_ANY_SLOT = """
+            UPDATE account_slots SET balance = balance - :amount
+            WHERE account_id = :accountId AND slot = (
+                SELECT slot FROM account_slots WHERE account_id = :accountId AND balance >= :amount
+                ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED
+            )""";
+    private static final String LOCK_SLOTS = "SELECT slot, balance FROM account_slots WHERE account_id = :accountId ORDER BY slot FOR UPDATE";
+    private static final String UPDATE_SLOTS = """
+            UPDATE account_slots SET balance = updated.balance
+            FROM unnest(:slots::int[], :balances::bigint[]) AS updated (slot, balance)
+            WHERE account_slots.account_id = :accountId AND account_slots.slot = updated.slot""";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveAccountSlotRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Creates the slots of an account, numbered from zero.
+     *
+     * @param accountId The ID of the account.
+     * @param balances  The balance of each slot.
+     */
+    public Mono<Void> createSlots(long accountId, List<Long> balances) {
+        return databaseClient.sql(INSERT_SLOTS)
+                .bind("accountId", accountId)
+                .bind("balances", balances.toArray(Long[]::new))
+                .then();
+    }
+
+    /**
+     * Adds the amount to a slot, waiting for the slot if another transaction holds it.
+     */
+    public Mono<Void> credit(long accountId, int slot, long amount) {
+        return databaseClient.sql(CREDIT_SLOT)
+                .bind("accountId", accountId)
+                .bind("slot", slot)
+                .bind("amount", amount)
+                .then();
+    }
+
+    /**
+     * Adds the amount to a random slot, skipping slots other transactions hold.
+     *
+     * @return Whether a free slot was found.
+     */
+    public Mono<Boolean> creditAnySlot(long accountId, long amount) {
+        return databaseClient.sql(CREDIT_ANY_SLOT)
+                .bind("accountId", accountId)
+                .bind("amount", amount)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows == 1);
+    }
+
+    /**
+     * Takes the amount from a random slot that covers it, skipping slots other transactions hold.
+     *
+     * @return Whether such a slot was found.
+     */
+    public Mono<Boolean> debitAnySlot(long accountId, long amount) {
+        return databaseClient.sql(DEBIT_ANY_SLOT)
+                .bind("accountId", accountId)
+                .bind("amount", amount)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows == 1);
+    }
+
+    /**
+     * Locks all slots of an account in slot order.
+     *
+     * @return The balances by slot.
+     */
+    public Mono<Map<Integer, Long>> lockSlots(long accountId) {
+        return databaseClient.sql(LOCK_SLOTS)
+                .bind("accountId", accountId)
+                .map(row -> Map.entry(row.get("slot", Integer.class), row.get("balance", Long.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, TreeMap::new);
+    }
+
+    /**
+     * Writes the balances of the specified slots. The slots should be locked.
+     *
+     * @param accountId The ID of the account.
+     * @param balances  The new balances by slot.
+     */
+    public Mono<Void> updateSlots(long accountId, Map<Integer, Long> balances) {
+        return databaseClient.sql(UPDATE_SLOTS)
+                .bind("accountId", accountId)
+                .bind("slots", balances.keySet().toArray(Integer[]::new))
+                .bind("balances", balances.values().toArray(Long[]::new))
+                .then();
+    }
+}
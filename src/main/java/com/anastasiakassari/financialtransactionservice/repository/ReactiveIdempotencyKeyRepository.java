@@ -0,0 +1,64 @@
+package com.anastasiakassari.financialtransactionservice.repository;
+
+import com.anastasiakassari.financialtransactionservice.model.IdempotencyKey;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * ReactiveIdempotencyKeyRepository stores idempotency keys with R2DBC, like {@link IdempotencyKeyRepository} does with
+ * JDBC, so that a key is inserted in the same database transaction as its transfer. Expired keys are deleted by the
+ * {@code IdempotencyStore}, whichever API the application serves.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveIdempotencyKeyRepository {
+
+    private static final String INSERT_KEY = """
+            INSERT INTO idempotency_keys (idempotency_key, request, transaction_id, created_at)
+            VALUES (:key, :request, :transactionId, :createdAt)
+            ON CONFLICT (idempotency_key) DO UPDATE
+            SET request = excluded.request, transaction_id = excluded.transaction_id, created_at = excluded.created_at
+            WHERE idempotency_keys.created_at < :expiredBefore""";
+    private static final String FIND_KEY = "SELECT idempotency_key, request, transaction_id, created_at FROM idempotency_keys WHERE idempotency_key = :key";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveIdempotencyKeyRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Inserts a key, replacing the stored key only if it has expired.
+     *
+     * @param key           The key to insert.
+     * @param expiredBefore The creation time before which a stored key has expired.
+     * @return Whether the key was inserted. False if an unexpired key with the same value exists.
+     */
+    public Mono<Boolean> insert(IdempotencyKey key, Timestamp expiredBefore) {
+        return databaseClient.sql(INSERT_KEY)
+                .bind("key", key.getIdempotencyKey())
+                .bind("request", key.getRequest())
+                .bind("transactionId", key.getTransactionId())
+                .bind("createdAt", key.getCreatedAt().toLocalDateTime())
+                .bind("expiredBefore", expiredBefore.toLocalDateTime())
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows == 1);
+    }
+
+    public Mono<IdempotencyKey> find(String idempotencyKey) {
+        return databaseClient.sql(FIND_KEY)
+                .bind("key", idempotencyKey)
+                .map(row -> new IdempotencyKey(
+                        row.get("idempotency_key", String.class),
+                        row.get("request", String.class),
+                        row.get("transaction_id", Long.class),
+                        Timestamp.valueOf(row.get("created_at", LocalDateTime.class))))
+                .one();
+    }
+}
@@ -0,0 +1,148 @@
+package com.anastasiakassari.financialtransactionservice.repository;
+
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * ReactiveTransactionRepository reads and inserts transactions with R2DBC, for the reactive services.
+ * The ID of an inserted transaction is the first of a whole block of {@link Transaction#ID_SEQUENCE}, the rest of the
+ * block is left unused.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTransactionRepository {
+
+    private static final String COLUMNS = "id, source_account_id, target_account_id, amount, currency, created_at";
+    private static final String FIND_ALL = "SELECT " + COLUMNS + " FROM transactions ORDER BY id";
+    private static final String FIND_PAGE = "SELECT " + COLUMNS + " FROM transactions WHERE id > :afterId ORDER BY id LIMIT :limit";
+    private static final String FIND_PAGE_CREATED_BETWEEN = """
+            SELECT %s FROM transactions WHERE id > :afterId AND created_at >= :from AND created_at < :to
+            ORDER BY id LIMIT :limit""".formatted(COLUMNS);
+    private static final String FIND_BY_ID = "SELECT " + COLUMNS + " FROM transactions WHERE id = :id";
+    private static final String FIND_BY_SOURCE = "SELECT " + COLUMNS + " FROM transactions WHERE source_account_id = :accountId ORDER BY id";
+    private static final String FIND_BY_TARGET = "SELECT " + COLUMNS + " FROM transactions WHERE target_account_id = :accountId ORDER BY id";
+    private static final String FIND_BY_ACCOUNT = """
+            SELECT %s FROM transactions WHERE source_account_id = :accountId OR target_account_id = :accountId
+            ORDER BY id""".formatted(COLUMNS);
+    private static final String FIND_BY_ACCOUNT_CREATED_BETWEEN = """
+            SELECT %s FROM transactions WHERE (source_account_id = :accountId OR target_account_id = :accountId)
+            AND created_at >= :from AND created_at < :to
+            ORDER BY id""".formatted(COLUMNS);
+    private static final String INSERT = """
+            INSERT INTO transactions (id, source_account_id, target_account_id, amount, currency, created_at)
+            VALUES (nextval('transactions_seq'), :sourceId, :targetId, :amount, :currency, :createdAt)
+            RETURNING id""";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveTransactionRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Streams all the transactions, fetching {@value TransactionRepository#STREAM_FETCH_SIZE} rows at a time as the
+     * subscriber requests them.
+     *
+     * @return The transactions, ordered by ID.
+     */
+    public Flux<Transaction> streamAll() {
+        return databaseClient.sql(FIND_ALL)
+                .filter(statement -> statement.fetchSize(Integer.parseInt(TransactionRepository.STREAM_FETCH_SIZE)))
+                .map(ReactiveTransactionRepository::transaction)
+                .all();
+    }
+
+    /**
+     * @return Up to limit transactions with an ID greater than afterId, ordered by ID.
+     */
+    public Flux<Transaction> findPage(long afterId, int limit) {
+        return databaseClient.sql(FIND_PAGE)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveTransactionRepository::transaction)
+                .all();
+    }
+
+    /**
+     * @return Up to limit transactions with an ID greater than afterId created in the time range, ordered by ID.
+     */
+    public Flux<Transaction> findPageCreatedBetween(long afterId, Timestamp from, Timestamp to, int limit) {
+        return databaseClient.sql(FIND_PAGE_CREATED_BETWEEN)
+                .bind("afterId", afterId)
+                .bind("from", from.toInstant())
+                .bind("to", to.toInstant())
+                .bind("limit", limit)
+                .map(ReactiveTransactionRepository::transaction)
+                .all();
+    }
+
+    public Mono<Transaction> findById(long id) {
+        return databaseClient.sql(FIND_BY_ID)
+                .bind("id", id)
+                .map(ReactiveTransactionRepository::transaction)
+                .one();
+    }
+
+    public Flux<Transaction> findBySourceAccountId(long accountId) {
+        return findByAccount(FIND_BY_SOURCE, accountId);
+    }
+
+    public Flux<Transaction> findByTargetAccountId(long accountId) {
+        return findByAccount(FIND_BY_TARGET, accountId);
+    }
+
+    public Flux<Transaction> findBySourceOrTargetAccountId(long accountId) {
+        return findByAccount(FIND_BY_ACCOUNT, accountId);
+    }
+
+    public Flux<Transaction> findBySourceOrTargetAccountIdCreatedBetween(long accountId, Timestamp from, Timestamp to) {
+        return databaseClient.sql(FIND_BY_ACCOUNT_CREATED_BETWEEN)
+                .bind("accountId", accountId)
+                .bind("from", from.toInstant())
+                .bind("to", to.toInstant())
+                .map(ReactiveTransactionRepository::transaction)
+                .all();
+    }
+
+    private Flux<Transaction> findByAccount(String sql, long accountId) {
+        return databaseClient.sql(sql)
+                .bind("accountId", accountId)
+                .map(ReactiveTransactionRepository::transaction)
+                .all();
+    }
+
+    /**
+     * @return The transaction with the ID it was inserted with.
+     */
+    public Mono<Transaction> insert(long sourceId, long targetId, long amount, Currency currency) {
+        Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+        return databaseClient.sql(INSERT)
+                .bind("sourceId", sourceId)
+                .bind("targetId", targetId)
+                .bind("amount", amount)
+                .bind("currency", currency.name())
+                .bind("createdAt", createdAt.toInstant())
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> new Transaction(id, sourceId, targetId, amount, currency, createdAt));
+    }
+
+    private static Transaction transaction(Readable row) {
+        return new Transaction(
+                row.get("id", Long.class),
+                row.get("source_account_id", Long.class),
+                row.get("target_account_id", Long.class),
+                row.get("amount", Long.class),
+                Currency.valueOf(row.get("currency", String.class)),
+                Timestamp.from(row.get("created_at", Instant.class)));
+    }
+}
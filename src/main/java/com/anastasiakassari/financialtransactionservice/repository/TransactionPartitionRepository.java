@@ -0,0 +1,176 @@
+package com.anastasiakassari.financialtransactionservice.repository;
+
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * TransactionPartitionRepository manages the monthly range partitions of the transactions table in Postgres. Each
+ * partition holds the transactions created in one month in UTC, so that queries on a time range only read the partitions of
+ * the months they cover, and old months can be detached from the table without deleting their rows one by one.
+ */
+@Repository
+public class TransactionPartitionRepository {
+
+    private static final String TABLE = "transactions";
+    private static final String UNPARTITIONED_TABLE = "transactions_unpartitioned";
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_p(\\d{4})_(\\d{2})");
+
+    private static final String IS_PARTITIONED = "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))";
+    private static final String FIND_PARTITIONS = """
+            SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(?) ORDER BY c.relname""";
+    private static final String FIND_PARTITION_TABLES = """
+            SELECT relname FROM pg_class WHERE relkind = 'r' AND relnamespace = current_schema()::regnamespace
+            AND relname ~ '^transactions_p[0-9]{4}_[0-9]{2}$' ORDER BY relname""";
+    private static final String IS_ATTACHED = "SELECT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid = to_regclass(?))";
+    private static final int STREAM_FETCH_SIZE = 1000;
+    private static final String FIND_INDEXES = """
+            SELECT i.indexrelid::regclass::text AS name, pg_get_indexdef(i.indexrelid) AS definition
+            FROM pg_index i WHERE i.indrelid = to_regclass(?) AND NOT i.indisprimary""";
+    private static final String FIND_PRIMARY_KEY = "SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'p'";
+    private static final String CREATED_AT_INDEX = "CREATE INDEX IF NOT EXISTS idx_transactions_created_at ON " + TABLE + " USING brin (created_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static String partitionName(YearMonth month) {
+        return "%s_p%04d_%02d".formatted(TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * @return The month of the partition, or empty if the name is not the name of a partition.
+     */
+    public static Optional<YearMonth> partitionMonth(String name) {
+        Matcher matcher = PARTITION_NAME.matcher(name);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+    }
+
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED, Boolean.class, TABLE));
+    }
+
+    /**
+     * @return The earliest creation time of the transactions in the table, if there are any.
+     */
+    public Optional<Timestamp> findEarliestCreatedAt() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject("SELECT min(created_at) FROM " + TABLE, Timestamp.class));
+    }
+
+    /**
+     * Replaces the plain transactions table, as created from the entity, with a table partitioned by the creation time
+     * of the transactions, and moves the rows over. The primary key includes the creation time, as the key of a
+     * partitioned table must include its partition key, and the indexes are created again on the partitioned table.
+     * Must be called inside a transaction, so that the table is only replaced if every step succeeds.
+     *
+     * @param months The months to create partitions for, which must cover the rows already in the table.
+     */
+    public void partition(List<YearMonth> months) {
+        List<String[]> indexes = jdbcTemplate.query(FIND_INDEXES,
+                (resultSet, rowNum) -> new String[]{resultSet.getString("name"), resultSet.getString("definition")}, TABLE);
+        for (String[] index : indexes) {
+            jdbcTemplate.execute("DROP INDEX " + index[0]);
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + UNPARTITIONED_TABLE);
+        for (String primaryKey : jdbcTemplate.queryForList(FIND_PRIMARY_KEY, String.class, UNPARTITIONED_TABLE)) {
+            jdbcTemplate.execute("ALTER TABLE " + UNPARTITIONED_TABLE + " DROP CONSTRAINT " + primaryKey);
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + UNPARTITIONED_TABLE + " INCLUDING DEFAULTS) PARTITION BY RANGE (created_at)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PRIMARY KEY (id, created_at)");
+        months.forEach(this::createPartition);
+        jdbcTemplate.execute("INSERT INTO " + TABLE + " SELECT * FROM " + UNPARTITIONED_TABLE);
+        jdbcTemplate.execute("DROP TABLE " + UNPARTITIONED_TABLE);
+
+        for (String[] index : indexes) {
+            jdbcTemplate.execute(index[1]);
+        }
+        // Transactions are inserted in time order, which a block range index summarizes in a few pages per partition
+        jdbcTemplate.execute(CREATED_AT_INDEX);
+    }
+
+    /**
+     * Creates the partition of the transactions created in the month in UTC, unless it exists.
+     */
+    public void createPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')".formatted(
+                partitionName(month), TABLE, start(month), start(month.plusMonths(1))));
+    }
+
+    private static Instant start(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    /**
+     * @return The names of the partitions attached to the table, ordered by month.
+     */
+    public List<String> findPartitions() {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS, String.class, TABLE);
+    }
+
+    /**
+     * Detaches the partition from the table, leaving it as a table of its own. Only the catalog is changed, but the
+     * table is locked while it is.
+     */
+    public void detachPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+    }
+
+    /**
+     * @return The names of the partitions of the table, attached or detached, ordered by month.
+     */
+    public List<String> findPartitionTables() {
+        return jdbcTemplate.queryForList(FIND_PARTITION_TABLES, String.class);
+    }
+
+    /**
+     * Passes the transactions of the partition to the consumer in ascending ID order, fetching them a few at a time.
+     * Must be called inside a transaction, as Postgres only fetches the rows of a query gradually inside one.
+     */
+    public void streamPartition(String name, Consumer<Transaction> consumer) {
+        String sql = "SELECT id, source_account_id, target_account_id, amount, currency, created_at FROM " + name + " ORDER BY id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(new Transaction(resultSet.getLong("id"),
+                resultSet.getLong("source_account_id"), resultSet.getLong("target_account_id"), resultSet.getLong("amount"),
+                Currency.valueOf(resultSet.getString("currency")), resultSet.getTimestamp("created_at"))));
+    }
+
+    /**
+     * Locks the partition against changes until the end of the transaction, while still letting it be read.
+     */
+    public void lockPartition(String name) {
+        jdbcTemplate.execute("LOCK TABLE " + name + " IN SHARE MODE");
+    }
+
+    /**
+     * Drops the partition with its rows, detaching it from the table first if it is attached.
+     */
+    public void dropPartition(String name) {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_ATTACHED, Boolean.class, name))) {
+            detachPartition(name);
+        }
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+}
@@ -1,9 +1,97 @@
 package com.anastasiakassari.financialtransactionservice.repository;
 
 import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface TransactionRepository extends CrudRepository<Transaction, Long> {
+
+    /**
+     * The number of rows the JDBC driver fetches per round-trip when streaming transactions.
+     */
+    String STREAM_FETCH_SIZE = "1000";
+
+    /**
+     * Streams all the transactions through a server-side cursor, fetching {@value #STREAM_FETCH_SIZE} rows at a time.
+     * Must be called inside a transaction and the stream must be closed after use.
+     *
+     * @return The stream of transactions, ordered by ID.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Transaction> streamAllByOrderByIdAsc();
+
+    /**
+     * Retrieves the transactions after the specified ID, served by the primary key index.
+     *
+     * @param id       The ID of the last seen transaction.
+     * @param pageable The maximum number of transactions to retrieve.
+     * @return The transactions, ordered by ID.
+     */
+    List<Transaction> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Retrieves the transactions after the specified ID that were created in the time range, reading only the
+     * partitions of the months the range covers.
+     *
+     * @param id       The ID of the last seen transaction.
+     * @param from     The start of the range, inclusive.
+     * @param to       The end of the range, exclusive.
+     * @param pageable The maximum number of transactions to retrieve.
+     * @return The transactions, ordered by ID.
+     */
+    List<Transaction> findByIdGreaterThanAndCreatedAtGreaterThanEqualAndCreatedAtLessThanOrderByIdAsc(Long id, Timestamp from, Timestamp to,
+                                                                                                    Pageable pageable);
+
+    /**
+     * Retrieves the transactions sent from the specified account, served by the source account index.
+     *
+     * @param sourceAccountId The ID of the source account.
+     * @return The outgoing transactions, ordered by ID.
+     */
+    List<Transaction> findBySourceAccountIdOrderByIdAsc(Long sourceAccountId);
+
+    /**
+     * Retrieves the transactions received by the specified account, served by the target account index.
+     *
+     * @param targetAccountId The ID of the target account.
+     * @return The incoming transactions, ordered by ID.
+     */
+    List<Transaction> findByTargetAccountIdOrderByIdAsc(Long targetAccountId);
+
+    /**
+     * Retrieves the transactions sent from or received by the specified accounts, served by both account indexes.
+     *
+     * @param sourceAccountId The ID of the source account.
+     * @param targetAccountId The ID of the target account.
+     * @return The matching transactions, ordered by ID.
+     */
+    List<Transaction> findBySourceAccountIdOrTargetAccountIdOrderByIdAsc(Long sourceAccountId, Long targetAccountId);
+
+    /**
+     * Retrieves the transactions sent from or received by the specified account that were created in the time range,
+     * reading only the partitions of the months the range covers.
+     *
+     * @param accountId The ID of the account.
+     * @param from      The start of the range, inclusive.
+     * @param to        The end of the range, exclusive.
+     * @return The matching transactions, ordered by ID.
+     */
+    @Query("select t from Transaction t where (t.sourceAccountId = :accountId or t.targetAccountId = :accountId)"
+            + " and t.createdAt >= :from and t.createdAt < :to order by t.id")
+    List<Transaction> findByAccountIdCreatedBetween(@Param("accountId") Long accountId, @Param("from") Timestamp from,
+                                                    @Param("to") Timestamp to);
 }
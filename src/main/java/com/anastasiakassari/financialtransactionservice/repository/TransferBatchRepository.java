@@ -0,0 +1,160 @@
+package com.anastasiakassari.financialtransactionservice.repository;
+
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TransferBatchRepository applies many transfers with plain JDBC statement batching, bypassing the persistence context.
+ * Must be called inside a transaction.
+ */
+@Repository
+public class TransferBatchRepository {
+
+    private static final String LOCK_ACCOUNTS = "SELECT id, balance, currency, slot_count FROM accounts WHERE id = ANY (?) AND coalesce(slot_count, 0) = 0 ORDER BY id FOR UPDATE";
+    private static final String LOCK_HOT_ACCOUNTS = "SELECT id, balance, currency, slot_count FROM accounts WHERE id = ANY (?) AND slot_count > 0 ORDER BY id FOR SHARE";
+    private static final String UPDATE_BALANCE = "UPDATE accounts SET balance = ? WHERE id = ?";
+    private static final String ADD_TO_BALANCE = "UPDATE accounts SET balance = balance + ? WHERE id = ?";
+    private static final String NEXT_TRANSACTION_ID_BLOCKS = "SELECT nextval('" + Transaction.ID_SEQUENCE + "') FROM generate_series(1, ?)";
+    private static final String FIND_TRANSACTION_IDS = "SELECT id FROM transactions WHERE id = ANY (?)";
+    private static final String INSERT_TRANSACTION = "INSERT INTO transactions (id, source_account_id, target_account_id, amount, currency, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransferBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Locks the specified accounts in ascending ID order, so that concurrent batches cannot deadlock on each other.
+     * Hot accounts are only share-locked, after the others, as their balance is moved through their slots: concurrent
+     * transfers involving the same hot account then only wait for each other on the slots they both update. An account
+     * striped while waiting for its lock is share-locked along with the hot ones.
+     *
+     * @param ids The IDs of the accounts to lock.
+     * @return The locked accounts by ID. Accounts that do not exist are missing.
+     */
+    public Map<Long, Account> lockAccounts(Collection<Long> ids) {
+        Map<Long, Account> accounts = new HashMap<>();
+        if (ids.isEmpty()) {
+            return accounts;
+        }
+        lockAccounts(LOCK_ACCOUNTS, ids, accounts);
+        lockAccounts(LOCK_HOT_ACCOUNTS, ids, accounts);
+        return accounts;
+    }
+
+    private void lockAccounts(String query, Collection<Long> ids, Map<Long, Account> accounts) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(query);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, resultSet -> {
+            Account account = Account.builder()
+                    .id(resultSet.getLong("id"))
+                    .balance(resultSet.getLong("balance"))
+                    .currency(Currency.valueOf(resultSet.getString("currency")))
+                    .slotCount(resultSet.getObject("slot_count", Integer.class))
+                    .build();
+            accounts.put(account.getId(), account);
+        });
+    }
+
+    /**
+     * Writes the balances of the specified accounts in one JDBC batch.
+     *
+     * @param accounts The accounts to update.
+     */
+    public void updateBalances(Collection<Account> accounts) {
+        if (accounts.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_BALANCE, accounts, accounts.size(), (statement, account) -> {
+            statement.setLong(1, account.getBalance());
+            statement.setLong(2, account.getId());
+        });
+    }
+
+    /**
+     * Adds the specified amounts to the balances of the accounts in one JDBC batch.
+     *
+     * @param amounts The amounts to add by account ID. Negative amounts are subtracted.
+     */
+    public void addToBalances(Map<Long, Long> amounts) {
+        if (amounts.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> entries = List.copyOf(amounts.entrySet());
+        jdbcTemplate.batchUpdate(ADD_TO_BALANCE, entries, entries.size(), (statement, entry) -> {
+            statement.setLong(1, entry.getValue());
+            statement.setLong(2, entry.getKey());
+        });
+    }
+
+    /**
+     * Takes blocks of IDs from the transaction ID sequence. Each block holds {@link Transaction#ID_ALLOCATION_SIZE}
+     * consecutive IDs, starting from the returned value, the same way Hibernate takes them.
+     *
+     * @param blockCount The number of blocks to take.
+     * @return The first ID of each block.
+     */
+    public List<Long> nextTransactionIdBlocks(int blockCount) {
+        return jdbcTemplate.queryForList(NEXT_TRANSACTION_ID_BLOCKS, Long.class, blockCount);
+    }
+
+    /**
+     * @param ids The IDs to look for.
+     * @return The IDs of the specified transactions that exist.
+     */
+    public Set<Long> findTransactionIds(Collection<Long> ids) {
+        Set<Long> found = new HashSet<>();
+        if (ids.isEmpty()) {
+            return found;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_TRANSACTION_IDS);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, resultSet -> {
+            found.add(resultSet.getLong("id"));
+        });
+        return found;
+    }
+
+    /**
+     * Inserts the specified transactions in one JDBC batch and assigns IDs to the ones without an ID.
+     *
+     * @param transactions The transactions to insert.
+     */
+    public void insertTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<Transaction> unnumbered = transactions.stream().filter(transaction -> transaction.getId() == null).toList();
+        if (!unnumbered.isEmpty()) {
+            int blockCount = (unnumbered.size() + Transaction.ID_ALLOCATION_SIZE - 1) / Transaction.ID_ALLOCATION_SIZE;
+            List<Long> blocks = nextTransactionIdBlocks(blockCount);
+            for (int i = 0; i < unnumbered.size(); i++) {
+                unnumbered.get(i).setId(blocks.get(i / Transaction.ID_ALLOCATION_SIZE) + i % Transaction.ID_ALLOCATION_SIZE);
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactions, transactions.size(), (statement, transaction) -> {
+            statement.setLong(1, transaction.getId());
+            statement.setLong(2, transaction.getSourceAccountId());
+            statement.setLong(3, transaction.getTargetAccountId());
+            statement.setLong(4, transaction.getAmount());
+            statement.setString(5, transaction.getCurrency().name());
+            statement.setTimestamp(6, transaction.getCreatedAt());
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package com.anastasiakassari.financialtransactionservice.repository;
+
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+
+/**
+ * TransferStatementRepository applies a transfer with a single SQL statement, in one database round-trip.
+ * The statement locks both accounts in ascending ID order, checks the currencies and the source balance, moves the
+ * amount and inserts the transaction only if every check passes. It also returns what it found, so that the caller can
+ * tell why a transfer was not applied. Transfers involving hot accounts are not applied, as their balance is held by
+ * their slots.
+ * The transaction ID is the first of a whole block of {@link Transaction#ID_SEQUENCE}, the rest of the block is left unused.
+ */
+@Repository
+public class TransferStatementRepository {
+
+    private static final String TRANSFER = """
+            WITH locked AS (
+                SELECT id, balance, currency, slot_count FROM accounts WHERE id IN (:sourceId, :targetId) ORDER BY id FOR NO KEY UPDATE
+            ), accepted AS (
+                SELECT count(*) = 2 AND bool_and(currency = :currency) AND bool_or(id = :sourceId AND balance >= :amount)
+                       AND bool_and(coalesce(slot_count, 0) = 0) AS ok
+                FROM locked
+            ), moved AS (
+                UPDATE accounts SET balance = balance + CASE WHEN id = :sourceId THEN -:amount ELSE :amount END
+                WHERE id IN (:sourceId, :targetId) AND (SELECT ok FROM accepted)
+                RETURNING id
+            ), inserted AS (
+                INSERT INTO transactions (id, source_account_id, target_account_id, amount, currency, created_at)
+                SELECT nextval('transactions_seq'), :sourceId, :targetId, :amount, :currency, :createdAt
+                FROM accepted WHERE ok
+                RETURNING id
+            )
+            SELECT (SELECT id FROM inserted) AS transaction_id,
+                   (SELECT count(*) FROM moved) AS moved,
+                   (SELECT currency FROM locked WHERE id = :sourceId) AS source_currency,
+                   (SELECT currency FROM locked WHERE id = :targetId) AS target_currency,
+                   (SELECT balance FROM locked WHERE id = :sourceId) AS source_balance,
+                   (SELECT coalesce(bool_or(slot_count > 0), false) FROM locked) AS hot""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public TransferStatementRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Applies the transfer between two distinct accounts, if both exist in the given currency and the source balance
+     * covers the amount. Must be called inside a transaction.
+     *
+     * @return The ID of the created transaction, or null if the transfer was not applied, along with the state of the
+     * accounts it was checked against.
+     */
+    public Outcome transfer(long sourceId, long targetId, long amount, Currency currency, Timestamp createdAt) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("sourceId", sourceId)
+                .addValue("targetId", targetId)
+                .addValue("amount", amount)
+                .addValue("currency", currency.name())
+                .addValue("createdAt", createdAt);
+        return jdbcTemplate.queryForObject(TRANSFER, parameters, (resultSet, rowNum) -> new Outcome(
+                resultSet.getObject("transaction_id", Long.class),
+                resultSet.getInt("moved"),
+                currencyOf(resultSet.getString("source_currency")),
+                currencyOf(resultSet.getString("target_currency")),
+                resultSet.getObject("source_balance", Long.class),
+                resultSet.getBoolean("hot")));
+    }
+
+    private static Currency currencyOf(String currency) {
+        return currency == null ? null : Currency.valueOf(currency);
+    }
+
+    /**
+     * The result of a transfer statement. The currencies are null for accounts that do not exist.
+     */
+    public record Outcome(Long transactionId, int movedAccounts, Currency sourceCurrency, Currency targetCurrency,
+                          Long sourceBalance, boolean hot) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.AccountCacheProperties;
+import com.anastasiakassari.financialtransactionservice.config.ReplicaProperties;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * AccountCache keeps recently read accounts in process, bounded in size and time to live, so that repeated reads of the
+ * same accounts do not reach the database. The cached accounts are only ever returned to readers: transfers still lock
+ * and check the account rows in the database.
+ * <p>
+ * Updating an account replaces its cached copy once the update commits. A transfer evicts its accounts once it commits
+ * instead, since transfers committing concurrently could otherwise put their balances in the wrong order.
+ * The hits, misses and evictions are published as the {@code cache.*} metrics of the {@code accounts} cache.
+ * <p>
+ * With a read replica, an account read within the maximum lag of an eviction may still come from before it, so such
+ * reads are returned but not cached.
+ */
+@Component
+public class AccountCache {
+
+    static final String CACHE_NAME = "accounts";
+
+    private static final int STRIPES = 1024;
+
+    private final Cache<Long, Account> accounts;
+    private final AtomicLongArray stripeEvictions = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray stripeEvictedAt = new AtomicLongArray(STRIPES);
+    private final long maxLagNanos;
+
+    public AccountCache(AccountCacheProperties properties, ReplicaProperties replicaProperties, MeterRegistry meterRegistry) {
+        this.maxLagNanos = replicaProperties.isEnabled() ? replicaProperties.getMaxLag().toNanos() : 0;
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached account, loading it on a miss. Accounts that are not found are not cached.
+     * The account is loaded outside the cache rather than through {@code Cache.get}, which would hold a monitor for the
+     * whole database read and pin a virtual thread to its carrier. A loaded account is only cached if none of the
+     * accounts sharing its stripe were evicted during the load, so that a read racing a transfer cannot cache the
+     * balance from before it, and if none were evicted within the maximum lag of the replica.
+     *
+     * @param loader Loads the account with its whole balance.
+     * @return A copy of the account, which the caller is free to change.
+     */
+    Optional<Account> get(long id, Function<Long, Optional<Account>> loader) {
+        Account cached = accounts.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        int stripe = stripe(id);
+        long evictions = stripeEvictions.get(stripe);
+        Optional<Account> loaded = loader.apply(id);
+        loaded.map(AccountCache::copy).ifPresent(account -> accounts.asMap().compute(id, (key, current) ->
+                current == null && stripeEvictions.get(stripe) == evictions && !lagging(stripe, evictions) ? account : current));
+        return loaded;
+    }
+
+    private boolean lagging(int stripe, long evictions) {
+        return maxLagNanos > 0 && evictions > 0 && System.nanoTime() - stripeEvictedAt.get(stripe) < maxLagNanos;
+    }
+
+    /**
+     * Caches the account with its whole balance, once the current transaction commits.
+     */
+    void putAfterCommit(Account account) {
+        Account copy = copy(account);
+        afterCommit(() -> accounts.put(copy.getId(), copy));
+    }
+
+    /**
+     * Evicts the accounts, once the current transaction commits.
+     */
+    void evictAfterCommit(Collection<Long> ids) {
+        afterCommit(() -> {
+            long now = System.nanoTime();
+            ids.forEach(id -> {
+                stripeEvictedAt.set(stripe(id), now);
+                stripeEvictions.incrementAndGet(stripe(id));
+            });
+            accounts.invalidateAll(ids);
+        });
+    }
+
+    CacheStats stats() {
+        return accounts.stats();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static int stripe(long id) {
+        return Long.hashCode(id) & (STRIPES - 1);
+    }
+
+    private static Account copy(Account account) {
+        return Account.builder()
+                .id(account.getId())
+                .balance(account.getBalance())
+                .currency(account.getCurrency())
+                .createdAt(account.getCreatedAt())
+                .slotCount(account.getSlotCount())
+                .build();
+    }
+}
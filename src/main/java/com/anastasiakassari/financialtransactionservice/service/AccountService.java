@@ -1,24 +1,34 @@
 package com.anastasiakassari.financialtransactionservice.service;
 
 import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
 import com.anastasiakassari.financialtransactionservice.model.Account;
 import com.anastasiakassari.financialtransactionservice.model.Transaction;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface AccountService {
     List<Account> getAccounts();
 
+    PageDTO<Account> getAccounts(String cursor, Integer limit);
+
     Account getAccountById(Long id);
 
     Account createAccount(AccountDTO account);
 
+    List<Account> createAccounts(List<AccountDTO> accounts);
+
     Account updateAccount(Account account);
 
+    Account stripeAccount(Long id, Integer slotCount);
+
     boolean deleteAccount(Long id);
 
     List<Transaction> getAllTransactions(Long accountId);
 
+    List<Transaction> getAllTransactions(Long accountId, Instant from, Instant to);
+
     List<Transaction> getIncomingTransactions(Long accountId);
 
     List<Transaction> getOutgoingTransactions(Long accountId);
@@ -1,19 +1,24 @@
 package com.anastasiakassari.financialtransactionservice.service;
 
 import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
 import com.anastasiakassari.financialtransactionservice.exception.*;
 import com.anastasiakassari.financialtransactionservice.model.Account;
 import com.anastasiakassari.financialtransactionservice.model.Transaction;
 import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
 import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import com.anastasiakassari.financialtransactionservice.service.ArchiveSegment.Direction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -25,25 +30,48 @@ public class AccountServiceImpl implements AccountService {
     private static final String ACCOUNT_NOT_FOUND_WITH_ID = ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: ";
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
+    private final HotAccounts hotAccounts;
+    private final AccountCache accountCache;
+    private final TransactionArchive transactionArchive;
+    private final ObjectProvider<InMemoryLedger> inMemoryLedger;
 
     @Autowired
-    public AccountServiceImpl(AccountRepository accountRepository, TransactionRepository transactionRepository) {
+    public AccountServiceImpl(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                              HotAccounts hotAccounts, AccountCache accountCache, TransactionArchive transactionArchive,
+                              ObjectProvider<InMemoryLedger> inMemoryLedger) {
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
+        this.hotAccounts = hotAccounts;
+        this.accountCache = accountCache;
+        this.transactionArchive = transactionArchive;
+        this.inMemoryLedger = inMemoryLedger;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Account> getAccounts() {
         List<Account> accounts = new ArrayList<>();
-        accountRepository.findAll().forEach(accounts::add);
+        accountRepository.findAll().forEach(account -> accounts.add(hotAccounts.withTotalBalance(account)));
         logger.info("Retrieved all accounts. Count: {}", accounts.size());
         return accounts;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public PageDTO<Account> getAccounts(String cursor, Integer limit) throws InvalidParametersException {
+        logger.debug("Retrieving accounts page after cursor: {}, limit: {}", cursor, limit);
+        Pageable pageable = CursorPagination.pageable(limit);
+        List<Account> accounts = accountRepository.findByIdGreaterThanOrderByIdAsc(CursorPagination.afterId(cursor), pageable).stream()
+                .map(hotAccounts::withTotalBalance)
+                .toList();
+        return CursorPagination.page(accounts, pageable, Account::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Account getAccountById(Long id) throws AccountNotFoundException {
         logger.debug("Retrieving account with ID: {}", id);
-        return accountRepository.findById(id)
+        return accountCache.get(id, key -> accountRepository.findById(key).map(hotAccounts::withTotalBalance))
                 .orElseThrow(() -> {
                     String errorMessage = ACCOUNT_NOT_FOUND_WITH_ID + id;
                     logger.error(errorMessage);
@@ -55,9 +83,44 @@ public class AccountServiceImpl implements AccountService {
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public Account createAccount(AccountDTO dto) throws FinancialTransactionServiceException {
         logger.debug("Creating account with DTO: {}", dto);
+        Account account = accountRepository.save(newAccount(dto));
+        logger.info("Account created: {}", account);
+        return account;
+    }
+
+    @Override
+    @Transactional
+    public List<Account> createAccounts(List<AccountDTO> dtos) throws FinancialTransactionServiceException {
+        logger.debug("Creating batch of accounts. Count: {}", dtos == null ? 0 : dtos.size());
+
+        // Missing params
+        if (dtos == null) {
+            String errorMessage = ExceptionMessage.MISSING_PARAMETER;
+            logger.error(errorMessage);
+            throw new MissingParameterException(errorMessage);
+        }
+
+        // Too many accounts
+        if (dtos.size() > BatchTransferProcessor.MAX_BATCH_SIZE) {
+            String errorMessage = ExceptionMessage.BATCH_TOO_LARGE + dtos.size() + " > " + BatchTransferProcessor.MAX_BATCH_SIZE;
+            logger.error(errorMessage);
+            throw new InvalidParametersException(errorMessage);
+        }
 
+        List<Account> accounts = new ArrayList<>(dtos.size());
+        for (AccountDTO dto : dtos) {
+            accounts.add(newAccount(dto));
+        }
+        // The IDs come from the sequence in blocks, so the inserts are sent in JDBC batches
+        List<Account> created = new ArrayList<>(dtos.size());
+        accountRepository.saveAll(accounts).forEach(created::add);
+        logger.info("Batch of accounts created. Count: {}", created.size());
+        return created;
+    }
+
+    static Account newAccount(AccountDTO dto) throws FinancialTransactionServiceException {
         // Missing params
-        if (dto.getCurrency() == null) {
+        if (dto == null || dto.getCurrency() == null) {
             String errorMessage = "Currency is null";
             logger.error(errorMessage);
             throw new MissingParameterException(ExceptionMessage.MISSING_PARAMETER);
@@ -72,17 +135,18 @@ public class AccountServiceImpl implements AccountService {
 
         Account account = new Account();
         account.setCurrency(dto.getCurrency());
-        account.setBalance(Optional.ofNullable(dto.getBalance()).orElse(0.0));
+        account.setBalance(Optional.ofNullable(dto.getBalance()).orElse(0L));
         account.setCreatedAt(new Timestamp(System.currentTimeMillis()));
-        account = accountRepository.save(account);
-        logger.info("Account created: {}", account);
         return account;
     }
 
     @Override
+    @Transactional
     public Account updateAccount(Account account) throws FinancialTransactionServiceException {
         logger.debug("Updating account: {}", account);
 
+        checkAccountsChangeable();
+
         // Invalid params
         if (account.getId() == null || account.getCurrency() == null || account.getBalance() == null) {
             String errorMessage = ExceptionMessage.INVALID_PARAMETERS;
@@ -106,25 +170,99 @@ public class AccountServiceImpl implements AccountService {
         }
 
         dbAccount.setCurrency(account.getCurrency());
-        dbAccount.setBalance(account.getBalance());
-        dbAccount = accountRepository.save(dbAccount);
+        if (HotAccounts.isHot(dbAccount)) {
+            hotAccounts.setBalance(dbAccount, account.getBalance());
+        } else {
+            dbAccount.setBalance(account.getBalance());
+        }
+        dbAccount = hotAccounts.withTotalBalance(accountRepository.save(dbAccount));
+        accountCache.putAfterCommit(dbAccount);
         logger.info("Account updated: {}", dbAccount);
         return dbAccount;
     }
 
     @Override
-    public boolean deleteAccount(Long id) throws AccountNotFoundException {
-        logger.debug("Deleting account with ID: {}", id);
+    @Transactional
+    public Account stripeAccount(Long id, Integer slotCount) throws FinancialTransactionServiceException {
+        logger.debug("Splitting balance of account with ID: {} across {} slots", id, slotCount);
+
+        checkStripeParameters(id, slotCount);
 
         // Account not found
-        if (accountRepository.findById(id).isEmpty()) {
-            String errorMessage = ACCOUNT_NOT_FOUND_WITH_ID + id;
+        Account account = accountRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> {
+                    String errorMessage = ACCOUNT_NOT_FOUND_WITH_ID + id;
+                    logger.error(errorMessage);
+                    return new AccountNotFoundException(errorMessage);
+                });
+
+        checkNotHot(account);
+
+        hotAccounts.stripe(account, slotCount);
+        account = hotAccounts.withTotalBalance(accountRepository.save(account));
+        accountCache.putAfterCommit(account);
+        logger.info("Account balance split across slots: {}", account);
+        return account;
+    }
+
+    static void checkStripeParameters(Long id, Integer slotCount) throws FinancialTransactionServiceException {
+        // Missing params
+        if (id == null || slotCount == null) {
+            String errorMessage = ExceptionMessage.MISSING_PARAMETER;
             logger.error(errorMessage);
-            throw new AccountNotFoundException(errorMessage);
+            throw new MissingParameterException(errorMessage);
         }
 
+        // Invalid slot count
+        if (slotCount < 2 || slotCount > HotAccounts.MAX_SLOT_COUNT) {
+            String errorMessage = ExceptionMessage.INVALID_SLOT_COUNT + slotCount;
+            logger.error(errorMessage);
+            throw new InvalidParametersException(errorMessage);
+        }
+    }
+
+    /**
+     * The in-memory ledger validates transfers against the balances it loaded, so it must be the only writer of them.
+     * Splitting a balance across slots keeps the total the ledger holds, so accounts can still be made hot.
+     */
+    private void checkAccountsChangeable() throws InvalidParametersException {
+        // In-memory engine
+        if (inMemoryLedger.getIfAvailable() != null) {
+            String errorMessage = ExceptionMessage.ACCOUNT_CHANGES_NOT_ALLOWED;
+            logger.error(errorMessage);
+            throw new InvalidParametersException(errorMessage);
+        }
+    }
+
+    static void checkNotHot(Account account) throws InvalidParametersException {
+        // Already hot
+        if (HotAccounts.isHot(account)) {
+            String errorMessage = ExceptionMessage.ACCOUNT_ALREADY_HOT + account.getId();
+            logger.error(errorMessage);
+            throw new InvalidParametersException(errorMessage);
+        }
+    }
+
+    @Override
+    public boolean deleteAccount(Long id) throws AccountNotFoundException, InvalidParametersException {
+        logger.debug("Deleting account with ID: {}", id);
+
+        checkAccountsChangeable();
+
+        // Account not found
+        Account account = accountRepository.findById(id)
+                .orElseThrow(() -> {
+                    String errorMessage = ACCOUNT_NOT_FOUND_WITH_ID + id;
+                    logger.error(errorMessage);
+                    return new AccountNotFoundException(errorMessage);
+                });
+
         try {
+            if (HotAccounts.isHot(account)) {
+                hotAccounts.delete(account);
+            }
             accountRepository.deleteById(id);
+            accountCache.evictAfterCommit(List.of(id));
             logger.info("Account deleted: {}", id);
             return true;
         } catch (Exception e) {
@@ -134,32 +272,35 @@ public class AccountServiceImpl implements AccountService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Transaction> getAllTransactions(Long accountId) {
         logger.debug("Retrieving all transactions for account with ID: {}", accountId);
-        List<Transaction> transactions = new ArrayList<>();
-        transactionRepository.findAll().forEach(transactions::add);
-        return transactions.stream()
-                .filter(transaction -> transaction.getSourceAccountId().equals(accountId) || transaction.getTargetAccountId().equals(accountId))
-                .toList();
+        return transactionArchive.withArchived(transactionRepository.findBySourceAccountIdOrTargetAccountIdOrderByIdAsc(accountId, accountId),
+                accountId, Direction.ANY, TimeRange.ALL);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Transaction> getAllTransactions(Long accountId, Instant from, Instant to) throws InvalidParametersException {
+        logger.debug("Retrieving transactions for account with ID: {}, created from {} to {}", accountId, from, to);
+        TimeRange range = TimeRange.of(from, to);
+        return transactionArchive.withArchived(transactionRepository.findByAccountIdCreatedBetween(accountId, range.from(), range.to()),
+                accountId, Direction.ANY, range);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Transaction> getIncomingTransactions(Long accountId) {
         logger.debug("Retrieving incoming transactions for account with ID: {}", accountId);
-        List<Transaction> transactions = new ArrayList<>();
-        transactionRepository.findAll().forEach(transactions::add);
-        return transactions.stream()
-                .filter(transaction -> transaction.getTargetAccountId().equals(accountId))
-                .toList();
+        return transactionArchive.withArchived(transactionRepository.findByTargetAccountIdOrderByIdAsc(accountId),
+                accountId, Direction.INCOMING, TimeRange.ALL);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Transaction> getOutgoingTransactions(Long accountId) {
         logger.debug("Retrieving outgoing transactions for account with ID: {}", accountId);
-        List<Transaction> transactions = new ArrayList<>();
-        transactionRepository.findAll().forEach(transactions::add);
-        return transactions.stream()
-                .filter(transaction -> transaction.getSourceAccountId().equals(accountId))
-                .toList();
+        return transactionArchive.withArchived(transactionRepository.findBySourceAccountIdOrderByIdAsc(accountId),
+                accountId, Direction.OUTGOING, TimeRange.ALL);
     }
 }
@@ -0,0 +1,147 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.AdmissionProperties;
+import com.anastasiakassari.financialtransactionservice.exception.ExceptionMessage;
+import com.anastasiakassari.financialtransactionservice.exception.FinancialTransactionServiceException;
+import com.anastasiakassari.financialtransactionservice.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * AdmissionLimiter bounds the number of transfers in flight with an additive-increase, multiplicative-decrease limit,
+ * so that under overload the excess requests are rejected at once instead of queueing for database connections and
+ * retries. A transfer that completes within the latency threshold raises the limit by one, as long as the limit is
+ * actually in use. A slower one, or one failing with an error other than a rejected transfer, lowers it by the backoff
+ * ratio, unless it started before the last decrease: a spike slows every transfer in flight, and lowers the limit once.
+ * <p>
+ * Enabled with {@code fts.admission.enabled=true}. The limit is reported in {@code fts.admission.limit}, the
+ * transfers in flight in {@code fts.admission.in.flight} and the rejected ones in {@code fts.admission.rejected}.
+ */
+@Component
+public class AdmissionLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionLimiter.class);
+
+    private final AdmissionProperties properties;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+    private final Counter rejectedCounter;
+
+    public AdmissionLimiter(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limit = new AtomicInteger(Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), properties.getInitialLimit())));
+        Gauge.builder("fts.admission.limit", limit, AtomicInteger::get)
+                .description("Transfers allowed in flight")
+                .register(meterRegistry);
+        Gauge.builder("fts.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Transfers in flight")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("fts.admission.rejected")
+                .description("Transfers rejected because the limit was reached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the transfer if the limit allows it.
+     *
+     * @throws TooManyRequestsException If the limit is reached.
+     */
+    public <T> T execute(Supplier<T> transfer) throws FinancialTransactionServiceException {
+        if (!properties.isEnabled()) {
+            return transfer.get();
+        }
+        long start = acquire();
+        boolean dropped = true;
+        try {
+            T result = transfer.get();
+            dropped = false;
+            return result;
+        } catch (FinancialTransactionServiceException e) {
+            // A rejected transfer says nothing about the load
+            dropped = false;
+            throw e;
+        } finally {
+            release(start, dropped);
+        }
+    }
+
+    /**
+     * Subscribes to the transfer if the limit allows it, holding its place until the transfer completes or is cancelled.
+     */
+    public <T> Mono<T> executeMono(Mono<T> transfer) {
+        if (!properties.isEnabled()) {
+            return transfer;
+        }
+        return Mono.defer(() -> {
+            long start = acquire();
+            boolean[] invalid = new boolean[1];
+            return transfer
+                    .doOnError(FinancialTransactionServiceException.class, e -> invalid[0] = true)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            // The client went away, which says nothing about the latency
+                            inFlight.decrementAndGet();
+                        } else {
+                            release(start, signal == SignalType.ON_ERROR && !invalid[0]);
+                        }
+                    });
+        });
+    }
+
+    int getLimit() {
+        return limit.get();
+    }
+
+    /**
+     * Takes a place for a transfer.
+     *
+     * @return The time the transfer started at.
+     * @throws TooManyRequestsException If the limit is reached.
+     */
+    long acquire() throws TooManyRequestsException {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                rejectedCounter.increment();
+                String errorMessage = ExceptionMessage.TOO_MANY_REQUESTS + ": " + current + " transfers in flight";
+                logger.error(errorMessage);
+                throw new TooManyRequestsException(ExceptionMessage.TOO_MANY_REQUESTS, properties.getRetryAfter());
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Frees the place of a transfer, adjusting the limit to its latency.
+     *
+     * @param start   The time the transfer started at.
+     * @param dropped Whether the transfer failed with an error other than a rejected transfer.
+     */
+    void release(long start, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        long latency = System.nanoTime() - start;
+        if (dropped || latency > properties.getLatencyThreshold().toNanos()) {
+            // Transfers that started before the last decrease were slowed by what caused it, so they are not counted again
+            long decreased = lastDecrease.get();
+            if (start - decreased >= 0 && lastDecrease.compareAndSet(decreased, System.nanoTime())) {
+                limit.updateAndGet(l -> Math.max(properties.getMinLimit(), (int) (l * properties.getBackoffRatio())));
+            }
+        } else if (current * 2 >= limit.get()) {
+            // Only grow a limit that is being used, so that it does not run away while the load is low
+            limit.updateAndGet(l -> Math.min(properties.getMaxLimit(), l + 1));
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * ArchiveSegment is a compressed file holding the transactions of one month, ordered by ID, written by the
+ * {@link TransactionArchive} when the month is moved out of the database.
+ * <p>
+ * The transactions are stored in blocks of consecutive rows. A block holds its rows column by column, with the IDs and
+ * creation times delta encoded and every number written in as few bytes as it needs, and is compressed with Deflate on
+ * its own, so that a lookup only inflates the one block it needs. The footer holds a sparse index with the first and
+ * last ID and the time range of every block, and a Bloom filter of the accounts of the segment, so that a history query
+ * skips the segments the account has no transactions in and the blocks outside its time range.
+ * <p>
+ * The footer is read once, when the segment is opened, and the blocks are read on demand. A segment is written to a
+ * temporary file and moved into place once complete, so that a segment file is never partial.
+ */
+final class ArchiveSegment implements Closeable {
+
+    enum Direction {
+        INCOMING, OUTGOING, ANY
+    }
+
+    static final String SUFFIX = ".segment";
+    static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x46545341;
+    private static final byte VERSION = 1;
+    private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int BLOOM_BITS_PER_ACCOUNT = 10;
+    private static final int BLOOM_HASHES = 7;
+
+    private record Block(long firstId, long lastId, long minCreatedAt, long maxCreatedAt, long offset, int length, int rowCount) {
+    }
+
+    /**
+     * The rows of a block, column by column.
+     */
+    private record Rows(long[] ids, long[] sourceIds, long[] targetIds, long[] amounts, byte[] currencies, long[] createdAt) {
+
+        Transaction transaction(int row, Currency[] currencyNames) {
+            return new Transaction(ids[row], sourceIds[row], targetIds[row], amounts[row], currencyNames[currencies[row]],
+                    new Timestamp(createdAt[row]));
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final List<Block> blocks;
+    private final Currency[] currencies;
+    private final long[] accountFilter;
+
+    private ArchiveSegment(Path path, FileChannel channel, List<Block> blocks, Currency[] currencies, long[] accountFilter) {
+        this.path = path;
+        this.channel = channel;
+        this.blocks = blocks;
+        this.currencies = currencies;
+        this.accountFilter = accountFilter;
+    }
+
+    /**
+     * Opens a segment, reading its footer.
+     */
+    static ArchiveSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC || footerOffset < 0 || footerOffset > size - TRAILER_SIZE) {
+                throw new IOException("Not an archive segment: " + path);
+            }
+            DataInputStream footer = new DataInputStream(new ByteArrayInputStream(
+                    read(channel, footerOffset, (int) (size - TRAILER_SIZE - footerOffset)).array()));
+            if (footer.readByte() != VERSION) {
+                throw new IOException("Unknown archive segment version: " + path);
+            }
+            Currency[] currencies = new Currency[footer.readUnsignedByte()];
+            for (int i = 0; i < currencies.length; i++) {
+                currencies[i] = Currency.valueOf(footer.readUTF());
+            }
+            int blockCount = footer.readInt();
+            List<Block> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                blocks.add(new Block(footer.readLong(), footer.readLong(), footer.readLong(), footer.readLong(),
+                        footer.readLong(), footer.readInt(), footer.readInt()));
+            }
+            long[] accountFilter = new long[footer.readInt()];
+            for (int i = 0; i < accountFilter.length; i++) {
+                accountFilter[i] = footer.readLong();
+            }
+            return new ArchiveSegment(path, channel, blocks, currencies, accountFilter);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param path      The path of the segment, which is replaced once the writer is finished.
+     * @param blockSize The number of transactions per block.
+     */
+    static Writer writer(Path path, int blockSize) throws IOException {
+        return new Writer(path, blockSize);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    long firstId() {
+        return blocks.isEmpty() ? Long.MAX_VALUE : blocks.get(0).firstId();
+    }
+
+    long lastId() {
+        return blocks.isEmpty() ? Long.MIN_VALUE : blocks.get(blocks.size() - 1).lastId();
+    }
+
+    /**
+     * Finds the block that may hold the ID through the sparse index, and only inflates that block.
+     */
+    Transaction findById(long id) {
+        int low = 0;
+        int high = blocks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Block block = blocks.get(middle);
+            if (id < block.firstId()) {
+                high = middle - 1;
+            } else if (id > block.lastId()) {
+                low = middle + 1;
+            } else {
+                Rows rows = rows(block);
+                int row = Arrays.binarySearch(rows.ids(), id);
+                return row < 0 ? null : rows.transaction(row, currencies);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param from The start of the time range, inclusive, in epoch milliseconds.
+     * @param to   The end of the time range, exclusive, in epoch milliseconds.
+     * @return The transactions of the account in the time range, ordered by ID.
+     */
+    List<Transaction> findByAccount(long accountId, Direction direction, long from, long to) {
+        List<Transaction> transactions = new ArrayList<>();
+        if (!mightContain(accountFilter, accountId)) {
+            return transactions;
+        }
+        for (Block block : blocks) {
+            if (block.maxCreatedAt() < from || block.minCreatedAt() >= to) {
+                continue;
+            }
+            Rows rows = rows(block);
+            for (int row = 0; row < block.rowCount(); row++) {
+                boolean outgoing = rows.sourceIds()[row] == accountId;
+                boolean incoming = rows.targetIds()[row] == accountId;
+                boolean matches = switch (direction) {
+                    case INCOMING -> incoming;
+                    case OUTGOING -> outgoing;
+                    case ANY -> incoming || outgoing;
+                };
+                if (matches && rows.createdAt()[row] >= from && rows.createdAt()[row] < to) {
+                    transactions.add(rows.transaction(row, currencies));
+                }
+            }
+        }
+        return transactions;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Rows rows(Block block) {
+        try {
+            InputStream inflated = new InflaterInputStream(new ByteArrayInputStream(read(channel, block.offset(), block.length()).array()));
+            DataInputStream in = new DataInputStream(inflated);
+            int count = block.rowCount();
+            long[] ids = new long[count];
+            long[] sourceIds = new long[count];
+            long[] targetIds = new long[count];
+            long[] amounts = new long[count];
+            byte[] currencyIndexes = new byte[count];
+            long[] createdAt = new long[count];
+            long id = 0;
+            for (int row = 0; row < count; row++) {
+                id += readVarLong(in);
+                ids[row] = id;
+            }
+            for (int row = 0; row < count; row++) {
+                sourceIds[row] = readVarLong(in);
+            }
+            for (int row = 0; row < count; row++) {
+                targetIds[row] = readVarLong(in);
+            }
+            for (int row = 0; row < count; row++) {
+                amounts[row] = readVarLong(in);
+            }
+            in.readFully(currencyIndexes);
+            long time = 0;
+            for (int row = 0; row < count; row++) {
+                time += unzigzag(readVarLong(in));
+                createdAt[row] = time;
+            }
+            return new Rows(ids, sourceIds, targetIds, amounts, currencyIndexes, createdAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive segment " + path, e);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Archive segment ends before offset " + (position + length));
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Writer streams transactions, in ascending ID order, into the blocks of a new segment.
+     */
+    static final class Writer implements Closeable {
+
+        private final Path path;
+        private final Path temporaryPath;
+        private final OutputStream out;
+        private final int blockSize;
+        private final List<Block> blocks = new ArrayList<>();
+        private final Set<Long> accounts = new HashSet<>();
+        private final Currency[] currencies = Currency.values();
+        private final List<Transaction> pending;
+        private long offset;
+        private long count;
+        private boolean finished;
+
+        private Writer(Path path, int blockSize) throws IOException {
+            this.path = path;
+            this.temporaryPath = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+            this.out = new BufferedOutputStream(Files.newOutputStream(temporaryPath));
+            this.blockSize = blockSize;
+            this.pending = new ArrayList<>(blockSize);
+            writeHeader();
+        }
+
+        void append(Transaction transaction) {
+            if (!pending.isEmpty() && transaction.getId() <= pending.get(pending.size() - 1).getId()) {
+                throw new IllegalArgumentException("Transactions must be appended in ascending ID order: " + transaction.getId());
+            }
+            pending.add(transaction);
+            accounts.add(transaction.getSourceAccountId());
+            accounts.add(transaction.getTargetAccountId());
+            count++;
+            if (pending.size() == blockSize) {
+                flushBlock();
+            }
+        }
+
+        long count() {
+            return count;
+        }
+
+        /**
+         * Writes the footer, forces the segment to disk and moves it into place, forcing the directory too so that the
+         * move survives a crash.
+         *
+         * @return The segment, opened.
+         */
+        ArchiveSegment finish() throws IOException {
+            flushBlock();
+            ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+            DataOutputStream footer = new DataOutputStream(footerBytes);
+            footer.writeByte(VERSION);
+            footer.writeByte(currencies.length);
+            for (Currency currency : currencies) {
+                footer.writeUTF(currency.name());
+            }
+            footer.writeInt(blocks.size());
+            for (Block block : blocks) {
+                footer.writeLong(block.firstId());
+                footer.writeLong(block.lastId());
+                footer.writeLong(block.minCreatedAt());
+                footer.writeLong(block.maxCreatedAt());
+                footer.writeLong(block.offset());
+                footer.writeInt(block.length());
+                footer.writeInt(block.rowCount());
+            }
+            long[] accountFilter = accountFilter(accounts);
+            footer.writeInt(accountFilter.length);
+            for (long word : accountFilter) {
+                footer.writeLong(word);
+            }
+            footer.writeLong(offset);
+            footer.writeInt(MAGIC);
+            out.write(footerBytes.toByteArray());
+            out.close();
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // The partition is dropped once this returns, so the segment has to be found in the directory after a crash
+            try (FileChannel directory = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+                directory.force(true);
+            }
+            finished = true;
+            return open(path);
+        }
+
+        /**
+         * Deletes the temporary file of a segment that was not finished.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                out.close();
+                Files.deleteIfExists(temporaryPath);
+            }
+        }
+
+        private void writeHeader() throws IOException {
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            offset = Integer.BYTES + Byte.BYTES;
+        }
+
+        private void flushBlock() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (DataOutputStream block = new DataOutputStream(new DeflaterOutputStream(compressed))) {
+                    long previousId = 0;
+                    for (Transaction transaction : pending) {
+                        writeVarLong(block, transaction.getId() - previousId);
+                        previousId = transaction.getId();
+                    }
+                    for (Transaction transaction : pending) {
+                        writeVarLong(block, transaction.getSourceAccountId());
+                    }
+                    for (Transaction transaction : pending) {
+                        writeVarLong(block, transaction.getTargetAccountId());
+                    }
+                    for (Transaction transaction : pending) {
+                        writeVarLong(block, transaction.getAmount());
+                    }
+                    for (Transaction transaction : pending) {
+                        block.writeByte(transaction.getCurrency().ordinal());
+                    }
+                    long previousTime = 0;
+                    for (Transaction transaction : pending) {
+                        writeVarLong(block, zigzag(transaction.getCreatedAt().getTime() - previousTime));
+                        previousTime = transaction.getCreatedAt().getTime();
+                    }
+                }
+                byte[] bytes = compressed.toByteArray();
+                out.write(bytes);
+                long minCreatedAt = pending.stream().mapToLong(transaction -> transaction.getCreatedAt().getTime()).min().orElseThrow();
+                long maxCreatedAt = pending.stream().mapToLong(transaction -> transaction.getCreatedAt().getTime()).max().orElseThrow();
+                blocks.add(new Block(pending.get(0).getId(), pending.get(pending.size() - 1).getId(), minCreatedAt, maxCreatedAt,
+                        offset, bytes.length, pending.size()));
+                offset += bytes.length;
+                pending.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write archive segment " + temporaryPath, e);
+            }
+        }
+    }
+
+    private static long[] accountFilter(Set<Long> accounts) {
+        long[] filter = new long[Math.max(1, (accounts.size() * BLOOM_BITS_PER_ACCOUNT + Long.SIZE - 1) / Long.SIZE)];
+        long bits = (long) filter.length * Long.SIZE;
+        for (long account : accounts) {
+            long hash = mix(account);
+            long step = mix(hash) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                long bit = Math.floorMod(hash + i * step, bits);
+                filter[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+        return filter;
+    }
+
+    private static boolean mightContain(long[] filter, long account) {
+        long bits = (long) filter.length * Long.SIZE;
+        long hash = mix(account);
+        long step = mix(hash) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = Math.floorMod(hash + i * step, bits);
+            if ((filter[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The finalizer of SplitMix64, which spreads consecutive account IDs over the whole filter.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in archive segment");
+    }
+}
@@ -0,0 +1,180 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.ExceptionMessage;
+import com.anastasiakassari.financialtransactionservice.exception.FinancialTransactionServiceException;
+import com.anastasiakassari.financialtransactionservice.exception.InvalidParametersException;
+import com.anastasiakassari.financialtransactionservice.exception.MissingParameterException;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.TransferBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * BatchTransferProcessor applies a batch of transfers in chunks, one database transaction per chunk.
+ * The accounts of a chunk are locked up front in ascending ID order, the transfers are applied in request order against
+ * the locked balances, and the balance updates and transaction inserts are sent as JDBC batches.
+ * An invalid transfer fails on its own without aborting the rest of its chunk.
+ * The balance of a hot account is moved through its slots right away instead.
+ * <p>
+ * The {@link TransferCoalescer} applies the single transfers it collects the same way, as one chunk.
+ */
+@Component
+public class BatchTransferProcessor {
+
+    static final int MAX_BATCH_SIZE = 10_000;
+    static final int CHUNK_SIZE = 1_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchTransferProcessor.class);
+
+    private final TransferBatchRepository transferBatchRepository;
+    private final TransferRetryExecutor transferRetryExecutor;
+    private final HotAccounts hotAccounts;
+    private final AccountCache accountCache;
+
+    public BatchTransferProcessor(TransferBatchRepository transferBatchRepository, TransferRetryExecutor transferRetryExecutor,
+                                  HotAccounts hotAccounts, AccountCache accountCache) {
+        this.transferBatchRepository = transferBatchRepository;
+        this.transferRetryExecutor = transferRetryExecutor;
+        this.hotAccounts = hotAccounts;
+        this.accountCache = accountCache;
+    }
+
+    public List<BatchTransactionResultDTO> process(List<TransactionDTO> dtos) throws FinancialTransactionServiceException {
+        if (dtos == null) {
+            String errorMessage = ExceptionMessage.MISSING_PARAMETER;
+            logger.error(errorMessage);
+            throw new MissingParameterException(errorMessage);
+        }
+        if (dtos.size() > MAX_BATCH_SIZE) {
+            String errorMessage = ExceptionMessage.BATCH_TOO_LARGE + dtos.size() + " > " + MAX_BATCH_SIZE;
+            logger.error(errorMessage);
+            throw new InvalidParametersException(errorMessage);
+        }
+
+        List<BatchTransactionResultDTO> results = new ArrayList<>(dtos.size());
+        for (int offset = 0; offset < dtos.size(); offset += CHUNK_SIZE) {
+            List<TransactionDTO> chunk = dtos.subList(offset, Math.min(offset + CHUNK_SIZE, dtos.size()));
+            results.addAll(processChunk(chunk, offset));
+        }
+        logger.info("Batch of transactions processed. Count: {}, succeeded: {}", results.size(),
+                results.stream().filter(result -> result.getTransaction() != null).count());
+        return results;
+    }
+
+    /**
+     * Applies the transfers in one database transaction.
+     *
+     * @return The outcome of each transfer, in request order.
+     * @throws org.springframework.dao.DataAccessException If the transaction failed, with none of the transfers applied.
+     */
+    List<Outcome> processTogether(List<TransactionDTO> dtos) {
+        return transferRetryExecutor.execute(() -> applyChunk(dtos));
+    }
+
+    private List<BatchTransactionResultDTO> processChunk(List<TransactionDTO> chunk, int offset) {
+        try {
+            List<Outcome> outcomes = processTogether(chunk);
+            List<BatchTransactionResultDTO> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < outcomes.size(); i++) {
+                Outcome outcome = outcomes.get(i);
+                results.add(new BatchTransactionResultDTO(offset + i, outcome.transaction(),
+                        outcome.error() == null ? null : outcome.error().getMessage()));
+            }
+            return results;
+        } catch (DataAccessException e) {
+            logger.error("Error occurred while applying transactions {} to {}: {}", offset, offset + chunk.size() - 1, e.getMessage());
+            List<BatchTransactionResultDTO> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(new BatchTransactionResultDTO(offset + i, null, ExceptionMessage.BATCH_CHUNK_FAILED));
+            }
+            return results;
+        }
+    }
+
+    private List<Outcome> applyChunk(List<TransactionDTO> chunk) {
+        Outcome[] outcomes = new Outcome[chunk.size()];
+
+        // Invalid params
+        Set<Long> accountIds = new TreeSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            TransactionDTO dto = chunk.get(i);
+            try {
+                TransferValidator.checkParameters(dto);
+                accountIds.add(dto.getSourceAccountId());
+                accountIds.add(dto.getTargetAccountId());
+            } catch (FinancialTransactionServiceException e) {
+                outcomes[i] = new Outcome(null, e);
+            }
+        }
+
+        Map<Long, Account> accounts = transferBatchRepository.lockAccounts(accountIds);
+        Map<Long, Account> updatedAccounts = new TreeMap<>();
+        List<Transaction> transactions = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (outcomes[i] != null) {
+                continue;
+            }
+            TransactionDTO dto = chunk.get(i);
+            try {
+                transactions.add(apply(dto, accounts, updatedAccounts));
+                positions.add(i);
+            } catch (FinancialTransactionServiceException e) {
+                outcomes[i] = new Outcome(null, e);
+            }
+        }
+
+        transferBatchRepository.updateBalances(updatedAccounts.values());
+        transferBatchRepository.insertTransactions(transactions);
+        accountCache.evictAfterCommit(accounts.keySet());
+        for (int k = 0; k < transactions.size(); k++) {
+            outcomes[positions.get(k)] = new Outcome(transactions.get(k), null);
+        }
+        return Arrays.asList(outcomes);
+    }
+
+    private Transaction apply(TransactionDTO dto, Map<Long, Account> accounts, Map<Long, Account> updatedAccounts) throws FinancialTransactionServiceException {
+        long sourceId = dto.getSourceAccountId();
+        long targetId = dto.getTargetAccountId();
+        long amount = dto.getAmount();
+
+        // Account(s) not found
+        Account sourceAccount = Optional.ofNullable(accounts.get(sourceId)).orElseThrow(() -> TransferValidator.accountNotFound(sourceId));
+        Account targetAccount = Optional.ofNullable(accounts.get(targetId)).orElseThrow(() -> TransferValidator.accountNotFound(targetId));
+
+        TransferValidator.checkDistinctAccounts(sourceId, targetId);
+        TransferValidator.checkAmount(amount);
+        TransferValidator.checkCurrency(sourceAccount, targetAccount, dto.getCurrency());
+        // Checked before the debit, which a hot account applies right away
+        if (!HotAccounts.isHot(targetAccount)) {
+            TransferValidator.checkCredit(targetAccount.getBalance(), amount);
+        }
+        if (HotAccounts.isHot(sourceAccount)) {
+            hotAccounts.debit(sourceAccount, amount);
+        } else {
+            TransferValidator.checkBalance(sourceAccount.getBalance(), amount);
+            sourceAccount.setBalance(sourceAccount.getBalance() - amount);
+            updatedAccounts.put(sourceId, sourceAccount);
+        }
+        if (HotAccounts.isHot(targetAccount)) {
+            hotAccounts.credit(targetAccount, amount);
+        } else {
+            targetAccount.setBalance(targetAccount.getBalance() + amount);
+            updatedAccounts.put(targetId, targetAccount);
+        }
+        return new Transaction(null, sourceId, targetId, amount, dto.getCurrency());
+    }
+
+    /**
+     * The outcome of a single transfer: either the created transaction or the reason the transfer was rejected.
+     */
+    record Outcome(Transaction transaction, FinancialTransactionServiceException error) {
+    }
+}
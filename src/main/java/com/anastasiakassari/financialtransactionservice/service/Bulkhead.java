@@ -0,0 +1,117 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.BulkheadProperties;
+import com.anastasiakassari.financialtransactionservice.exception.ExceptionMessage;
+import com.anastasiakassari.financialtransactionservice.exception.TooManyRequestsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkhead bounds the requests of one partition, read or write, that run at once and that wait for their turn, so that
+ * a burst in one partition cannot take the threads and connections of the other. The partition of the request running
+ * on the current thread selects the connection pool its statements use.
+ */
+public class Bulkhead {
+
+    public enum Partition {
+        READ, WRITE
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(Bulkhead.class);
+
+    private static final ThreadLocal<Partition> currentPartition = new ThreadLocal<>();
+
+    private final Partition partition;
+    private final BulkheadProperties.Partition properties;
+    private final Duration retryAfter;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public Bulkhead(Partition partition, BulkheadProperties.Partition properties, Duration retryAfter) {
+        this.partition = partition;
+        this.properties = properties;
+        this.retryAfter = retryAfter;
+        this.permits = new Semaphore(properties.getMaxConcurrent(), true);
+    }
+
+    /**
+     * @return The partition of the request on the current thread. Threads outside a request, such as the ones completing
+     * a streamed response, are in the read partition inside read-only transactions and in the write partition otherwise.
+     */
+    public static Partition currentPartition() {
+        Partition partition = currentPartition.get();
+        if (partition != null) {
+            return partition;
+        }
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Partition.READ : Partition.WRITE;
+    }
+
+    public Partition getPartition() {
+        return partition;
+    }
+
+    /**
+     * Takes a place for a request, waiting up to the maximum wait if the partition is full, and puts the current
+     * thread in the partition.
+     *
+     * @throws TooManyRequestsException If the queue is full too, or no place was freed in time.
+     */
+    public void enter() throws TooManyRequestsException {
+        if (!permits.tryAcquire()) {
+            if (queued.incrementAndGet() > properties.getMaxQueued()) {
+                queued.decrementAndGet();
+                throw rejected("queue is full");
+            }
+            try {
+                if (!permits.tryAcquire(properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+                    throw rejected("no place was freed in " + properties.getMaxWait().toMillis() + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw rejected("interrupted while queued");
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+        currentPartition.set(partition);
+    }
+
+    /**
+     * Puts the current thread in the partition of a request that already holds its place.
+     */
+    public void attach() {
+        currentPartition.set(partition);
+    }
+
+    /**
+     * Takes the current thread out of the partition, keeping the place of its request, e.g. while the response is
+     * completed on another thread.
+     */
+    public void detach() {
+        currentPartition.remove();
+    }
+
+    /**
+     * Frees the place of a request and takes the current thread out of the partition.
+     */
+    public void exit() {
+        currentPartition.remove();
+        permits.release();
+    }
+
+    int available() {
+        return permits.availablePermits();
+    }
+
+    private TooManyRequestsException rejected(String reason) {
+        String errorMessage = ExceptionMessage.TOO_MANY_REQUESTS + ": " + partition + " partition " + reason;
+        logger.error(errorMessage);
+        return new TooManyRequestsException(ExceptionMessage.TOO_MANY_REQUESTS, retryAfter);
+    }
+}
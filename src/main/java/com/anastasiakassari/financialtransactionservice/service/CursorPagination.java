@@ -0,0 +1,67 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
+import com.anastasiakassari.financialtransactionservice.exception.ExceptionMessage;
+import com.anastasiakassari.financialtransactionservice.exception.InvalidParametersException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * CursorPagination holds the keyset pagination rules shared by the listing endpoints.
+ * Pages are fetched with {@code id > :lastSeen ORDER BY id LIMIT n}, so the cost of a page does not depend on its depth.
+ */
+final class CursorPagination {
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
+    private CursorPagination() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Decodes the ID of the last seen row from a cursor, starting from the beginning when there is no cursor.
+     */
+    static long afterId(String cursor) throws InvalidParametersException {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParametersException(ExceptionMessage.INVALID_CURSOR + cursor);
+        }
+    }
+
+    /**
+     * Resolves the requested page size, capped at {@link #MAX_PAGE_SIZE}.
+     * One extra row is fetched to find out whether a next page exists.
+     */
+    static Pageable pageable(Integer limit) throws InvalidParametersException {
+        if (limit != null && limit <= 0) {
+            throw new InvalidParametersException(ExceptionMessage.INVALID_PAGE_SIZE + limit);
+        }
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        return PageRequest.ofSize(size + 1);
+    }
+
+    /**
+     * Builds the page out of the fetched rows, trimming the extra row and encoding the cursor of the next page.
+     */
+    static <T> PageDTO<T> page(List<T> rows, Pageable pageable, ToLongFunction<T> id) {
+        int size = pageable.getPageSize() - 1;
+        if (rows.size() <= size) {
+            return new PageDTO<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        long lastId = id.applyAsLong(items.get(size - 1));
+        String nextCursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+        return new PageDTO<>(List.copyOf(items), nextCursor);
+    }
+}
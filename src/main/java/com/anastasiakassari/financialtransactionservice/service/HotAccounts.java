@@ -0,0 +1,195 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.exception.InsufficientBalanceException;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.AccountSlotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * HotAccounts moves money to and from hot accounts, whose balance is split across slot rows instead of being held by the
+ * account row. A credit goes to a random free slot and a debit comes from any free slot that covers it, so concurrent
+ * transfers involving the same hot account mostly update different rows. The account row itself is only share-locked.
+ * <p>
+ * The IDs of the hot accounts seen so far are remembered, so that their rows are share-locked from the start. An account
+ * striped by another instance is found out when its row is first locked, and is handled correctly from then on.
+ */
+@Component
+public class HotAccounts {
+
+    static final int MAX_SLOT_COUNT = 64;
+
+    private static final Logger logger = LoggerFactory.getLogger(HotAccounts.class);
+
+    private final AccountRepository accountRepository;
+    private final AccountSlotRepository accountSlotRepository;
+    private final Set<Long> hotAccountIds = ConcurrentHashMap.newKeySet();
+
+    public HotAccounts(AccountRepository accountRepository, AccountSlotRepository accountSlotRepository) {
+        this.accountRepository = accountRepository;
+        this.accountSlotRepository = accountSlotRepository;
+    }
+
+    static boolean isHot(Account account) {
+        return account.getSlotCount() != null && account.getSlotCount() > 0;
+    }
+
+    boolean isKnownHot(long accountId) {
+        return hotAccountIds.contains(accountId);
+    }
+
+    /**
+     * Locks an account for a transfer. Hot accounts are share-locked, other accounts are locked for update.
+     * Must be called inside a transaction.
+     */
+    Optional<Account> lockForTransfer(long accountId) {
+        if (isKnownHot(accountId)) {
+            return accountRepository.findByIdForShare(accountId);
+        }
+        Optional<Account> account = accountRepository.findByIdForUpdate(accountId);
+        account.filter(HotAccounts::isHot).ifPresent(hotAccount -> hotAccountIds.add(hotAccount.getId()));
+        return account;
+    }
+
+    /**
+     * Adds the amount to a random slot of a hot account that no other transaction holds, so that a transfer between two
+     * hot accounts never waits for a slot while holding one, which could deadlock with a transfer the other way. Only if
+     * every slot is held, it waits for a random one. Must be called inside a transaction.
+     */
+    void credit(Account account, long amount) {
+        if (accountSlotRepository.creditAnySlot(account.getId(), amount)) {
+            return;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(account.getSlotCount());
+        accountSlotRepository.credit(account.getId(), slot, amount);
+    }
+
+    /**
+     * Takes the amount from a slot of a hot account that covers it. If no free slot covers it on its own, all slots are
+     * locked and the amount is taken from as many slots as needed. Must be called inside a transaction.
+     *
+     * @throws InsufficientBalanceException If the slots together do not cover the amount.
+     */
+    void debit(Account account, long amount) throws InsufficientBalanceException {
+        if (accountSlotRepository.debitAnySlot(account.getId(), amount)) {
+            return;
+        }
+
+        Map<Integer, Long> drained = drain(accountSlotRepository.lockSlots(account.getId()), amount);
+        accountSlotRepository.updateSlots(account.getId(), drained);
+        logger.debug("Debited account {} across slots {}", account.getId(), drained.keySet());
+    }
+
+    /**
+     * Adds a balance change to the slots of a hot account: a positive change is credited, a negative one debited.
+     * Must be called inside a transaction.
+     *
+     * @throws InsufficientBalanceException If the slots together do not cover a negative change.
+     */
+    void addToSlots(Account account, long change) throws InsufficientBalanceException {
+        if (change > 0) {
+            credit(account, change);
+        } else if (change < 0) {
+            debit(account, -change);
+        }
+    }
+
+    /**
+     * Takes the amount from as many of the locked slots as needed, in slot order.
+     *
+     * @param slots  The balances by slot.
+     * @param amount The amount to take.
+     * @return The new balances of the slots the amount was taken from.
+     * @throws InsufficientBalanceException If the slots together do not cover the amount.
+     */
+    static Map<Integer, Long> drain(Map<Integer, Long> slots, long amount) throws InsufficientBalanceException {
+        long balance = slots.values().stream().mapToLong(Long::longValue).sum();
+        TransferValidator.checkBalance(balance, amount);
+
+        Map<Integer, Long> drained = new TreeMap<>();
+        long remaining = amount;
+        for (Map.Entry<Integer, Long> slot : slots.entrySet()) {
+            if (remaining == 0) {
+                break;
+            }
+            long taken = Math.min(slot.getValue(), remaining);
+            drained.put(slot.getKey(), slot.getValue() - taken);
+            remaining -= taken;
+        }
+        return drained;
+    }
+
+    /**
+     * Returns the account with its whole balance, including the balance of its slots if it is hot.
+     * The returned account is a copy, so that the slot balances never end up in the account row.
+     */
+    Account withTotalBalance(Account account) {
+        if (!isHot(account)) {
+            return account;
+        }
+        return Account.builder()
+                .id(account.getId())
+                .balance(account.getBalance() + accountSlotRepository.sumBalances(account.getId()))
+                .currency(account.getCurrency())
+                .createdAt(account.getCreatedAt())
+                .slotCount(account.getSlotCount())
+                .build();
+    }
+
+    /**
+     * Splits the balance of a locked account evenly across the specified number of slots.
+     * Must be called inside a transaction. The account is remembered as hot once the transaction commits.
+     */
+    void stripe(Account account, int slotCount) {
+        accountSlotRepository.createSlots(account.getId(), slotBalances(account.getBalance(), slotCount));
+        account.setBalance(0L);
+        account.setSlotCount(slotCount);
+
+        long accountId = account.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                hotAccountIds.add(accountId);
+            }
+        });
+    }
+
+    /**
+     * Splits a balance evenly across the specified number of slots, the remainder going to the first slot.
+     */
+    static List<Long> slotBalances(long balance, int slotCount) {
+        List<Long> balances = new ArrayList<>(slotCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            balances.add(balance / slotCount + (slot == 0 ? balance % slotCount : 0));
+        }
+        return balances;
+    }
+
+    /**
+     * Sets the balance of a hot account, putting all of it in the first slot. Must be called inside a transaction.
+     */
+    void setBalance(Account account, long balance) {
+        Map<Integer, Long> slots = accountSlotRepository.lockSlots(account.getId());
+        slots.replaceAll((slot, slotBalance) -> slot == 0 ? balance : 0L);
+        accountSlotRepository.updateSlots(account.getId(), slots);
+        account.setBalance(0L);
+    }
+
+    void delete(Account account) {
+        accountSlotRepository.deleteSlots(account.getId());
+        hotAccountIds.remove(account.getId());
+    }
+}
@@ -0,0 +1,249 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.IdempotencyProperties;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.ExceptionMessage;
+import com.anastasiakassari.financialtransactionservice.exception.FinancialTransactionServiceException;
+import com.anastasiakassari.financialtransactionservice.exception.IdempotencyKeyReusedException;
+import com.anastasiakassari.financialtransactionservice.exception.InvalidParametersException;
+import com.anastasiakassari.financialtransactionservice.exception.TransactionNotFoundException;
+import com.anastasiakassari.financialtransactionservice.model.IdempotencyKey;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.IdempotencyKeyRepository;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * IdempotencyStore remembers the transaction created for each idempotency key, so that a retried request gets the
+ * transaction back without transferring again and without touching the account rows. The keys are stored in the
+ * database, in the same database transaction as the transfer, and the recently used ones in memory too.
+ * A key expires after the time to live, counted from when it was stored, after which it can be used again.
+ * <p>
+ * Concurrent requests with the same key on this instance wait for the first one and get its outcome. On different
+ * instances, the second insert of the key waits for the first one to commit and then fails, rolling its transfer back.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionRepository transactionRepository;
+    private final IdempotencyProperties properties;
+    private final Cache<String, StoredKey> recentKeys;
+    private final ConcurrentMap<String, RunningRequest> runningRequests = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository, TransactionRepository transactionRepository,
+                            IdempotencyProperties properties) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionRepository = transactionRepository;
+        this.properties = properties;
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new StoredKeyExpiry())
+                .build();
+    }
+
+    /**
+     * Returns the transaction stored for the key, or runs the transfer if there is none. The transfer is expected to
+     * {@link #save} the key once it succeeds, or to have it stored along with its transaction.
+     *
+     * @throws IdempotencyKeyReusedException If the key was used for a request with different parameters.
+     */
+    Transaction execute(String key, TransactionDTO dto, Supplier<Transaction> transfer) throws FinancialTransactionServiceException {
+        checkKey(key);
+
+        String request = request(dto);
+        Optional<Transaction> stored = find(key, request);
+        if (stored.isPresent()) {
+            logger.info("Replaying transaction {} for idempotency key {}", stored.get().getId(), key);
+            return stored.get();
+        }
+
+        RunningRequest running = new RunningRequest(request, new CompletableFuture<>());
+        RunningRequest first = runningRequests.putIfAbsent(key, running);
+        if (first != null) {
+            checkRequest(key, first.request(), request);
+            logger.debug("Waiting for the running request with idempotency key {}", key);
+            return TransactionServiceImpl.await(first.result());
+        }
+        try {
+            // The first request may have finished between the lookup and registering this one
+            Transaction transaction = find(key, request).orElseGet(transfer);
+            running.result().complete(transaction);
+            return transaction;
+        } catch (RuntimeException e) {
+            running.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            runningRequests.remove(key, running);
+        }
+    }
+
+    /**
+     * Stores the key with its transaction, inside the current database transaction if there is one.
+     *
+     * @throws DuplicateKeyException If the key was stored by another request in the meantime.
+     */
+    void save(String key, TransactionDTO dto, Transaction transaction) {
+        long now = System.currentTimeMillis();
+        if (!insert(key, request(dto), transaction, now)) {
+            throw new DuplicateKeyException("Idempotency key is already stored: " + key);
+        }
+
+        StoredKey storedKey = new StoredKey(request(dto), transaction, now);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentKeys.put(key, storedKey);
+                }
+            });
+        } else {
+            recentKeys.put(key, storedKey);
+        }
+    }
+
+    /**
+     * Stores the key with the transaction of a transfer written by someone else, inside the current database
+     * transaction. The key is remembered in memory separately, with {@link #remember}.
+     *
+     * @return Whether the key was stored. False if an unexpired key with the same value exists.
+     */
+    boolean insert(String key, Transaction transaction) {
+        return insert(key, request(transaction), transaction, System.currentTimeMillis());
+    }
+
+    private boolean insert(String key, String request, Transaction transaction, long now) {
+        IdempotencyKey idempotencyKey = new IdempotencyKey(key, request, transaction.getId(), new Timestamp(now));
+        return idempotencyKeyRepository.insert(idempotencyKey, new Timestamp(now - properties.getTimeToLive().toMillis()));
+    }
+
+    /**
+     * Remembers the key with its transaction in memory, for a key that is stored with the transfer by someone else.
+     */
+    void remember(String key, Transaction transaction) {
+        recentKeys.put(key, new StoredKey(request(transaction), transaction, System.currentTimeMillis()));
+    }
+
+    /**
+     * @return The transaction stored for the key, if the key is stored and has not expired.
+     * @throws IdempotencyKeyReusedException If the key was used for a request with different parameters.
+     * @throws TransactionNotFoundException  If the key is stored but its transaction is not.
+     */
+    Optional<Transaction> find(String key, TransactionDTO dto) throws IdempotencyKeyReusedException, TransactionNotFoundException {
+        return find(key, request(dto));
+    }
+
+    private Optional<Transaction> find(String key, String request) throws IdempotencyKeyReusedException, TransactionNotFoundException {
+        StoredKey storedKey = recentKeys.getIfPresent(key);
+        if (storedKey == null) {
+            Timestamp expiredBefore = new Timestamp(System.currentTimeMillis() - properties.getTimeToLive().toMillis());
+            Optional<IdempotencyKey> idempotencyKey = idempotencyKeyRepository.find(key)
+                    .filter(found -> !found.getCreatedAt().before(expiredBefore));
+            if (idempotencyKey.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<Transaction> transaction = transactionRepository.findById(idempotencyKey.get().getTransactionId());
+            // The key was used, so transferring again would transfer twice
+            if (transaction.isEmpty()) {
+                String errorMessage = ExceptionMessage.TRANSACTION_NOT_FOUND + " for idempotency key: " + key;
+                logger.error(errorMessage);
+                throw new TransactionNotFoundException(errorMessage);
+            }
+            storedKey = new StoredKey(idempotencyKey.get().getRequest(), transaction.get(),
+                    idempotencyKey.get().getCreatedAt().getTime());
+            recentKeys.put(key, storedKey);
+        }
+        checkRequest(key, storedKey.request(), request);
+        return Optional.of(storedKey.transaction());
+    }
+
+    static void checkKey(String key) throws InvalidParametersException {
+        // Invalid key
+        if (key.isBlank() || key.length() > IdempotencyKey.MAX_LENGTH) {
+            String errorMessage = ExceptionMessage.INVALID_IDEMPOTENCY_KEY;
+            logger.error(errorMessage);
+            throw new InvalidParametersException(errorMessage);
+        }
+    }
+
+    static void checkRequest(String key, String storedRequest, String request) throws IdempotencyKeyReusedException {
+        if (!storedRequest.equals(request)) {
+            String errorMessage = ExceptionMessage.IDEMPOTENCY_KEY_REUSED + key;
+            logger.error(errorMessage);
+            throw new IdempotencyKeyReusedException(errorMessage);
+        }
+    }
+
+    static String request(TransactionDTO dto) {
+        if (dto == null) {
+            return "";
+        }
+        return dto.getSourceAccountId() + ":" + dto.getTargetAccountId() + ":" + dto.getAmount() + ":" + dto.getCurrency();
+    }
+
+    /**
+     * @return The parameters of the request that created the transaction, as {@link #request(TransactionDTO)} has them.
+     */
+    static String request(Transaction transaction) {
+        return transaction.getSourceAccountId() + ":" + transaction.getTargetAccountId() + ":" + transaction.getAmount()
+                + ":" + transaction.getCurrency();
+    }
+
+    @Scheduled(fixedDelayString = "${fts.idempotency.cleanup-interval:PT10M}")
+    public void deleteExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(
+                new Timestamp(System.currentTimeMillis() - properties.getTimeToLive().toMillis()));
+        logger.debug("Deleted {} expired idempotency keys", deleted);
+    }
+
+    /**
+     * @param createdAt The time the key was stored at, in milliseconds since the epoch.
+     */
+    private record StoredKey(String request, Transaction transaction, long createdAt) {
+    }
+
+    /**
+     * Expires a key in memory when it expires in the database, so that a key loaded from the database shortly before
+     * it expires is not replayed for another time to live.
+     */
+    private class StoredKeyExpiry implements Expiry<String, StoredKey> {
+
+        @Override
+        public long expireAfterCreate(String key, StoredKey storedKey, long currentTime) {
+            long age = System.currentTimeMillis() - storedKey.createdAt();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, properties.getTimeToLive().toMillis() - age));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, StoredKey storedKey, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, storedKey, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, StoredKey storedKey, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private record RunningRequest(String request, CompletableFuture<Transaction> result) {
+    }
+}
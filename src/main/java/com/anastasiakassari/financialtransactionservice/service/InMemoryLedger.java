@@ -0,0 +1,711 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.LedgerProperties;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.TransferBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * InMemoryLedger applies transfers to account balances held in memory, on a single sequencer thread. Transfers reach
+ * the sequencer through a lock-free ring buffer and are applied one at a time in arrival order, so no locking is
+ * needed. An account is loaded from the database the first time a transfer touches it, by a loader thread so that the
+ * sequencer never waits for the database: the transfer goes back through the ring buffer once its accounts are loaded,
+ * and is applied after the transfers that arrived in the meantime.
+ * <p>
+ * A writer thread writes the applied transfers to the database behind the sequencer, as many as are waiting in one
+ * database transaction: it inserts the transactions with their idempotency keys and adds the balance changes to the
+ * accounts, so the database lags behind the ledger. While the engine runs it must be the only writer of the balances of
+ * the accounts it has loaded, so the accounts cannot be changed or deleted through the {@link AccountService}. A batch
+ * the database rejects for any reason but a transient one, or a journal that cannot be synced, stops the ledger, which
+ * then rejects every transfer and reports itself down until the application is restarted.
+ * <p>
+ * With the {@link TransferJournal} enabled, the applied transfers are journaled and synced to disk once per batch
+ * before they are acknowledged, and the transfers the database is missing are replayed from the journal on startup.
+ * Without it, a transfer is acknowledged once applied in memory and the transfers not written yet are lost if the
+ * process dies. The balance changes of a hot account are written through its slots, as on every other path, so that its
+ * row keeps holding nothing and the slots alone cover its debits once another engine takes over.
+ */
+@Component
+@ConditionalOnProperty(name = "fts.transaction.engine", havingValue = "in-memory")
+public class InMemoryLedger implements SmartLifecycle, HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryLedger.class);
+
+    private static final int ID_BLOCKS_PER_FETCH = 100;
+    private static final int WRITE_QUEUE_CAPACITY = 64;
+    private static final int IDLE_SPINS = 1_000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_RING_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AccountRepository accountRepository;
+    private final TransferBatchRepository transferBatchRepository;
+    private final HotAccounts hotAccounts;
+    private final TransferRetryExecutor transferRetryExecutor;
+    private final AccountCache accountCache;
+    private final IdempotencyStore idempotencyStore;
+    private final LedgerProperties properties;
+    private final MpscRingBuffer<Command> ring;
+    private final BlockingQueue<WriteBatch> writeQueue = new ArrayBlockingQueue<>(WRITE_QUEUE_CAPACITY);
+    private final BlockingQueue<Load> loadQueue = new LinkedBlockingQueue<>();
+
+    // Only touched by the sequencer thread
+    private final Map<Long, Account> accounts = new HashMap<>();
+    private final Deque<Long> idBlocks = new ArrayDeque<>();
+    private long nextId;
+    private long idBlockEnd;
+    private List<Transaction> pendingTransactions = new ArrayList<>();
+    private Map<Long, Long> pendingBalanceChanges = new HashMap<>();
+    private Map<String, Transaction> pendingIdempotencyKeys = new HashMap<>();
+    private List<CompletableFuture<Void>> pendingFlushes = new ArrayList<>();
+    private final List<Applied> pendingAcknowledgements = new ArrayList<>();
+    private long pendingJournalSequence;
+    private final Deque<WaitingFlush> waitingFlushes = new ArrayDeque<>();
+    private long loadsRequested;
+    private long loadsReturned;
+
+    private TransferJournal journal;
+
+    private final AtomicReference<IllegalStateException> failure = new AtomicReference<>();
+    private volatile boolean running;
+    private volatile boolean sequencerParked;
+    private Thread sequencer;
+    private Thread loader;
+    private Thread writer;
+
+    public InMemoryLedger(AccountRepository accountRepository, TransferBatchRepository transferBatchRepository,
+                          HotAccounts hotAccounts, TransferRetryExecutor transferRetryExecutor, AccountCache accountCache,
+                          IdempotencyStore idempotencyStore, LedgerProperties properties) {
+        this.accountRepository = accountRepository;
+        this.transferBatchRepository = transferBatchRepository;
+        this.hotAccounts = hotAccounts;
+        this.transferRetryExecutor = transferRetryExecutor;
+        this.accountCache = accountCache;
+        this.idempotencyStore = idempotencyStore;
+        this.properties = properties;
+        this.ring = new MpscRingBuffer<>(properties.getRingCapacity());
+    }
+
+    /**
+     * Hands a transfer to the sequencer. Waits while the ring buffer is full.
+     *
+     * @return The created transaction, once the transfer is applied in memory.
+     */
+    CompletableFuture<Transaction> submit(TransactionDTO dto) {
+        return submit(dto, null);
+    }
+
+    /**
+     * Hands a transfer to the sequencer, with an idempotency key that is journaled and written together with its
+     * transaction.
+     *
+     * @return The created transaction, once the transfer is applied in memory.
+     */
+    CompletableFuture<Transaction> submit(TransactionDTO dto, String idempotencyKey) {
+        CompletableFuture<Transaction> result = new CompletableFuture<>();
+        enqueue(new Transfer(dto, idempotencyKey, result));
+        return result;
+    }
+
+    /**
+     * @return Completes once every transfer submitted before is written to the database.
+     */
+    CompletableFuture<Void> flush() {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        enqueue(new Flush(written));
+        return written;
+    }
+
+    private void enqueue(Command command) {
+        while (true) {
+            if (!running) {
+                throw new IllegalStateException("The ledger is not running");
+            }
+            if (failure.get() != null) {
+                throw failed();
+            }
+            if (ring.offer(command)) {
+                break;
+            }
+            // The sequencer is behind, give it time to catch up
+            LockSupport.parkNanos(FULL_RING_PARK_NANOS);
+        }
+        if (sequencerParked) {
+            LockSupport.unpark(sequencer);
+        }
+    }
+
+    private void runSequencer() {
+        int idleSpins = 0;
+        while (running || !ring.isEmpty()) {
+            Command command = ring.poll();
+            if (command == null) {
+                // Nothing is waiting, so write what was applied so far instead of waiting for a fuller batch
+                handOff();
+                if (++idleSpins < IDLE_SPINS) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                sequencerParked = true;
+                if (running && ring.isEmpty()) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                sequencerParked = false;
+                continue;
+            }
+            idleSpins = 0;
+            if (command instanceof Transfer transfer) {
+                apply(transfer);
+            } else if (command instanceof Flush flush) {
+                flush(flush.written());
+            } else if (command instanceof Loaded loaded) {
+                applyLoaded(loaded);
+            }
+            if (pendingTransactions.size() >= properties.getMaxBatchSize()) {
+                handOff();
+            }
+        }
+        // The loads still out fail, as the ledger is not running anymore
+        waitingFlushes.forEach(waiting -> pendingFlushes.add(waiting.written()));
+        waitingFlushes.clear();
+        handOff();
+    }
+
+    /**
+     * Applies the transfer, or hands it to the loader first if one of its accounts is not loaded yet.
+     */
+    private void apply(Transfer transfer) {
+        if (failure.get() != null) {
+            transfer.result().completeExceptionally(failed());
+            return;
+        }
+        Set<Long> unloaded = unloadedAccounts(transfer.dto());
+        if (unloaded.isEmpty()) {
+            applyNow(transfer);
+        } else if (running) {
+            loadsRequested++;
+            loadQueue.add(new Load(transfer, unloaded));
+        } else {
+            transfer.result().completeExceptionally(new IllegalStateException("The ledger is not running"));
+        }
+    }
+
+    /**
+     * @return The IDs of the accounts of the transfer that are not loaded. Empty if the transfer is missing any, as it
+     * fails without them.
+     */
+    private Set<Long> unloadedAccounts(TransactionDTO dto) {
+        if (dto == null || dto.getSourceAccountId() == null || dto.getTargetAccountId() == null) {
+            return Set.of();
+        }
+        Set<Long> unloaded = new HashSet<>(2);
+        if (!accounts.containsKey(dto.getSourceAccountId())) {
+            unloaded.add(dto.getSourceAccountId());
+        }
+        if (!accounts.containsKey(dto.getTargetAccountId())) {
+            unloaded.add(dto.getTargetAccountId());
+        }
+        return unloaded;
+    }
+
+    /**
+     * Applies a transfer the loader handed back. An account it loaded is only taken if no earlier load has, as the one
+     * in memory may have changed since. An account that is still missing does not exist.
+     */
+    private void applyLoaded(Loaded loaded) {
+        loadsReturned++;
+        loaded.accounts().forEach(accounts::putIfAbsent);
+        if (loaded.failure() != null) {
+            loaded.transfer().result().completeExceptionally(loaded.failure());
+        } else if (failure.get() != null) {
+            loaded.transfer().result().completeExceptionally(failed());
+        } else {
+            applyNow(loaded.transfer());
+        }
+        // The loader returns the transfers in the order it got them, so the flushes behind them can go
+        while (!waitingFlushes.isEmpty() && waitingFlushes.peek().loads() <= loadsReturned) {
+            pendingFlushes.add(waitingFlushes.poll().written());
+        }
+    }
+
+    /**
+     * Writes the flush with the next batch, once the transfers submitted before it are back from the loader.
+     */
+    private void flush(CompletableFuture<Void> written) {
+        if (loadsReturned == loadsRequested) {
+            pendingFlushes.add(written);
+        } else {
+            waitingFlushes.add(new WaitingFlush(written, loadsRequested));
+        }
+    }
+
+    private void applyNow(Transfer transfer) {
+        try {
+            pendingAcknowledgements.add(new Applied(transfer.result(), transfer(transfer.dto(), transfer.idempotencyKey())));
+        } catch (RuntimeException e) {
+            transfer.result().completeExceptionally(e);
+        }
+    }
+
+    private Transaction transfer(TransactionDTO dto, String idempotencyKey) {
+        // Invalid params
+        TransferValidator.checkParameters(dto);
+
+        long sourceId = dto.getSourceAccountId();
+        long targetId = dto.getTargetAccountId();
+        long amount = dto.getAmount();
+        Currency currency = dto.getCurrency();
+
+        // Account(s) not found
+        Account sourceAccount = account(sourceId).orElseThrow(() -> TransferValidator.accountNotFound(sourceId));
+        Account targetAccount = account(targetId).orElseThrow(() -> TransferValidator.accountNotFound(targetId));
+
+        // Same account
+        TransferValidator.checkDistinctAccounts(sourceId, targetId);
+
+        // Invalid amount
+        TransferValidator.checkAmount(amount);
+
+        // Invalid currency
+        TransferValidator.checkCurrency(sourceAccount, targetAccount, currency);
+
+        // Insufficient balance
+        TransferValidator.checkBalance(sourceAccount.getBalance(), amount);
+
+        // Balance overflow
+        TransferValidator.checkCredit(targetAccount.getBalance(), amount);
+
+        // Everything that can fail comes before the balances change
+        Transaction transaction = new Transaction(nextTransactionId(), sourceId, targetId, amount, currency);
+        if (journal != null) {
+            pendingJournalSequence = journal.append(transaction, idempotencyKey);
+        }
+
+        // Update accounts
+        sourceAccount.setBalance(sourceAccount.getBalance() - amount);
+        targetAccount.setBalance(targetAccount.getBalance() + amount);
+        pendingBalanceChanges.merge(sourceId, -amount, Long::sum);
+        pendingBalanceChanges.merge(targetId, amount, Long::sum);
+        pendingTransactions.add(transaction);
+        if (idempotencyKey != null) {
+            pendingIdempotencyKeys.put(idempotencyKey, transaction);
+        }
+        return transaction;
+    }
+
+    private Optional<Account> account(long id) {
+        return Optional.ofNullable(accounts.get(id));
+    }
+
+    private void runLoader() {
+        List<Load> loads = new ArrayList<>();
+        while (running || !loadQueue.isEmpty()) {
+            Load first;
+            try {
+                first = loadQueue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            // Take along whatever else is waiting, so that a burst of new accounts is loaded in one query
+            loads.add(first);
+            loadQueue.drainTo(loads, properties.getMaxBatchSize() - 1);
+            load(loads);
+            loads.clear();
+        }
+    }
+
+    /**
+     * Loads the accounts of the transfers, with the balance of their slots if they are hot, and hands the transfers
+     * back to the sequencer in the order they came. If the accounts cannot be loaded, the transfers fail.
+     */
+    private void load(List<Load> loads) {
+        Set<Long> ids = new TreeSet<>();
+        loads.forEach(load -> ids.addAll(load.accountIds()));
+        Map<Long, Account> loaded = new HashMap<>();
+        RuntimeException loadFailure = null;
+        try {
+            for (Account account : accountRepository.findAllById(ids)) {
+                loaded.put(account.getId(), hotAccounts.withTotalBalance(account));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not load accounts {}: {}", ids, e.getMessage());
+            loadFailure = e;
+        }
+        for (Load load : loads) {
+            Map<Long, Account> accounts = new HashMap<>();
+            load.accountIds().stream().filter(loaded::containsKey).forEach(id -> accounts.put(id, loaded.get(id)));
+            handBack(new Loaded(load.transfer(), accounts, loadFailure));
+        }
+    }
+
+    /**
+     * Hands a loaded transfer back to the sequencer. Unlike {@link #enqueue}, it does not check for a failure, as the
+     * sequencer counts every transfer that comes back before it lets the flushes behind them go.
+     */
+    private void handBack(Loaded loaded) {
+        while (!ring.offer(loaded)) {
+            if (!sequencer.isAlive()) {
+                IllegalStateException stopped = new IllegalStateException("The ledger is not running");
+                loaded.transfer().result().completeExceptionally(stopped);
+                return;
+            }
+            LockSupport.parkNanos(FULL_RING_PARK_NANOS);
+        }
+        if (sequencerParked) {
+            LockSupport.unpark(sequencer);
+        }
+    }
+
+    private long nextTransactionId() {
+        if (nextId == idBlockEnd) {
+            if (idBlocks.isEmpty()) {
+                idBlocks.addAll(transferBatchRepository.nextTransactionIdBlocks(ID_BLOCKS_PER_FETCH));
+            }
+            nextId = idBlocks.poll();
+            idBlockEnd = nextId + Transaction.ID_ALLOCATION_SIZE;
+        }
+        return nextId++;
+    }
+
+    private void handOff() {
+        if (pendingTransactions.isEmpty() && pendingFlushes.isEmpty()) {
+            return;
+        }
+        List<Applied> unconfirmed = acknowledge();
+        WriteBatch batch = new WriteBatch(pendingTransactions, pendingBalanceChanges, pendingIdempotencyKeys, pendingFlushes,
+                unconfirmed, pendingJournalSequence);
+        pendingTransactions = new ArrayList<>();
+        pendingBalanceChanges = new HashMap<>();
+        pendingIdempotencyKeys = new HashMap<>();
+        pendingFlushes = new ArrayList<>();
+        try {
+            writeQueue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while handing off {} transactions, they are not written", batch.transactions().size());
+        }
+    }
+
+    /**
+     * Confirms the transfers applied since the last batch once they are journaled. If the journal cannot be synced, the
+     * ledger stops, and the transfers are only confirmed once the writer has written them, as they are applied already.
+     *
+     * @return The transfers left to confirm by the writer.
+     */
+    private List<Applied> acknowledge() {
+        List<Applied> unconfirmed = List.of();
+        if (journal != null) {
+            try {
+                journal.sync();
+            } catch (RuntimeException e) {
+                fail("Could not sync the journal", e);
+                unconfirmed = List.copyOf(pendingAcknowledgements);
+            }
+        }
+        if (unconfirmed.isEmpty()) {
+            pendingAcknowledgements.forEach(applied -> applied.result().complete(applied.transaction()));
+        }
+        pendingAcknowledgements.clear();
+        return unconfirmed;
+    }
+
+    private void runWriter() {
+        boolean writing = true;
+        while (true) {
+            WriteBatch batch;
+            try {
+                batch = writeQueue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch == null) {
+                if (!sequencer.isAlive() && writeQueue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+
+            // Take along whatever else is waiting, up to the batch size
+            List<Transaction> transactions = new ArrayList<>(batch.transactions());
+            Map<Long, Long> balanceChanges = new TreeMap<>(batch.balanceChanges());
+            Map<String, Transaction> idempotencyKeys = new HashMap<>(batch.idempotencyKeys());
+            List<CompletableFuture<Void>> flushes = new ArrayList<>(batch.flushes());
+            List<Applied> unconfirmed = new ArrayList<>(batch.unconfirmed());
+            long journalSequence = batch.journalSequence();
+            WriteBatch next;
+            while (transactions.size() < properties.getMaxBatchSize() && (next = writeQueue.poll()) != null) {
+                transactions.addAll(next.transactions());
+                next.balanceChanges().forEach((id, change) -> balanceChanges.merge(id, change, Long::sum));
+                idempotencyKeys.putAll(next.idempotencyKeys());
+                flushes.addAll(next.flushes());
+                unconfirmed.addAll(next.unconfirmed());
+                journalSequence = Math.max(journalSequence, next.journalSequence());
+            }
+            // After a failed write, the batches left are only taken off the queue, so that the sequencer never waits
+            writing = writing && write(transactions, balanceChanges, idempotencyKeys);
+            if (!writing) {
+                unconfirmed.forEach(applied -> applied.result().completeExceptionally(failed()));
+                flushes.forEach(flush -> flush.completeExceptionally(failed()));
+                continue;
+            }
+            if (journal != null) {
+                journal.release(journalSequence);
+            }
+            unconfirmed.forEach(applied -> applied.result().complete(applied.transaction()));
+            flushes.forEach(flush -> flush.complete(null));
+        }
+    }
+
+    /**
+     * Writes a batch, waiting out transient failures of the database for as long as they last. Any other failure would
+     * fail the batch again on every attempt, so it stops the ledger instead.
+     *
+     * @return Whether the batch was written.
+     */
+    private boolean write(List<Transaction> transactions, Map<Long, Long> balanceChanges,
+                          Map<String, Transaction> idempotencyKeys) {
+        while (true) {
+            try {
+                transferRetryExecutor.execute(() -> {
+                    addToBalances(balanceChanges);
+                    transferBatchRepository.insertTransactions(transactions);
+                    insertIdempotencyKeys(idempotencyKeys);
+                    accountCache.evictAfterCommit(balanceChanges.keySet());
+                    return null;
+                });
+                logger.debug("Wrote {} transactions", transactions.size());
+                return true;
+            } catch (TransientDataAccessException e) {
+                logger.error("Could not write {} transactions, retrying in {}: {}", transactions.size(),
+                        properties.getRetryInterval(), e.getMessage());
+            } catch (RuntimeException e) {
+                fail("Could not write " + transactions.size() + " transactions", e);
+                return false;
+            }
+            try {
+                Thread.sleep(properties.getRetryInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted while writing " + transactions.size() + " transactions", new IllegalStateException(e));
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Adds the balance changes to the accounts, inside the current database transaction. The changes of a hot account
+     * go to its slots.
+     */
+    private void addToBalances(Map<Long, Long> balanceChanges) {
+        Map<Long, Account> lockedAccounts = transferBatchRepository.lockAccounts(balanceChanges.keySet());
+        Map<Long, Long> rowChanges = new TreeMap<>();
+        balanceChanges.forEach((id, change) -> {
+            Account account = lockedAccounts.get(id);
+            if (account != null && HotAccounts.isHot(account)) {
+                hotAccounts.addToSlots(account, change);
+            } else {
+                rowChanges.put(id, change);
+            }
+        });
+        transferBatchRepository.addToBalances(rowChanges);
+    }
+
+    /**
+     * Stores the idempotency keys of the written transactions, inside the database transaction that writes them.
+     */
+    private void insertIdempotencyKeys(Map<String, Transaction> idempotencyKeys) {
+        idempotencyKeys.forEach((key, transaction) -> {
+            if (!idempotencyStore.insert(key, transaction)) {
+                logger.error("Idempotency key {} is already stored, transaction {} is written without it", key,
+                        transaction.getId());
+            }
+        });
+    }
+
+    /**
+     * Stops the ledger from applying any more transfers after a failure it cannot recover from, and reports it down.
+     * The transfers applied but not written are recovered from the journal, if it is enabled, once the application is
+     * restarted.
+     */
+    private void fail(String reason, RuntimeException cause) {
+        if (failure.compareAndSet(null, new IllegalStateException(reason, cause))) {
+            logger.error("{}, the ledger stops applying transfers: {}", reason, cause.getMessage());
+        }
+    }
+
+    private IllegalStateException failed() {
+        return new IllegalStateException("The ledger has failed", failure.get());
+    }
+
+    @Override
+    public Health health() {
+        IllegalStateException failed = failure.get();
+        if (failed != null) {
+            return Health.down(failed).build();
+        }
+        return (running ? Health.up() : Health.down()).build();
+    }
+
+    @Override
+    public void start() {
+        if (properties.getJournal().isEnabled()) {
+            try {
+                journal = new TransferJournal(properties.getJournal().getDirectory(),
+                        (int) properties.getJournal().getSegmentSize().toBytes());
+                recover(journal.recover());
+                journal.discardRecovered();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open the journal in " + properties.getJournal().getDirectory(), e);
+            }
+        }
+        running = true;
+        sequencer = new Thread(this::runSequencer, "ledger-sequencer");
+        loader = new Thread(this::runLoader, "ledger-loader");
+        writer = new Thread(this::runWriter, "ledger-writer");
+        sequencer.start();
+        loader.start();
+        writer.start();
+        logger.info("In-memory ledger started");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        LockSupport.unpark(sequencer);
+        join(sequencer);
+        join(loader);
+        // The sequencer is gone, so this thread can take over as the consumer of whatever arrived in the meantime
+        Command command;
+        while ((command = ring.poll()) != null) {
+            IllegalStateException stopped = new IllegalStateException("The ledger is not running");
+            if (command instanceof Transfer transfer) {
+                transfer.result().completeExceptionally(stopped);
+            } else if (command instanceof Flush flush) {
+                flush.written().completeExceptionally(stopped);
+            } else if (command instanceof Loaded loaded) {
+                loaded.transfer().result().completeExceptionally(stopped);
+            }
+        }
+        join(writer);
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.error("Could not close the journal: {}", e.getMessage());
+            }
+        }
+        logger.info("In-memory ledger stopped");
+    }
+
+    /**
+     * Writes the journaled transactions the database is missing, in chunks. A transaction is written together with its
+     * balance changes and idempotency key, so the transactions found in the database need nothing more.
+     */
+    private void recover(List<TransferJournal.Entry> entries) {
+        int missing = 0;
+        for (int offset = 0; offset < entries.size(); offset += properties.getMaxBatchSize()) {
+            List<TransferJournal.Entry> chunk = entries.subList(offset, Math.min(offset + properties.getMaxBatchSize(), entries.size()));
+            missing += transferRetryExecutor.execute(() -> {
+                Set<Long> written = transferBatchRepository.findTransactionIds(chunk.stream().map(entry -> entry.transaction().getId()).toList());
+                List<TransferJournal.Entry> unwritten = chunk.stream().filter(entry -> !written.contains(entry.transaction().getId())).toList();
+                List<Transaction> transactions = new ArrayList<>(unwritten.size());
+                Map<Long, Long> balanceChanges = new TreeMap<>();
+                Map<String, Transaction> idempotencyKeys = new HashMap<>();
+                for (TransferJournal.Entry entry : unwritten) {
+                    Transaction transaction = entry.transaction();
+                    transactions.add(transaction);
+                    balanceChanges.merge(transaction.getSourceAccountId(), -transaction.getAmount(), Long::sum);
+                    balanceChanges.merge(transaction.getTargetAccountId(), transaction.getAmount(), Long::sum);
+                    if (entry.idempotencyKey() != null) {
+                        idempotencyKeys.put(entry.idempotencyKey(), transaction);
+                    }
+                }
+                addToBalances(balanceChanges);
+                transferBatchRepository.insertTransactions(transactions);
+                insertIdempotencyKeys(idempotencyKeys);
+                return unwritten.size();
+            });
+        }
+        logger.info("Recovered {} journaled transactions, {} of them were not written yet", entries.size(), missing);
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before and stop after the web server, so that requests in flight are still served
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private sealed interface Command permits Transfer, Flush, Loaded {
+    }
+
+    private record Transfer(TransactionDTO dto, String idempotencyKey, CompletableFuture<Transaction> result)
+            implements Command {
+    }
+
+    private record Flush(CompletableFuture<Void> written) implements Command {
+    }
+
+    /**
+     * A transfer handed back by the loader, with the accounts it loaded, or the reason they could not be loaded.
+     */
+    private record Loaded(Transfer transfer, Map<Long, Account> accounts, RuntimeException failure) implements Command {
+    }
+
+    private record Load(Transfer transfer, Set<Long> accountIds) {
+    }
+
+    /**
+     * A flush waiting for the transfers handed to the loader before it.
+     *
+     * @param loads The number of transfers handed to the loader before the flush.
+     */
+    private record WaitingFlush(CompletableFuture<Void> written, long loads) {
+    }
+
+    private record Applied(CompletableFuture<Transaction> result, Transaction transaction) {
+    }
+
+    private record WriteBatch(List<Transaction> transactions, Map<Long, Long> balanceChanges,
+                              Map<String, Transaction> idempotencyKeys, List<CompletableFuture<Void>> flushes, List<Applied> unconfirmed,
+                              long journalSequence) {
+    }
+}
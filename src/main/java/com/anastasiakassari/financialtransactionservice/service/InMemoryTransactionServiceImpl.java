@@ -0,0 +1,108 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.ExceptionMessage;
+import com.anastasiakassari.financialtransactionservice.exception.FinancialTransactionServiceException;
+import com.anastasiakassari.financialtransactionservice.exception.InvalidParametersException;
+import com.anastasiakassari.financialtransactionservice.exception.MissingParameterException;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * InMemoryTransactionServiceImpl applies transfers through the {@link InMemoryLedger} instead of locking the accounts in
+ * the database. Selected with {@code fts.transaction.engine=in-memory}. Transfers are validated exactly as before, but
+ * transactions and balances read from the database may trail the created transactions by a few milliseconds.
+ */
+@Service
+@ConditionalOnProperty(name = "fts.transaction.engine", havingValue = "in-memory")
+public class InMemoryTransactionServiceImpl extends TransactionServiceImpl {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryTransactionServiceImpl.class);
+
+    private final IdempotencyStore idempotencyStore;
+    private final TransferMetrics transferMetrics;
+    private final InMemoryLedger ledger;
+
+    public InMemoryTransactionServiceImpl(TransactionRepository transactionRepository, AccountRepository accountRepository,
+                                          BatchTransferProcessor batchTransferProcessor, TransferRetryExecutor transferRetryExecutor,
+                                          HotAccounts hotAccounts, TransferCoalescer transferCoalescer, AccountCache accountCache,
+                                          IdempotencyStore idempotencyStore, TransferMetrics transferMetrics,
+                                          TransactionArchive transactionArchive, EntityManager entityManager, ObjectMapper objectMapper, InMemoryLedger ledger) {
+        super(transactionRepository, accountRepository, batchTransferProcessor, transferRetryExecutor, hotAccounts,
+                transferCoalescer, accountCache, idempotencyStore, transferMetrics, transactionArchive, entityManager, objectMapper);
+        this.idempotencyStore = idempotencyStore;
+        this.transferMetrics = transferMetrics;
+        this.ledger = ledger;
+    }
+
+    @Override
+    public Transaction createTransaction(TransactionDTO dto) throws FinancialTransactionServiceException {
+        logger.debug("Creating transaction with DTO: {}", dto);
+        return transferMetrics.countOutcome(() -> submit(dto));
+    }
+
+    /**
+     * The ledger journals the idempotency key with the transfer and writes it in the same database transaction, so the
+     * key is only remembered in memory here, until the database has it.
+     */
+    @Override
+    public Transaction createTransaction(TransactionDTO dto, String idempotencyKey) throws FinancialTransactionServiceException {
+        logger.debug("Creating transaction with DTO: {}, idempotency key: {}", dto, idempotencyKey);
+        return transferMetrics.countOutcome(() -> idempotencyStore.execute(idempotencyKey, dto, () -> {
+            Transaction transaction = submit(dto, idempotencyKey);
+            idempotencyStore.remember(idempotencyKey, transaction);
+            return transaction;
+        }));
+    }
+
+    private Transaction submit(TransactionDTO dto) throws FinancialTransactionServiceException {
+        return submit(dto, null);
+    }
+
+    private Transaction submit(TransactionDTO dto, String idempotencyKey) throws FinancialTransactionServiceException {
+        Transaction transaction = await(ledger.submit(dto, idempotencyKey));
+        logger.info("Transaction created: {}", transaction);
+        return transaction;
+    }
+
+    @Override
+    public List<BatchTransactionResultDTO> createTransactions(List<TransactionDTO> dtos) throws FinancialTransactionServiceException {
+        logger.debug("Creating batch of transactions. Count: {}", dtos == null ? 0 : dtos.size());
+        if (dtos == null) {
+            String errorMessage = ExceptionMessage.MISSING_PARAMETER;
+            logger.error(errorMessage);
+            throw new MissingParameterException(errorMessage);
+        }
+        if (dtos.size() > BatchTransferProcessor.MAX_BATCH_SIZE) {
+            String errorMessage = ExceptionMessage.BATCH_TOO_LARGE + dtos.size() + " > " + BatchTransferProcessor.MAX_BATCH_SIZE;
+            logger.error(errorMessage);
+            throw new InvalidParametersException(errorMessage);
+        }
+
+        // Submit everything first, so that the sequencer applies the batch in one go
+        List<CompletableFuture<Transaction>> transactions = dtos.stream().map(ledger::submit).toList();
+        List<BatchTransactionResultDTO> results = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            try {
+                results.add(new BatchTransactionResultDTO(i, await(transactions.get(i)), null));
+            } catch (FinancialTransactionServiceException e) {
+                results.add(new BatchTransactionResultDTO(i, null, e.getMessage()));
+            }
+        }
+        logger.info("Batch of transactions processed. Count: {}, succeeded: {}", results.size(),
+                results.stream().filter(result -> result.getTransaction() != null).count());
+        return results;
+    }
+}
@@ -0,0 +1,33 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ReactiveAccountService {
+    Flux<Account> getAccounts();
+
+    Mono<PageDTO<Account>> getAccounts(String cursor, Integer limit);
+
+    Mono<Account> getAccountById(Long id);
+
+    Mono<Account> createAccount(AccountDTO account);
+
+    Mono<List<Account>> createAccounts(List<AccountDTO> accounts);
+
+    Mono<Account> stripeAccount(Long id, Integer slotCount);
+
+    Flux<Transaction> getAllTransactions(Long accountId);
+
+    Flux<Transaction> getAllTransactions(Long accountId, Instant from, Instant to);
+
+    Flux<Transaction> getIncomingTransactions(Long accountId);
+
+    Flux<Transaction> getOutgoingTransactions(Long accountId);
+}
@@ -0,0 +1,157 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
+import com.anastasiakassari.financialtransactionservice.exception.*;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.ReactiveAccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.ReactiveTransactionRepository;
+import com.anastasiakassari.financialtransactionservice.service.ArchiveSegment.Direction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * ReactiveAccountServiceImpl serves the accounts over R2DBC, with the same checks and error messages as
+ * {@link AccountServiceImpl}. Accounts are always read from the database, as the account cache belongs to the JPA services.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountServiceImpl implements ReactiveAccountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveAccountServiceImpl.class);
+    private final ReactiveAccountRepository accountRepository;
+    private final ReactiveTransactionRepository transactionRepository;
+    private final ReactiveHotAccounts hotAccounts;
+    private final TransactionalOperator transactionalOperator;
+    private final TransactionArchive transactionArchive;
+
+    public ReactiveAccountServiceImpl(ReactiveAccountRepository accountRepository, ReactiveTransactionRepository transactionRepository,
+                                      ReactiveHotAccounts hotAccounts, TransactionalOperator transactionalOperator,
+                                      TransactionArchive transactionArchive) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.hotAccounts = hotAccounts;
+        this.transactionalOperator = transactionalOperator;
+        this.transactionArchive = transactionArchive;
+    }
+
+    @Override
+    public Flux<Account> getAccounts() {
+        return accountRepository.findAll();
+    }
+
+    @Override
+    public Mono<PageDTO<Account>> getAccounts(String cursor, Integer limit) {
+        return Mono.defer(() -> {
+            logger.debug("Retrieving accounts page after cursor: {}, limit: {}", cursor, limit);
+            Pageable pageable = CursorPagination.pageable(limit);
+            return accountRepository.findPage(CursorPagination.afterId(cursor), pageable.getPageSize())
+                    .collectList()
+                    .map(accounts -> CursorPagination.page(accounts, pageable, Account::getId));
+        });
+    }
+
+    @Override
+    public Mono<Account> getAccountById(Long id) {
+        logger.debug("Retrieving account with ID: {}", id);
+        return accountRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> TransferValidator.accountNotFound(id)));
+    }
+
+    @Override
+    public Mono<Account> createAccount(AccountDTO dto) {
+        return Mono.defer(() -> {
+                    logger.debug("Creating account with DTO: {}", dto);
+                    return accountRepository.insert(AccountServiceImpl.newAccount(dto));
+                })
+                .doOnNext(account -> logger.info("Account created: {}", account));
+    }
+
+    @Override
+    public Mono<List<Account>> createAccounts(List<AccountDTO> dtos) {
+        return Mono.defer(() -> {
+                    logger.debug("Creating batch of accounts. Count: {}", dtos == null ? 0 : dtos.size());
+
+                    // Missing params
+                    if (dtos == null) {
+                        String errorMessage = ExceptionMessage.MISSING_PARAMETER;
+                        logger.error(errorMessage);
+                        throw new MissingParameterException(errorMessage);
+                    }
+
+                    // Too many accounts
+                    if (dtos.size() > BatchTransferProcessor.MAX_BATCH_SIZE) {
+                        String errorMessage = ExceptionMessage.BATCH_TOO_LARGE + dtos.size() + " > " + BatchTransferProcessor.MAX_BATCH_SIZE;
+                        logger.error(errorMessage);
+                        throw new InvalidParametersException(errorMessage);
+                    }
+
+                    List<Account> accounts = dtos.stream().map(AccountServiceImpl::newAccount).toList();
+                    return Flux.fromIterable(accounts)
+                            .concatMap(accountRepository::insert)
+                            .collectList()
+                            .as(transactionalOperator::transactional);
+                })
+                .doOnNext(created -> logger.info("Batch of accounts created. Count: {}", created.size()));
+    }
+
+    @Override
+    public Mono<Account> stripeAccount(Long id, Integer slotCount) {
+        return Mono.defer(() -> {
+                    logger.debug("Splitting balance of account with ID: {} across {} slots", id, slotCount);
+                    AccountServiceImpl.checkStripeParameters(id, slotCount);
+
+                    // Account not found
+                    return accountRepository.findByIdForUpdate(id)
+                            .switchIfEmpty(Mono.error(() -> TransferValidator.accountNotFound(id)))
+                            .flatMap(account -> {
+                                AccountServiceImpl.checkNotHot(account);
+                                return hotAccounts.stripe(account, slotCount);
+                            })
+                            .then(accountRepository.findById(id))
+                            .as(transactionalOperator::transactional);
+                })
+                .doOnNext(account -> logger.info("Account balance split across slots: {}", account));
+    }
+
+    @Override
+    public Flux<Transaction> getAllTransactions(Long accountId) {
+        logger.debug("Retrieving all transactions for account with ID: {}", accountId);
+        return transactionArchive.withArchived(transactionRepository.findBySourceOrTargetAccountId(accountId),
+                accountId, Direction.ANY, TimeRange.ALL);
+    }
+
+    @Override
+    public Flux<Transaction> getAllTransactions(Long accountId, Instant from, Instant to) {
+        return Flux.defer(() -> {
+            logger.debug("Retrieving transactions for account with ID: {}, created from {} to {}", accountId, from, to);
+            TimeRange range = TimeRange.of(from, to);
+            return transactionArchive.withArchived(transactionRepository.findBySourceOrTargetAccountIdCreatedBetween(accountId, range.from(), range.to()),
+                    accountId, Direction.ANY, range);
+        });
+    }
+
+    @Override
+    public Flux<Transaction> getIncomingTransactions(Long accountId) {
+        logger.debug("Retrieving incoming transactions for account with ID: {}", accountId);
+        return transactionArchive.withArchived(transactionRepository.findByTargetAccountId(accountId),
+                accountId, Direction.INCOMING, TimeRange.ALL);
+    }
+
+    @Override
+    public Flux<Transaction> getOutgoingTransactions(Long accountId) {
+        logger.debug("Retrieving outgoing transactions for account with ID: {}", accountId);
+        return transactionArchive.withArchived(transactionRepository.findBySourceAccountId(accountId),
+                accountId, Direction.OUTGOING, TimeRange.ALL);
+    }
+}
@@ -0,0 +1,99 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.exception.InsufficientBalanceException;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.repository.ReactiveAccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.ReactiveAccountSlotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ReactiveHotAccounts moves money to and from hot accounts for the reactive services, the same way {@link HotAccounts}
+ * does: a credit goes to a random free slot, a debit comes from any free slot that covers it, and the account row
+ * itself is only share-locked. Every method must run inside a transaction of the reactive transactional operator.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveHotAccounts {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveHotAccounts.class);
+
+    private final ReactiveAccountRepository accountRepository;
+    private final ReactiveAccountSlotRepository accountSlotRepository;
+    private final Set<Long> hotAccountIds = ConcurrentHashMap.newKeySet();
+
+    public ReactiveHotAccounts(ReactiveAccountRepository accountRepository, ReactiveAccountSlotRepository accountSlotRepository) {
+        this.accountRepository = accountRepository;
+        this.accountSlotRepository = accountSlotRepository;
+    }
+
+    /**
+     * Locks an account for a transfer. Hot accounts are share-locked, other accounts are locked for update.
+     *
+     * @return The account, or empty if it does not exist.
+     */
+    Mono<Optional<Account>> lockForTransfer(long accountId) {
+        Mono<Account> account = hotAccountIds.contains(accountId)
+                ? accountRepository.findByIdForShare(accountId)
+                : accountRepository.findByIdForUpdate(accountId)
+                .doOnNext(found -> {
+                    if (HotAccounts.isHot(found)) {
+                        hotAccountIds.add(found.getId());
+                    }
+                });
+        return account.map(Optional::of).defaultIfEmpty(Optional.empty());
+    }
+
+    /**
+     * Adds the amount to a random slot of a hot account that no other transaction holds, waiting for a random one only if
+     * every slot is held, like {@link HotAccounts#credit} does.
+     */
+    Mono<Void> credit(Account account, long amount) {
+        return accountSlotRepository.creditAnySlot(account.getId(), amount)
+                .flatMap(credited -> credited ? Mono.<Void>empty() : accountSlotRepository.credit(account.getId(),
+                        ThreadLocalRandom.current().nextInt(account.getSlotCount()), amount));
+    }
+
+    /**
+     * Takes the amount from a slot of a hot account that covers it. If no free slot covers it on its own, all slots are
+     * locked and the amount is taken from as many slots as needed.
+     *
+     * @return Empty, or an {@link InsufficientBalanceException} if the slots together do not cover the amount.
+     */
+    Mono<Void> debit(Account account, long amount) {
+        return accountSlotRepository.debitAnySlot(account.getId(), amount)
+                .flatMap(debited -> debited ? Mono.<Void>empty() : accountSlotRepository.lockSlots(account.getId())
+                        .map(slots -> HotAccounts.drain(slots, amount))
+                        .flatMap(drained -> accountSlotRepository.updateSlots(account.getId(), drained)
+                                .doOnSuccess(done -> logger.debug("Debited account {} across slots {}", account.getId(), drained.keySet()))));
+    }
+
+    /**
+     * Splits the balance of a locked account evenly across the specified number of slots.
+     * The account is remembered as hot once the transaction commits.
+     */
+    Mono<Void> stripe(Account account, int slotCount) {
+        long accountId = account.getId();
+        return accountSlotRepository.createSlots(accountId, HotAccounts.slotBalances(account.getBalance(), slotCount))
+                .then(accountRepository.stripe(accountId, slotCount))
+                .then(TransactionSynchronizationManager.forCurrentTransaction())
+                .doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCommit() {
+                        hotAccountIds.add(accountId);
+                        return Mono.empty();
+                    }
+                }))
+                .then();
+    }
+}
@@ -0,0 +1,28 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ReactiveTransactionService {
+
+    Flux<Transaction> getTransactions();
+
+    Mono<PageDTO<Transaction>> getTransactions(String cursor, Integer limit);
+
+    Mono<PageDTO<Transaction>> getTransactions(String cursor, Integer limit, Instant from, Instant to);
+
+    Mono<Transaction> getTransactionById(Long id);
+
+    Mono<Transaction> createTransaction(TransactionDTO transaction);
+
+    Mono<Transaction> createTransaction(TransactionDTO transaction, String idempotencyKey);
+
+    Mono<List<BatchTransactionResultDTO>> createTransactions(List<TransactionDTO> transactions);
+}
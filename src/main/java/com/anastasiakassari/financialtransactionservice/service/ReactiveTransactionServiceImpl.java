@@ -0,0 +1,286 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.IdempotencyProperties;
+import com.anastasiakassari.financialtransactionservice.config.TransferRetryProperties;
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.*;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.IdempotencyKey;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.ReactiveAccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.ReactiveIdempotencyKeyRepository;
+import com.anastasiakassari.financialtransactionservice.repository.ReactiveTransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * ReactiveTransactionServiceImpl applies transfers over R2DBC, with the same semantics as {@link TransactionServiceImpl}:
+ * the same checks in the same order, both account rows locked in ascending ID order, hot accounts moved through their
+ * slots and transient failures retried with the configured backoff. Every transfer runs in a database transaction of
+ * its own, including each transfer of a batch.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTransactionServiceImpl implements ReactiveTransactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveTransactionServiceImpl.class);
+    private final ReactiveAccountRepository accountRepository;
+    private final ReactiveTransactionRepository transactionRepository;
+    private final ReactiveIdempotencyKeyRepository idempotencyKeyRepository;
+    private final ReactiveHotAccounts hotAccounts;
+    private final TransactionalOperator transactionalOperator;
+    private final TransferRetryProperties retryProperties;
+    private final IdempotencyProperties idempotencyProperties;
+    private final MeterRegistry meterRegistry;
+    private final TransferMetrics transferMetrics;
+    private final TransactionArchive transactionArchive;
+
+    public ReactiveTransactionServiceImpl(ReactiveAccountRepository accountRepository, ReactiveTransactionRepository transactionRepository,
+                                          ReactiveIdempotencyKeyRepository idempotencyKeyRepository, ReactiveHotAccounts hotAccounts,
+                                          TransactionalOperator transactionalOperator, TransferRetryProperties retryProperties,
+                                          IdempotencyProperties idempotencyProperties, MeterRegistry meterRegistry,
+                                          TransferMetrics transferMetrics, TransactionArchive transactionArchive) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.hotAccounts = hotAccounts;
+        this.transactionalOperator = transactionalOperator;
+        this.retryProperties = retryProperties;
+        this.idempotencyProperties = idempotencyProperties;
+        this.meterRegistry = meterRegistry;
+        this.transferMetrics = transferMetrics;
+        this.transactionArchive = transactionArchive;
+    }
+
+    /**
+     * Streams all transactions, ordered by ID. Rows are fetched from the database as the subscriber requests them,
+     * so a slow client holds back the query instead of the transactions piling up in memory.
+     */
+    @Override
+    public Flux<Transaction> getTransactions() {
+        logger.debug("Exporting all transactions");
+        return transactionRepository.streamAll()
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<PageDTO<Transaction>> getTransactions(String cursor, Integer limit) {
+        return Mono.defer(() -> {
+            logger.debug("Retrieving transactions page after cursor: {}, limit: {}", cursor, limit);
+            Pageable pageable = CursorPagination.pageable(limit);
+            return transactionRepository.findPage(CursorPagination.afterId(cursor), pageable.getPageSize())
+                    .collectList()
+                    .map(transactions -> CursorPagination.page(transactions, pageable, Transaction::getId));
+        });
+    }
+
+    @Override
+    public Mono<PageDTO<Transaction>> getTransactions(String cursor, Integer limit, Instant from, Instant to) {
+        return Mono.defer(() -> {
+            logger.debug("Retrieving transactions page after cursor: {}, limit: {}, created from {} to {}", cursor, limit, from, to);
+            Pageable pageable = CursorPagination.pageable(limit);
+            TimeRange range = TimeRange.of(from, to);
+            return transactionRepository.findPageCreatedBetween(CursorPagination.afterId(cursor), range.from(), range.to(), pageable.getPageSize())
+                    .collectList()
+                    .map(transactions -> CursorPagination.page(transactions, pageable, Transaction::getId));
+        });
+    }
+
+    @Override
+    public Mono<Transaction> getTransactionById(Long id) {
+        logger.debug("Retrieving transaction with ID: {}", id);
+        return transactionRepository.findById(id)
+                .switchIfEmpty(transactionArchive.findByIdAsync(id))
+                .switchIfEmpty(Mono.error(() -> {
+                    String errorMessage = ExceptionMessage.TRANSACTION_NOT_FOUND + " with ID: " + id;
+                    logger.error(errorMessage);
+                    return new TransactionNotFoundException(errorMessage);
+                }));
+    }
+
+    @Override
+    public Mono<Transaction> createTransaction(TransactionDTO dto) {
+        logger.debug("Creating transaction with DTO: {}", dto);
+        return inTransaction(transfer(dto)).as(transferMetrics::countOutcome);
+    }
+
+    /**
+     * Creates the transaction unless one was already created with the same idempotency key, in which case that one is
+     * returned. The key is stored in the same database transaction as the transfer, so a transfer is never applied
+     * without its key. A concurrent request with the same key waits for the insert of the key and then replays its
+     * transaction, its own transfer being rolled back.
+     */
+    @Override
+    public Mono<Transaction> createTransaction(TransactionDTO dto, String idempotencyKey) {
+        return Mono.defer(() -> {
+            logger.debug("Creating transaction with DTO: {}, idempotency key: {}", dto, idempotencyKey);
+            IdempotencyStore.checkKey(idempotencyKey);
+            String request = IdempotencyStore.request(dto);
+            Mono<Transaction> transferAndSave = transfer(dto).flatMap(transaction -> {
+                long now = System.currentTimeMillis();
+                IdempotencyKey key = new IdempotencyKey(idempotencyKey, request, transaction.getId(), new Timestamp(now));
+                return idempotencyKeyRepository.insert(key, new Timestamp(now - idempotencyProperties.getTimeToLive().toMillis()))
+                        .flatMap(inserted -> inserted ? Mono.just(transaction)
+                                : Mono.error(new DuplicateKeyException("Idempotency key is already stored: " + idempotencyKey)));
+            });
+            return findStored(idempotencyKey, request)
+                    .switchIfEmpty(inTransaction(transferAndSave)
+                            // Another request stored the key first and its transfer stands instead
+                            .onErrorResume(DuplicateKeyException.class, e -> findStored(idempotencyKey, request)
+                                    .switchIfEmpty(Mono.error(e))));
+        }).as(transferMetrics::countOutcome);
+    }
+
+    /**
+     * @return The transaction stored for the key, if the key is stored and has not expired, or a
+     * {@link TransactionNotFoundException} if the key is stored but its transaction is not, like
+     * {@link IdempotencyStore#find} does.
+     */
+    private Mono<Transaction> findStored(String idempotencyKey, String request) {
+        Timestamp expiredBefore = new Timestamp(System.currentTimeMillis() - idempotencyProperties.getTimeToLive().toMillis());
+        return idempotencyKeyRepository.find(idempotencyKey)
+                .filter(found -> !found.getCreatedAt().before(expiredBefore))
+                .flatMap(found -> {
+                    IdempotencyStore.checkRequest(idempotencyKey, found.getRequest(), request);
+                    // The key was used, so transferring again would transfer twice
+                    return transactionRepository.findById(found.getTransactionId())
+                            .switchIfEmpty(Mono.error(() -> {
+                                String errorMessage = ExceptionMessage.TRANSACTION_NOT_FOUND + " for idempotency key: " + idempotencyKey;
+                                logger.error(errorMessage);
+                                return new TransactionNotFoundException(errorMessage);
+                            }));
+                })
+                .doOnNext(transaction -> logger.info("Replaying transaction {} for idempotency key {}", transaction.getId(), idempotencyKey));
+    }
+
+    @Override
+    public Mono<List<BatchTransactionResultDTO>> createTransactions(List<TransactionDTO> dtos) {
+        return Mono.defer(() -> {
+            logger.debug("Creating batch of transactions. Count: {}", dtos == null ? 0 : dtos.size());
+
+            // Missing params
+            if (dtos == null) {
+                String errorMessage = ExceptionMessage.MISSING_PARAMETER;
+                logger.error(errorMessage);
+                throw new MissingParameterException(errorMessage);
+            }
+
+            // Too many transactions
+            if (dtos.size() > BatchTransferProcessor.MAX_BATCH_SIZE) {
+                String errorMessage = ExceptionMessage.BATCH_TOO_LARGE + dtos.size() + " > " + BatchTransferProcessor.MAX_BATCH_SIZE;
+                logger.error(errorMessage);
+                throw new InvalidParametersException(errorMessage);
+            }
+
+            return Flux.fromStream(IntStream.range(0, dtos.size()).boxed())
+                    .concatMap(index -> inTransaction(transfer(dtos.get(index)))
+                            .map(transaction -> new BatchTransactionResultDTO(index, transaction, null))
+                            .onErrorResume(FinancialTransactionServiceException.class,
+                                    e -> Mono.just(new BatchTransactionResultDTO(index, null, e.getMessage()))))
+                    .collectList();
+        });
+    }
+
+    /**
+     * Runs the transfer in a new database transaction, retrying it on transient failures like
+     * {@link TransferRetryExecutor} does.
+     */
+    private Mono<Transaction> inTransaction(Mono<Transaction> transfer) {
+        return transfer
+                .as(transactionalOperator::transactional)
+                .retryWhen(Retry.from(failures -> failures.concatMap(failure -> {
+                    int attempt = (int) failure.totalRetries() + 1;
+                    if (!(failure.failure() instanceof TransientDataAccessException e)) {
+                        return Mono.error(failure.failure());
+                    }
+                    if (attempt >= retryProperties.getMaxAttempts()) {
+                        meterRegistry.counter("fts.transfer.retries.exhausted").increment();
+                        logger.error("Transfer failed after {} attempts: {}", attempt, e.getMessage());
+                        return Mono.error(e);
+                    }
+                    meterRegistry.counter("fts.transfer.retries", "exception", e.getClass().getSimpleName()).increment();
+                    logger.warn("Retrying transfer after attempt {} failed: {}", attempt, e.getMessage());
+                    return Mono.delay(Duration.ofMillis(TransferRetryExecutor.backoffMillis(retryProperties, attempt)));
+                })));
+    }
+
+    /**
+     * Applies the transfer inside the current database transaction, deferred until subscribed to so that every retry
+     * runs it anew. Both account rows are locked in ascending ID order. The balance of a hot account is moved through
+     * its slots instead.
+     */
+    private Mono<Transaction> transfer(TransactionDTO dto) {
+        return Mono.defer(() -> {
+            // Invalid params
+            TransferValidator.checkParameters(dto);
+
+            long sourceId = dto.getSourceAccountId();
+            long targetId = dto.getTargetAccountId();
+            long amount = dto.getAmount();
+            Currency currency = dto.getCurrency();
+
+            // Account(s) not found
+            return hotAccounts.lockForTransfer(Math.min(sourceId, targetId))
+                    .flatMap(lowerAccount -> (sourceId == targetId ? Mono.just(lowerAccount) : hotAccounts.lockForTransfer(Math.max(sourceId, targetId)))
+                            .flatMap(higherAccount -> {
+                                Account sourceAccount = (sourceId <= targetId ? lowerAccount : higherAccount).orElseThrow(() -> TransferValidator.accountNotFound(sourceId));
+                                Account targetAccount = (sourceId <= targetId ? higherAccount : lowerAccount).orElseThrow(() -> TransferValidator.accountNotFound(targetId));
+                                return apply(sourceAccount, targetAccount, amount, currency);
+                            }));
+        });
+    }
+
+    private Mono<Transaction> apply(Account sourceAccount, Account targetAccount, long amount, Currency currency) {
+        long sourceId = sourceAccount.getId();
+        long targetId = targetAccount.getId();
+
+        // Same account
+        TransferValidator.checkDistinctAccounts(sourceId, targetId);
+
+        // Invalid amount
+        TransferValidator.checkAmount(amount);
+
+        // Invalid currency
+        TransferValidator.checkCurrency(sourceAccount, targetAccount, currency);
+
+        // Insufficient balance, checked while debiting for hot accounts
+        if (!HotAccounts.isHot(sourceAccount)) {
+            TransferValidator.checkBalance(sourceAccount.getBalance(), amount);
+        }
+
+        // Balance overflow, failing before anything is written
+        if (!HotAccounts.isHot(targetAccount)) {
+            TransferValidator.checkCredit(targetAccount.getBalance(), amount);
+        }
+
+        // Update accounts
+        Mono<Void> debit = HotAccounts.isHot(sourceAccount)
+                ? hotAccounts.debit(sourceAccount, amount)
+                : accountRepository.addToBalance(sourceId, -amount);
+        Mono<Void> credit = HotAccounts.isHot(targetAccount)
+                ? hotAccounts.credit(targetAccount, amount)
+                : accountRepository.addToBalance(targetId, amount);
+        return debit.then(credit)
+                .then(transactionRepository.insert(sourceId, targetId, amount, currency))
+                .doOnNext(transaction -> logger.info("Transaction created: {}", transaction));
+    }
+}
@@ -0,0 +1,54 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.ReplicaProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * ReadYourWrites remembers the clients that changed data within the window, so that their reads are served by the
+ * primary until the replica has caught up with their changes. The requests of such a client are pinned to the primary
+ * on the thread that runs them.
+ */
+public class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(ReplicaProperties.ReadYourWrites properties) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumClients())
+                .expireAfterWrite(properties.getWindow())
+                .build();
+    }
+
+    /**
+     * @return Whether the request on the current thread reads from the primary, even inside read-only transactions.
+     */
+    public static boolean isPinned() {
+        return pinned.get() != null;
+    }
+
+    /**
+     * Starts the window of the client, or starts it again.
+     */
+    public void written(String client) {
+        recentWriters.put(client, Boolean.TRUE);
+    }
+
+    /**
+     * Pins the current thread to the primary if the client changed data within the window.
+     */
+    public void pin(String client) {
+        if (recentWriters.getIfPresent(client) != null) {
+            pinned.set(Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Takes the current thread back to the replica.
+     */
+    public void unpin() {
+        pinned.remove();
+    }
+}
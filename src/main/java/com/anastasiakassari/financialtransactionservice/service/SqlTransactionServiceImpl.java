@@ -0,0 +1,100 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.FinancialTransactionServiceException;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import com.anastasiakassari.financialtransactionservice.repository.TransferStatementRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+
+/**
+ * SqlTransactionServiceImpl applies each transfer with a single SQL statement instead of loading and saving the accounts
+ * through JPA, so a transfer costs one database round-trip while the account rows are locked.
+ * Selected with {@code fts.transaction.engine=sql}. Requests that fail the checks not needing the database, such as
+ * a transfer to the same account, take the JPA path, so that they are rejected exactly as before. So do transfers
+ * involving hot accounts, whose balance is split across slots.
+ */
+@Service
+@ConditionalOnProperty(name = "fts.transaction.engine", havingValue = "sql")
+public class SqlTransactionServiceImpl extends TransactionServiceImpl {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlTransactionServiceImpl.class);
+
+    private final TransferStatementRepository transferStatementRepository;
+    private final HotAccounts hotAccounts;
+    private final TransferMetrics transferMetrics;
+
+    public SqlTransactionServiceImpl(TransactionRepository transactionRepository, AccountRepository accountRepository,
+                                     BatchTransferProcessor batchTransferProcessor, TransferRetryExecutor transferRetryExecutor,
+                                     HotAccounts hotAccounts, TransferCoalescer transferCoalescer, AccountCache accountCache,
+                                     IdempotencyStore idempotencyStore, TransferMetrics transferMetrics,
+                                     TransactionArchive transactionArchive, EntityManager entityManager, ObjectMapper objectMapper,
+                                     TransferStatementRepository transferStatementRepository) {
+        super(transactionRepository, accountRepository, batchTransferProcessor, transferRetryExecutor, hotAccounts,
+                transferCoalescer, accountCache, idempotencyStore, transferMetrics, transactionArchive, entityManager, objectMapper);
+        this.transferStatementRepository = transferStatementRepository;
+        this.hotAccounts = hotAccounts;
+        this.transferMetrics = transferMetrics;
+    }
+
+    @Override
+    protected Transaction transfer(TransactionDTO dto) throws FinancialTransactionServiceException {
+        // Invalid params
+        TransferValidator.checkParameters(dto);
+
+        long sourceId = dto.getSourceAccountId();
+        long targetId = dto.getTargetAccountId();
+        long amount = dto.getAmount();
+        Currency currency = dto.getCurrency();
+        if (sourceId == targetId || amount <= 0 || hotAccounts.isKnownHot(sourceId) || hotAccounts.isKnownHot(targetId)) {
+            return super.transfer(dto);
+        }
+
+        TransferMetrics.Stopwatch stopwatch = transferMetrics.stopwatch();
+        Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+        TransferStatementRepository.Outcome outcome = transferStatementRepository.transfer(sourceId, targetId, amount, currency, createdAt);
+        stopwatch.lap(TransferMetrics.Phase.STATEMENT);
+        stopwatch.record();
+        logger.debug("Transfer outcome: {}", outcome);
+
+        if (outcome.transactionId() == null) {
+            // Hot account(s), not known to be hot before
+            if (outcome.hot()) {
+                return super.transfer(dto);
+            }
+
+            // Account(s) not found
+            if (outcome.sourceCurrency() == null) {
+                throw TransferValidator.accountNotFound(sourceId);
+            }
+            if (outcome.targetCurrency() == null) {
+                throw TransferValidator.accountNotFound(targetId);
+            }
+
+            // Invalid currency
+            TransferValidator.checkCurrency(Account.builder().currency(outcome.sourceCurrency()).build(),
+                    Account.builder().currency(outcome.targetCurrency()).build(), currency);
+
+            // Insufficient balance
+            TransferValidator.checkBalance(outcome.sourceBalance(), amount);
+            throw new IllegalStateException("Transfer was not applied: " + outcome);
+        }
+        if (outcome.movedAccounts() != 2) {
+            throw new IllegalStateException("Transfer updated " + outcome.movedAccounts() + " accounts: " + outcome);
+        }
+
+        Transaction transaction = new Transaction(outcome.transactionId(), sourceId, targetId, amount, currency, createdAt);
+        logger.info("Transaction created: {}", transaction);
+        return transaction;
+    }
+}
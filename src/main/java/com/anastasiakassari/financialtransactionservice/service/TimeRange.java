@@ -0,0 +1,37 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.exception.ExceptionMessage;
+import com.anastasiakassari.financialtransactionservice.exception.InvalidParametersException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * TimeRange holds the creation times the transactions of a query are filtered by, from its start inclusive to its end
+ * exclusive. An open bound is replaced by the earliest or latest time a transaction can be created at, so that the
+ * database still prunes the partitions outside the range.
+ */
+record TimeRange(Timestamp from, Timestamp to) {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeRange.class);
+
+    static final Timestamp EARLIEST = new Timestamp(0);
+    static final Timestamp LATEST = Timestamp.valueOf("9999-12-31 00:00:00");
+    static final TimeRange ALL = new TimeRange(EARLIEST, LATEST);
+
+    /**
+     * @param from The start of the range, or none to start from the first transaction.
+     * @param to   The end of the range, or none to end after the last transaction.
+     */
+    static TimeRange of(Instant from, Instant to) throws InvalidParametersException {
+        TimeRange range = new TimeRange(from == null ? EARLIEST : Timestamp.from(from), to == null ? LATEST : Timestamp.from(to));
+        if (!range.from().before(range.to())) {
+            String errorMessage = ExceptionMessage.INVALID_TIME_RANGE + from + " - " + to;
+            logger.error(errorMessage);
+            throw new InvalidParametersException(errorMessage);
+        }
+        return range;
+    }
+}
@@ -0,0 +1,225 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.ArchiveProperties;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionPartitionRepository;
+import com.anastasiakassari.financialtransactionservice.service.ArchiveSegment.Direction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * TransactionArchive moves the transactions of old months out of the database into {@link ArchiveSegment} files, one
+ * per month, and finds them there when the database no longer has them.
+ * <p>
+ * Every interval, the monthly partitions older than the age, attached to the transactions table or detached from it,
+ * are written to a segment and dropped. The partition is locked against changes while it is written, and dropped in
+ * the same transaction once its segment is on disk, so that a transaction is always either in the database or in the
+ * archive. A lookup by ID, or a history query, that misses in the database is then answered from the segments, which
+ * are opened at startup.
+ * <p>
+ * Enabled with {@code fts.archive.enabled=true}. Requires the transactions table to be partitioned, see
+ * {@link TransactionPartitions}.
+ */
+@Component
+public class TransactionArchive implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchive.class);
+
+    private final ArchiveProperties properties;
+    private final TransactionPartitionRepository partitionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final NavigableMap<YearMonth, ArchiveSegment> segments = new ConcurrentSkipListMap<>();
+
+    public TransactionArchive(ArchiveProperties properties, TransactionPartitionRepository partitionRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.partitionRepository = partitionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Opens the segments already archived, removing the ones left unfinished.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(Files.createDirectories(properties.getDirectory()))) {
+            for (Path file : files.sorted().toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(ArchiveSegment.TEMPORARY_SUFFIX)) {
+                    Files.delete(file);
+                    continue;
+                }
+                Optional<YearMonth> month = segmentMonth(name);
+                if (month.isPresent()) {
+                    segments.put(month.get(), ArchiveSegment.open(file));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the archive in " + properties.getDirectory(), e);
+        }
+        logger.info("Opened {} archive segments in {}", segments.size(), properties.getDirectory());
+    }
+
+    /**
+     * Archives the partitions of the months older than the age.
+     */
+    @Scheduled(fixedDelayString = "${fts.archive.interval:PT1H}")
+    public synchronized void archive() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!partitionRepository.isPartitioned()) {
+            logger.warn("The transactions table is not partitioned, so there is nothing to archive");
+            return;
+        }
+        // The partition of the previous month is created again by TransactionPartitions, so it is never archived
+        YearMonth oldest = TransactionPartitions.currentMonth().minusMonths(Math.max(properties.getAgeMonths(), 2) - 1L);
+        for (String partition : partitionRepository.findPartitionTables()) {
+            Optional<YearMonth> month = TransactionPartitionRepository.partitionMonth(partition).filter(oldest::isAfter);
+            if (month.isPresent()) {
+                try {
+                    archive(month.get(), partition);
+                } catch (RuntimeException e) {
+                    logger.error("Could not archive transaction partition {}: {}", partition, e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    private void archive(YearMonth month, String partition) {
+        Path path = properties.getDirectory().resolve(partition + ArchiveSegment.SUFFIX);
+        transactionTemplate.executeWithoutResult(status -> {
+            partitionRepository.lockPartition(partition);
+            try (ArchiveSegment.Writer writer = ArchiveSegment.writer(path, properties.getBlockSize())) {
+                partitionRepository.streamPartition(partition, writer::append);
+                ArchiveSegment segment = writer.finish();
+                partitionRepository.dropPartition(partition);
+                ArchiveSegment replaced = segments.put(month, segment);
+                if (replaced != null) {
+                    replaced.close();
+                }
+                logger.info("Archived {} transactions of partition {} to {}", writer.count(), partition, path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write archive segment " + path, e);
+            }
+        });
+    }
+
+    /**
+     * @return The archived transaction with the ID, if there is one.
+     */
+    Optional<Transaction> findById(long id) {
+        for (ArchiveSegment segment : segments.values()) {
+            if (id >= segment.firstId() && id <= segment.lastId()) {
+                Transaction transaction = segment.findById(id);
+                if (transaction != null) {
+                    return Optional.of(transaction);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Only reads the segments of the months in the range.
+     *
+     * @return The archived transactions of the account in the time range, ordered by ID.
+     */
+    List<Transaction> findByAccount(long accountId, Direction direction, TimeRange range) {
+        List<Transaction> transactions = new ArrayList<>();
+        if (segments.isEmpty()) {
+            return transactions;
+        }
+        YearMonth first = TransactionPartitions.month(range.from());
+        YearMonth last = TransactionPartitions.month(range.to());
+        for (ArchiveSegment segment : segments.subMap(first, true, last, true).values()) {
+            transactions.addAll(segment.findByAccount(accountId, direction, range.from().getTime(), range.to().getTime()));
+        }
+        transactions.sort(Comparator.comparing(Transaction::getId));
+        return transactions;
+    }
+
+    /**
+     * Adds the archived transactions of the account to the ones found in the database, ordered by ID. A transaction
+     * found in both, as the archive is written before the partition is dropped, is only included once.
+     */
+    List<Transaction> withArchived(List<Transaction> stored, long accountId, Direction direction, TimeRange range) {
+        List<Transaction> archived = findByAccount(accountId, direction, range);
+        if (archived.isEmpty()) {
+            return stored;
+        }
+        Map<Long, Transaction> merged = new TreeMap<>();
+        archived.forEach(transaction -> merged.put(transaction.getId(), transaction));
+        stored.forEach(transaction -> merged.put(transaction.getId(), transaction));
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Merges the archived transactions of the account into the ones streamed from the database, both ordered by ID.
+     * The segments are read on a thread that may block.
+     */
+    Flux<Transaction> withArchived(Flux<Transaction> stored, long accountId, Direction direction, TimeRange range) {
+        if (segments.isEmpty()) {
+            return stored;
+        }
+        Flux<Transaction> archived = Mono.fromCallable(() -> findByAccount(accountId, direction, range))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(transactions -> transactions);
+        return Flux.mergeComparing(Comparator.comparing(Transaction::getId), stored, archived)
+                .distinctUntilChanged(Transaction::getId);
+    }
+
+    /**
+     * Looks the transaction up in the archive, on a thread that may block.
+     */
+    Mono<Transaction> findByIdAsync(long id) {
+        if (segments.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> findById(id).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (ArchiveSegment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private static Optional<YearMonth> segmentMonth(String fileName) {
+        if (!fileName.endsWith(ArchiveSegment.SUFFIX)) {
+            return Optional.empty();
+        }
+        return TransactionPartitionRepository.partitionMonth(fileName.substring(0, fileName.length() - ArchiveSegment.SUFFIX.length()));
+    }
+}
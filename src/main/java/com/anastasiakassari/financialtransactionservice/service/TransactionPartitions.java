@@ -0,0 +1,118 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.TransactionPartitionProperties;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionPartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TransactionPartitions keeps the transactions table partitioned by month. Once the schema is created, before any
+ * transfer is applied, the table is replaced by a partitioned one if it is not partitioned yet. The partitions from the
+ * previous month to the months ahead are then created every maintenance interval, so that a transaction always has a
+ * partition to go to, and the partitions older than the retention are detached. The months are months in UTC,
+ * whatever the time zone of the application or the database.
+ * <p>
+ * Enabled with {@code fts.transaction.partitioning.enabled=true}. Replacing the table copies every row in one
+ * transaction, and the primary key of the partitioned table includes the creation time, so the database no longer
+ * enforces unique IDs on its own.
+ */
+@Component
+public class TransactionPartitions implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPartitions.class);
+
+    private final TransactionPartitionRepository partitionRepository;
+    private final TransactionPartitionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    public TransactionPartitions(TransactionPartitionRepository partitionRepository, TransactionPartitionProperties properties,
+                                 PlatformTransactionManager transactionManager) {
+        this.partitionRepository = partitionRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (partitionRepository.isPartitioned()) {
+                return;
+            }
+            YearMonth first = partitionRepository.findEarliestCreatedAt()
+                    .map(TransactionPartitions::month)
+                    .orElseGet(TransactionPartitions::currentMonth);
+            partitionRepository.partition(months(first));
+            logger.info("Partitioned the transactions table by month, from {}", first);
+        });
+        maintain();
+    }
+
+    /**
+     * Creates the partitions of the months ahead and detaches the partitions older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${fts.transaction.partitioning.maintenance-interval:PT1H}")
+    public void maintain() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        months(currentMonth().minusMonths(1)).forEach(partitionRepository::createPartition);
+        if (properties.getRetentionMonths() > 0) {
+            detachBefore(currentMonth().minusMonths(properties.getRetentionMonths() - 1L));
+        }
+    }
+
+    /**
+     * Detaches the partitions of the months before the specified one. Their rows leave the table at once, without
+     * being deleted, and stay in the database in tables named after their month.
+     *
+     * @return The names of the detached partitions.
+     */
+    List<String> detachBefore(YearMonth month) {
+        List<String> detached = new ArrayList<>();
+        for (String partition : partitionRepository.findPartitions()) {
+            if (TransactionPartitionRepository.partitionMonth(partition).filter(month::isAfter).isPresent()) {
+                partitionRepository.detachPartition(partition);
+                detached.add(partition);
+                logger.info("Detached transaction partition {}", partition);
+            }
+        }
+        return detached;
+    }
+
+    /**
+     * @return The months from the specified one to the last month ahead.
+     */
+    private List<YearMonth> months(YearMonth first) {
+        List<YearMonth> months = new ArrayList<>();
+        YearMonth last = currentMonth().plusMonths(properties.getMonthsAhead());
+        for (YearMonth month = first.isAfter(last) ? last : first; !month.isAfter(last); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    /**
+     * @return The month in UTC of the time, which is the month of its partition.
+     */
+    static YearMonth month(Timestamp time) {
+        return YearMonth.from(time.toInstant().atZone(ZoneOffset.UTC));
+    }
+
+    static YearMonth currentMonth() {
+        return YearMonth.now(ZoneOffset.UTC);
+    }
+}
@@ -1,15 +1,30 @@
 package com.anastasiakassari.financialtransactionservice.service;
 
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
 import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
 import com.anastasiakassari.financialtransactionservice.model.Transaction;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
 import java.util.List;
 
 public interface TransactionService {
 
     List<Transaction> getTransactions();
 
+    PageDTO<Transaction> getTransactions(String cursor, Integer limit);
+
+    PageDTO<Transaction> getTransactions(String cursor, Integer limit, Instant from, Instant to);
+
+    void exportTransactions(OutputStream outputStream) throws IOException;
+
     Transaction getTransactionById(Long id);
 
     Transaction createTransaction(TransactionDTO transaction);
+
+    Transaction createTransaction(TransactionDTO transaction, String idempotencyKey);
+
+    List<BatchTransactionResultDTO> createTransactions(List<TransactionDTO> transactions);
 }
@@ -1,5 +1,7 @@
 package com.anastasiakassari.financialtransactionservice.service;
 
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
 import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
 import com.anastasiakassari.financialtransactionservice.exception.*;
 import com.anastasiakassari.financialtransactionservice.model.Account;
@@ -7,29 +9,72 @@ import com.anastasiakassari.financialtransactionservice.model.Currency;
 import com.anastasiakassari.financialtransactionservice.model.Transaction;
 import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
 import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 
 @Service
+@ConditionalOnProperty(name = "fts.transaction.engine", havingValue = "jpa", matchIfMissing = true)
 public class TransactionServiceImpl implements TransactionService {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionServiceImpl.class);
 
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final BatchTransferProcessor batchTransferProcessor;
+    private final TransferRetryExecutor transferRetryExecutor;
+    private final HotAccounts hotAccounts;
+    private final TransferCoalescer transferCoalescer;
+    private final AccountCache accountCache;
+    private final IdempotencyStore idempotencyStore;
+    private final TransferMetrics transferMetrics;
+    private final TransactionArchive transactionArchive;
+    private final EntityManager entityManager;
+    private final ObjectWriter transactionWriter;
 
-    public TransactionServiceImpl(TransactionRepository transactionRepository, AccountRepository accountRepository) {
+    public TransactionServiceImpl(TransactionRepository transactionRepository, AccountRepository accountRepository,
+                                  BatchTransferProcessor batchTransferProcessor, TransferRetryExecutor transferRetryExecutor,
+                                  HotAccounts hotAccounts, TransferCoalescer transferCoalescer, AccountCache accountCache,
+                                  IdempotencyStore idempotencyStore, TransferMetrics transferMetrics,
+                                  TransactionArchive transactionArchive, EntityManager entityManager, ObjectMapper objectMapper) {
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
+        this.batchTransferProcessor = batchTransferProcessor;
+        this.transferRetryExecutor = transferRetryExecutor;
+        this.hotAccounts = hotAccounts;
+        this.transferCoalescer = transferCoalescer;
+        this.accountCache = accountCache;
+        this.idempotencyStore = idempotencyStore;
+        this.transferMetrics = transferMetrics;
+        this.transactionArchive = transactionArchive;
+        this.entityManager = entityManager;
+        this.transactionWriter = objectMapper.writerFor(Transaction.class);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactions() {
         List<Transaction> transactions = new ArrayList<>();
         transactionRepository.findAll().forEach(transactions::add);
@@ -38,9 +83,52 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public PageDTO<Transaction> getTransactions(String cursor, Integer limit) throws InvalidParametersException {
+        logger.debug("Retrieving transactions page after cursor: {}, limit: {}", cursor, limit);
+        Pageable pageable = CursorPagination.pageable(limit);
+        List<Transaction> transactions = transactionRepository.findByIdGreaterThanOrderByIdAsc(CursorPagination.afterId(cursor), pageable);
+        return CursorPagination.page(transactions, pageable, Transaction::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<Transaction> getTransactions(String cursor, Integer limit, Instant from, Instant to) throws InvalidParametersException {
+        logger.debug("Retrieving transactions page after cursor: {}, limit: {}, created from {} to {}", cursor, limit, from, to);
+        Pageable pageable = CursorPagination.pageable(limit);
+        TimeRange range = TimeRange.of(from, to);
+        List<Transaction> transactions = transactionRepository.findByIdGreaterThanAndCreatedAtGreaterThanEqualAndCreatedAtLessThanOrderByIdAsc(
+                CursorPagination.afterId(cursor), range.from(), range.to(), pageable);
+        return CursorPagination.page(transactions, pageable, Transaction::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTransactions(OutputStream outputStream) throws IOException {
+        logger.debug("Exporting all transactions");
+        long count = 0;
+        OutputStream out = new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+        try (Stream<Transaction> transactions = transactionRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                out.write(transactionWriter.writeValueAsBytes(transaction));
+                out.write('\n');
+                // Keep the persistence context from growing with the ledger
+                entityManager.detach(transaction);
+                count++;
+            }
+        }
+        out.flush();
+        logger.info("Exported all transactions. Count: {}", count);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Transaction getTransactionById(Long id) throws TransactionNotFoundException {
         logger.debug("Retrieving transaction with ID: {}", id);
         return transactionRepository.findById(id)
+                .or(() -> transactionArchive.findById(id))
                 .orElseThrow(() -> {
                     String errorMessage = ExceptionMessage.TRANSACTION_NOT_FOUND + " with ID: " + id;
                     logger.error(errorMessage);
@@ -49,82 +137,146 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
     public Transaction createTransaction(TransactionDTO dto) throws FinancialTransactionServiceException {
         logger.debug("Creating transaction with DTO: {}", dto);
+        return transferMetrics.countOutcome(() -> {
+            if (transferCoalescer.isRunning()) {
+                return await(transferCoalescer.submit(dto));
+            }
+            Transaction transaction = transferRetryExecutor.execute(() -> transfer(dto));
+            accountCache.evictAfterCommit(List.of(transaction.getSourceAccountId(), transaction.getTargetAccountId()));
+            return transaction;
+        });
+    }
 
-        // Invalid params
-        if (dto.getSourceAccountId() == null || dto.getTargetAccountId() == null || dto.getAmount() == null || dto.getCurrency() == null) {
-            String errorMessage = ExceptionMessage.MISSING_PARAMETER;
-            logger.error(errorMessage);
-            throw new MissingParameterException(errorMessage);
+    /**
+     * Creates the transaction unless one was already created with the same idempotency key, in which case that one is
+     * returned. The key is stored in the same database transaction as the transfer, so a transfer is never applied
+     * without its key. Requests with a key are not coalesced, as the key has to commit with its own transfer.
+     */
+    @Override
+    public Transaction createTransaction(TransactionDTO dto, String idempotencyKey) throws FinancialTransactionServiceException {
+        logger.debug("Creating transaction with DTO: {}, idempotency key: {}", dto, idempotencyKey);
+        return transferMetrics.countOutcome(() -> idempotencyStore.execute(idempotencyKey, dto, () -> {
+            try {
+                Transaction transaction = transferRetryExecutor.execute(() -> {
+                    Transaction created = transfer(dto);
+                    idempotencyStore.save(idempotencyKey, dto, created);
+                    return created;
+                });
+                accountCache.evictAfterCommit(List.of(transaction.getSourceAccountId(), transaction.getTargetAccountId()));
+                return transaction;
+            } catch (DuplicateKeyException e) {
+                // Another instance stored the key first and its transfer stands instead
+                return idempotencyStore.find(idempotencyKey, dto).orElseThrow(() -> e);
+            }
+        }));
+    }
+
+    /**
+     * Waits for a transfer applied by another thread, rethrowing the exception it failed with.
+     */
+    static Transaction await(CompletableFuture<Transaction> transaction) {
+        try {
+            return transaction.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
+    }
+
+    /**
+     * Applies the transfer inside the current database transaction.
+     * Both account rows are locked in ascending ID order, so that concurrent transfers between the same accounts wait
+     * for each other instead of deadlocking. The balance of a hot account is moved through its slots instead.
+     * <p>
+     * The phases of the transfer are timed by {@link TransferMetrics}. The accounts are loaded by the statements that
+     * lock them, so the account load includes the wait for the row locks. The changed accounts and the transaction are
+     * written when the session is flushed, which is timed as part of the commit.
+     */
+    protected Transaction transfer(TransactionDTO dto) throws FinancialTransactionServiceException {
+        TransferMetrics.Stopwatch stopwatch = transferMetrics.stopwatch();
+        try {
+            return transfer(dto, stopwatch);
+        } finally {
+            stopwatch.record();
+        }
+    }
+
+    private Transaction transfer(TransactionDTO dto, TransferMetrics.Stopwatch stopwatch) throws FinancialTransactionServiceException {
+        // Invalid params
+        TransferValidator.checkParameters(dto);
+        stopwatch.lap(TransferMetrics.Phase.VALIDATION);
 
         long sourceId = dto.getSourceAccountId();
         long targetId = dto.getTargetAccountId();
-        double amount = dto.getAmount();
+        long amount = dto.getAmount();
         Currency currency = dto.getCurrency();
 
         // Account(s) not found
-        Account sourceAccount = accountRepository.findById(sourceId).orElseThrow(() -> {
-            String errorMessage = ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: " + sourceId;
-            logger.error(errorMessage);
-            return new AccountNotFoundException(errorMessage);
-        });
-        Account targetAccount = accountRepository.findById(targetId).orElseThrow(() -> {
-            String errorMessage = ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: " + targetId;
-            logger.error(errorMessage);
-            return new AccountNotFoundException(errorMessage);
-        });
+        Optional<Account> lowerAccount = hotAccounts.lockForTransfer(Math.min(sourceId, targetId));
+        Optional<Account> higherAccount = sourceId == targetId ? lowerAccount : hotAccounts.lockForTransfer(Math.max(sourceId, targetId));
+        stopwatch.lap(TransferMetrics.Phase.ACCOUNT_LOAD);
+        Account sourceAccount = (sourceId <= targetId ? lowerAccount : higherAccount).orElseThrow(() -> TransferValidator.accountNotFound(sourceId));
+        Account targetAccount = (sourceId <= targetId ? higherAccount : lowerAccount).orElseThrow(() -> TransferValidator.accountNotFound(targetId));
         logger.debug("SourceAccount: {}", sourceAccount);
         logger.debug("TargetAccount: {}", targetAccount);
 
         // Same account
-        if (sourceAccount.equals(targetAccount)) {
-            String errorMessage = ExceptionMessage.SAME_ACCOUNT;
-            logger.error(errorMessage);
-            throw new SameAccountException(errorMessage);
-        }
+        TransferValidator.checkDistinctAccounts(sourceId, targetId);
 
         // Invalid amount
-        if (amount <= 0) {
-            String errorMessage = ExceptionMessage.INVALID_AMOUNT + amount;
-            logger.error(errorMessage);
-            throw new InvalidAmountException(ExceptionMessage.INVALID_AMOUNT);
-        }
+        TransferValidator.checkAmount(amount);
 
         // Invalid currency
-        if (!sourceAccount.getCurrency().equals(currency) || !targetAccount.getCurrency().equals(currency)) {
-            String errorMessage = ExceptionMessage.INVALID_CURRENCY + currency;
-            logger.error(errorMessage);
-            throw new InvalidCurrencyException(ExceptionMessage.INVALID_CURRENCY);
+        TransferValidator.checkCurrency(sourceAccount, targetAccount, currency);
+
+        // Insufficient balance, checked while debiting for hot accounts
+        if (!HotAccounts.isHot(sourceAccount)) {
+            TransferValidator.checkBalance(sourceAccount.getBalance(), amount);
         }
 
-        // Insufficient balance
-        double currentBalanceSource = sourceAccount.getBalance();
-        if (currentBalanceSource < amount) {
-            String errorMessage = ExceptionMessage.INSUFFICIENT_BALANCE + currentBalanceSource + " < " + amount;
-            logger.error(errorMessage);
-            throw new InsufficientBalanceException(ExceptionMessage.INSUFFICIENT_BALANCE);
+        // Balance overflow
+        if (!HotAccounts.isHot(targetAccount)) {
+            TransferValidator.checkCredit(targetAccount.getBalance(), amount);
         }
-        double currentBalanceTarget = targetAccount.getBalance();
+        stopwatch.lap(TransferMetrics.Phase.VALIDATION);
 
         Transaction transaction = new Transaction();
         transaction.setSourceAccountId(sourceId);
         transaction.setTargetAccountId(targetId);
         transaction.setAmount(amount);
         transaction.setCurrency(currency);
+        transaction.setCreatedAt(new Timestamp(System.currentTimeMillis()));
         logger.debug("Transaction: {}", transaction);
 
         // Update accounts
-        sourceAccount.setBalance(currentBalanceSource - amount);
-        targetAccount.setBalance(currentBalanceTarget + amount);
+        if (HotAccounts.isHot(sourceAccount)) {
+            hotAccounts.debit(sourceAccount, amount);
+        } else {
+            sourceAccount.setBalance(sourceAccount.getBalance() - amount);
+            accountRepository.save(sourceAccount);
+        }
+        if (HotAccounts.isHot(targetAccount)) {
+            hotAccounts.credit(targetAccount, amount);
+        } else {
+            targetAccount.setBalance(targetAccount.getBalance() + amount);
+            accountRepository.save(targetAccount);
+        }
         logger.debug("Updated accounts: {}, {}", sourceAccount, targetAccount);
+        stopwatch.lap(TransferMetrics.Phase.UPDATE);
 
-        accountRepository.save(sourceAccount);
-        accountRepository.save(targetAccount);
         transaction = transactionRepository.save(transaction);
+        stopwatch.lap(TransferMetrics.Phase.INSERT);
         logger.info("Transaction created: {}", transaction);
         return transaction;
     }
+
+    @Override
+    public List<BatchTransactionResultDTO> createTransactions(List<TransactionDTO> dtos) throws FinancialTransactionServiceException {
+        logger.debug("Creating batch of transactions. Count: {}", dtos == null ? 0 : dtos.size());
+        return batchTransferProcessor.process(dtos);
+    }
 }
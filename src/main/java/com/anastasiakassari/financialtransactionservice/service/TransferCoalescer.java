@@ -0,0 +1,157 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.TransferCoalescingProperties;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransferCoalescer collects single transfers requested concurrently and applies them together, one database transaction
+ * per batch, so that the cost of a commit is shared by the whole batch. Each worker takes the next waiting transfer and
+ * then waits up to the window for more, until the batch is full. An invalid transfer fails on its own without aborting
+ * the rest of its batch.
+ * Enabled with {@code fts.transfer.coalescing.enabled=true}, for the {@code jpa} and {@code sql} engines. The in-memory
+ * engine batches its writes by itself.
+ */
+@Component
+public class TransferCoalescer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferCoalescer.class);
+
+    private final BatchTransferProcessor batchTransferProcessor;
+    private final TransferCoalescingProperties properties;
+    private final BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public TransferCoalescer(BatchTransferProcessor batchTransferProcessor, TransferCoalescingProperties properties) {
+        this.batchTransferProcessor = batchTransferProcessor;
+        this.properties = properties;
+    }
+
+    /**
+     * Queues a transfer for the next batch. Must only be called while the coalescer is running.
+     *
+     * @return The created transaction, once its batch is committed.
+     */
+    CompletableFuture<Transaction> submit(TransactionDTO dto) {
+        CompletableFuture<Transaction> result = new CompletableFuture<>();
+        requests.add(new Request(dto, result));
+        return result;
+    }
+
+    private void runWorker() {
+        while (running || !requests.isEmpty()) {
+            List<Request> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!batch.isEmpty()) {
+                apply(batch);
+            }
+        }
+    }
+
+    private List<Request> nextBatch() throws InterruptedException {
+        List<Request> batch = new ArrayList<>(properties.getMaxBatchSize());
+        Request first = requests.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + properties.getWindow().toNanos();
+        while (batch.size() < properties.getMaxBatchSize()) {
+            requests.drainTo(batch, properties.getMaxBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= properties.getMaxBatchSize() || remaining <= 0) {
+                break;
+            }
+            Request next = requests.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void apply(List<Request> batch) {
+        try {
+            List<BatchTransferProcessor.Outcome> outcomes = batchTransferProcessor.processTogether(
+                    batch.stream().map(Request::dto).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                BatchTransferProcessor.Outcome outcome = outcomes.get(i);
+                if (outcome.error() == null) {
+                    logger.info("Transaction created: {}", outcome.transaction());
+                    batch.get(i).result().complete(outcome.transaction());
+                } else {
+                    batch.get(i).result().completeExceptionally(outcome.error());
+                }
+            }
+            logger.debug("Applied coalesced batch of {} transfers", batch.size());
+        } catch (RuntimeException e) {
+            logger.error("Error occurred while applying a coalesced batch of {} transfers: {}", batch.size(), e.getMessage());
+            batch.forEach(request -> request.result().completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            Thread worker = new Thread(this::runWorker, "transfer-coalescer-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        logger.info("Transfer coalescing started. Window: {}, max batch size: {}", properties.getWindow(),
+                properties.getMaxBatchSize());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+        // Fail whatever arrived after the workers stopped
+        Request request;
+        while ((request = requests.poll()) != null) {
+            request.result().completeExceptionally(new IllegalStateException("Transfer coalescing is stopped"));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before and stop after the web server, so that requests in flight are still served
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private record Request(TransactionDTO dto, CompletableFuture<Transaction> result) {
+    }
+}
@@ -0,0 +1,253 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.IdempotencyKey;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * TransferJournal is an append-only log of the transfers applied by the {@link InMemoryLedger}, written to memory-mapped
+ * segment files before the transfers are acknowledged. Entries are appended to the mapped segment as the transfers are
+ * applied and forced to disk once per batch, so a single fsync covers every transfer of the batch.
+ * <p>
+ * Every entry is its payload length and a CRC32C checksum of its payload, followed by the sequence number of the entry
+ * and the transaction. The creation time of the transaction comes next, entries written without it are recovered with
+ * the time of the recovery. The idempotency key of the transfer, if it has one, ends the entry. A segment ends at the
+ * first entry of length zero, or at the first entry whose checksum does not match, which is where a write was torn by a
+ * crash. Once all entries of a segment are written to the database, the segment is deleted.
+ * <p>
+ * Entries are appended and synced by a single thread. Segments may be released from any thread.
+ */
+final class TransferJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferJournal.class);
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int FIXED_PAYLOAD_SIZE = 5 * Long.BYTES + Byte.BYTES;
+    // A key of the maximum length, in characters of up to three bytes
+    private static final int MAX_KEY_SIZE = Short.BYTES + 3 * IdempotencyKey.MAX_LENGTH;
+    private static final int MAX_PAYLOAD_SIZE = FIXED_PAYLOAD_SIZE + Byte.MAX_VALUE + Long.BYTES + MAX_KEY_SIZE;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Deque<Segment> closedSegments = new ConcurrentLinkedDeque<>();
+    private final List<Path> recoveredSegments = new ArrayList<>();
+    private volatile long releasedSequence;
+
+    // Only touched by the appending thread
+    private final CRC32C checksum = new CRC32C();
+    private Path segmentPath;
+    private long segmentFirstSequence;
+    private MappedByteBuffer buffer;
+    private int syncedPosition;
+    private long nextSequence = 1;
+
+    TransferJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < HEADER_SIZE + MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Reads the transactions left in the journal by a previous run, in the order they were applied.
+     * The segments read are deleted by {@link #discardRecovered()}, once the transactions are written to the database.
+     */
+    List<Entry> recover() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Path segment : segments) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                readSegment(segment, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), entries);
+            }
+            recoveredSegments.add(segment);
+        }
+        return entries;
+    }
+
+    private void readSegment(Path segment, ByteBuffer buffer, List<Entry> entries) {
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length == 0) {
+                return;
+            }
+            int expectedChecksum = buffer.getInt();
+            if (length < FIXED_PAYLOAD_SIZE || length > MAX_PAYLOAD_SIZE || length > buffer.remaining()
+                    || expectedChecksum != checksum(buffer, buffer.position(), length)) {
+                logger.warn("Journal segment {} ends with a torn entry at offset {}", segment.getFileName(), start);
+                return;
+            }
+            int end = buffer.position() + length;
+            long sequence = buffer.getLong();
+            Transaction transaction = new Transaction(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(), null);
+            byte[] currency = new byte[buffer.get()];
+            buffer.get(currency);
+            transaction.setCurrency(Currency.valueOf(new String(currency, StandardCharsets.US_ASCII)));
+            if (end - buffer.position() >= Long.BYTES) {
+                transaction.setCreatedAt(new Timestamp(buffer.getLong()));
+            }
+            String idempotencyKey = null;
+            if (end - buffer.position() >= Short.BYTES) {
+                byte[] key = new byte[buffer.getShort()];
+                buffer.get(key);
+                idempotencyKey = new String(key, StandardCharsets.UTF_8);
+            }
+            buffer.position(end);
+            entries.add(new Entry(transaction, idempotencyKey));
+            nextSequence = Math.max(nextSequence, sequence + 1);
+        }
+    }
+
+    /**
+     * Deletes the segments read by {@link #recover()}.
+     */
+    void discardRecovered() throws IOException {
+        for (Path segment : recoveredSegments) {
+            Files.deleteIfExists(segment);
+        }
+        recoveredSegments.clear();
+        releasedSequence = nextSequence - 1;
+    }
+
+    /**
+     * Appends a transaction to the current segment, rolling over to a new segment if it does not fit.
+     * The entry is not durable until the next {@link #sync()}.
+     *
+     * @return The sequence number of the entry.
+     */
+    long append(Transaction transaction) {
+        return append(transaction, null);
+    }
+
+    /**
+     * Appends a transaction with the idempotency key of its transfer, which may be null.
+     *
+     * @return The sequence number of the entry.
+     */
+    long append(Transaction transaction, String idempotencyKey) {
+        byte[] currency = transaction.getCurrency().name().getBytes(StandardCharsets.US_ASCII);
+        byte[] key = idempotencyKey == null ? null : idempotencyKey.getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_PAYLOAD_SIZE + currency.length + Long.BYTES + (key == null ? 0 : Short.BYTES + key.length);
+        if (buffer == null || buffer.remaining() < HEADER_SIZE + length) {
+            roll();
+        }
+
+        long sequence = nextSequence++;
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.putLong(sequence);
+        buffer.putLong(transaction.getId());
+        buffer.putLong(transaction.getSourceAccountId());
+        buffer.putLong(transaction.getTargetAccountId());
+        buffer.putLong(transaction.getAmount());
+        buffer.put((byte) currency.length);
+        buffer.put(currency);
+        buffer.putLong(transaction.getCreatedAt().getTime());
+        if (key != null) {
+            buffer.putShort((short) key.length);
+            buffer.put(key);
+        }
+        buffer.putInt(start + Integer.BYTES, checksum(buffer, start + HEADER_SIZE, length));
+        buffer.putInt(start, length);
+        return sequence;
+    }
+
+    /**
+     * Forces the entries appended since the last sync to disk.
+     */
+    void sync() {
+        if (buffer == null || buffer.position() == syncedPosition) {
+            return;
+        }
+        buffer.force(syncedPosition, buffer.position() - syncedPosition);
+        syncedPosition = buffer.position();
+    }
+
+    /**
+     * Marks the entries up to the specified sequence number as written to the database, and deletes the closed
+     * segments that hold no other entries.
+     */
+    synchronized void release(long sequence) {
+        releasedSequence = Math.max(releasedSequence, sequence);
+        while (!closedSegments.isEmpty() && closedSegments.peekFirst().lastSequence() <= releasedSequence) {
+            Segment segment = closedSegments.pollFirst();
+            try {
+                Files.deleteIfExists(segment.path());
+            } catch (IOException e) {
+                logger.error("Could not delete journal segment {}: {}", segment.path().getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private void roll() {
+        if (buffer != null) {
+            sync();
+            closedSegments.addLast(new Segment(segmentPath, segmentFirstSequence, nextSequence - 1));
+            release(releasedSequence);
+        }
+        segmentFirstSequence = nextSequence;
+        segmentPath = directory.resolve(String.format("%020d%s", segmentFirstSequence, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create journal segment " + segmentPath, e);
+        }
+        syncedPosition = 0;
+        logger.debug("Journal rolled over to segment {}", segmentPath.getFileName());
+    }
+
+    private int checksum(ByteBuffer buffer, int offset, int length) {
+        checksum.reset();
+        checksum.update(buffer.slice(offset, length));
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Syncs the current segment, and deletes it too if all of its entries are written to the database.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        sync();
+        closedSegments.addLast(new Segment(segmentPath, segmentFirstSequence, nextSequence - 1));
+        buffer = null;
+        release(releasedSequence);
+    }
+
+    /**
+     * A journaled transaction, with the idempotency key of its transfer if it has one.
+     */
+    record Entry(Transaction transaction, String idempotencyKey) {
+    }
+
+    private record Segment(Path path, long firstSequence, long lastSequence) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.exception.FinancialTransactionServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * TransferMetrics times the phases of a transfer in {@code fts.transfer.phase}, tagged with the phase, and counts the
+ * created transfers in {@code fts.transfer.outcome}, tagged with {@code success} or the simple name of the exception
+ * the transfer was rejected with. The percentiles of the phases are configured under
+ * {@code management.metrics.distribution}.
+ */
+@Component
+public class TransferMetrics {
+
+    static final String SUCCESS = "success";
+    /**
+     * The outcome of transfers that failed with an exception not thrown by the service, such as a database error.
+     */
+    static final String ERROR = "error";
+
+    enum Phase {
+        VALIDATION, ACCOUNT_LOAD, UPDATE, INSERT, COMMIT,
+        /**
+         * The single statement of the {@code sql} engine, which loads, updates and inserts in one round-trip.
+         */
+        STATEMENT;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Map<String, Counter> outcomeCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public TransferMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("fts.transfer.phase")
+                    .description("Time spent by a transfer in each of its phases")
+                    .tag("phase", phase.tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @return A stopwatch for the phases of a single transfer, to be used by one thread.
+     */
+    Stopwatch stopwatch() {
+        return new Stopwatch();
+    }
+
+    /**
+     * Runs the transfer, counting its outcome.
+     */
+    <T> T countOutcome(Supplier<T> transfer) {
+        try {
+            T result = transfer.get();
+            outcome(SUCCESS).increment();
+            return result;
+        } catch (RuntimeException e) {
+            outcome(e).increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Counts the outcome of a reactive transfer when it completes.
+     */
+    <T> Mono<T> countOutcome(Mono<T> transfer) {
+        return transfer
+                .doOnSuccess(result -> outcome(SUCCESS).increment())
+                .doOnError(e -> outcome(e).increment());
+    }
+
+    Counter outcome(Throwable e) {
+        return outcome(e instanceof FinancialTransactionServiceException ? e.getClass().getSimpleName() : ERROR);
+    }
+
+    Counter outcome(String outcome) {
+        return outcomeCounters.computeIfAbsent(outcome, tag -> Counter.builder("fts.transfer.outcome")
+                .description("Transfers by outcome, either success or the exception they were rejected with")
+                .tag("outcome", tag)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Stopwatch adds the time since its last lap to the phase the lap ends, so that a phase interrupted by another one
+     * is still recorded once per transfer.
+     */
+    class Stopwatch {
+
+        private final long[] nanos = new long[Phase.values().length];
+        private long lapStart = System.nanoTime();
+
+        void lap(Phase phase) {
+            long now = System.nanoTime();
+            nanos[phase.ordinal()] += now - lapStart;
+            lapStart = now;
+        }
+
+        /**
+         * Records the phases lapped so far, and times the commit of the current database transaction once it has
+         * committed. The commit includes the flush of the entities changed by the transfer.
+         */
+        void record() {
+            for (Phase phase : Phase.values()) {
+                if (nanos[phase.ordinal()] > 0) {
+                    phaseTimers.get(phase).record(nanos[phase.ordinal()], TimeUnit.NANOSECONDS);
+                }
+            }
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                private boolean committing;
+                private long commitStart;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    committing = true;
+                    commitStart = System.nanoTime();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED && committing) {
+                        phaseTimers.get(Phase.COMMIT).record(System.nanoTime() - commitStart, TimeUnit.NANOSECONDS);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.TransferRetryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * TransferRetryExecutor runs transfers in READ COMMITTED database transactions and retries the ones that fail with a
+ * transient error, such as a deadlock or a lock timeout, with a bounded exponential backoff and full jitter.
+ * The retries are counted in {@code fts.transfer.retries} and the transfers that still fail after the last attempt in
+ * {@code fts.transfer.retries.exhausted}.
+ */
+@Component
+public class TransferRetryExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferRetryExecutor.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransferRetryProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Counter exhaustedCounter;
+
+    public TransferRetryExecutor(PlatformTransactionManager transactionManager, TransferRetryProperties properties, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.exhaustedCounter = Counter.builder("fts.transfer.retries.exhausted")
+                .description("Transfers that failed with a transient database error on every attempt")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the transfer in a new database transaction, retrying it on transient failures.
+     * When a transaction is already active the transfer joins it and is not retried, as the outer transaction is lost.
+     *
+     * @param transfer The transfer to run.
+     * @return The result of the transfer.
+     */
+    public <T> T execute(Supplier<T> transfer) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transfer.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> transfer.get());
+            } catch (TransientDataAccessException e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    exhaustedCounter.increment();
+                    logger.error("Transfer failed after {} attempts: {}", attempt, e.getMessage());
+                    throw e;
+                }
+                meterRegistry.counter("fts.transfer.retries", "exception", e.getClass().getSimpleName()).increment();
+                logger.warn("Retrying transfer after attempt {} failed: {}", attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long backoff = backoffMillis(properties, attempt);
+        if (backoff <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry the transfer", e);
+        }
+    }
+
+    /**
+     * @return A random delay between zero and the backoff of the attempt, which doubles with every attempt up to the maximum.
+     */
+    static long backoffMillis(TransferRetryProperties properties, int attempt) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        long backoff = Math.min(max, initial << Math.min(attempt - 1, 20));
+        return backoff <= 0 ? 0 : ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+}
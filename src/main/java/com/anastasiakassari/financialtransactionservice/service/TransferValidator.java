@@ -0,0 +1,79 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.*;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TransferValidator holds the checks a transfer between two accounts has to pass, so that every transfer path rejects
+ * invalid transfers with the same exceptions and messages.
+ */
+final class TransferValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferValidator.class);
+
+    private TransferValidator() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static void checkParameters(TransactionDTO dto) throws MissingParameterException {
+        if (dto == null || dto.getSourceAccountId() == null || dto.getTargetAccountId() == null || dto.getAmount() == null || dto.getCurrency() == null) {
+            String errorMessage = ExceptionMessage.MISSING_PARAMETER;
+            logger.error(errorMessage);
+            throw new MissingParameterException(errorMessage);
+        }
+    }
+
+    static AccountNotFoundException accountNotFound(long id) {
+        String errorMessage = ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: " + id;
+        logger.error(errorMessage);
+        return new AccountNotFoundException(errorMessage);
+    }
+
+    static void checkDistinctAccounts(long sourceId, long targetId) throws SameAccountException {
+        if (sourceId == targetId) {
+            String errorMessage = ExceptionMessage.SAME_ACCOUNT;
+            logger.error(errorMessage);
+            throw new SameAccountException(errorMessage);
+        }
+    }
+
+    static void checkAmount(long amount) throws InvalidAmountException {
+        if (amount <= 0) {
+            String errorMessage = ExceptionMessage.INVALID_AMOUNT + amount;
+            logger.error(errorMessage);
+            throw new InvalidAmountException(ExceptionMessage.INVALID_AMOUNT);
+        }
+    }
+
+    static void checkCurrency(Account sourceAccount, Account targetAccount, Currency currency) throws InvalidCurrencyException {
+        if (!sourceAccount.getCurrency().equals(currency) || !targetAccount.getCurrency().equals(currency)) {
+            String errorMessage = ExceptionMessage.INVALID_CURRENCY + currency;
+            logger.error(errorMessage);
+            throw new InvalidCurrencyException(ExceptionMessage.INVALID_CURRENCY);
+        }
+    }
+
+    /**
+     * Checks that crediting the amount does not overflow the balance of the target account, before anything is written,
+     * so that an overflowing transfer fails on its own like any other invalid transfer.
+     */
+    static void checkCredit(long balance, long amount) throws InvalidAmountException {
+        if (balance > Long.MAX_VALUE - amount) {
+            String errorMessage = ExceptionMessage.BALANCE_OVERFLOW + ": " + balance + " + " + amount;
+            logger.error(errorMessage);
+            throw new InvalidAmountException(ExceptionMessage.BALANCE_OVERFLOW);
+        }
+    }
+
+    static void checkBalance(long balance, long amount) throws InsufficientBalanceException {
+        if (balance < amount) {
+            String errorMessage = ExceptionMessage.INSUFFICIENT_BALANCE + balance + " < " + amount;
+            logger.error(errorMessage);
+            throw new InsufficientBalanceException(ExceptionMessage.INSUFFICIENT_BALANCE);
+        }
+    }
+}
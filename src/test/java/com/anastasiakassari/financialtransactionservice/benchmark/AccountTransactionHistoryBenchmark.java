@@ -0,0 +1,104 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.service.AccountService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the latency of the per-account transaction history queries while the transactions table grows, to check
+ * that they are served by the account indexes instead of scanning the whole table.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+class AccountTransactionHistoryBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountTransactionHistoryBenchmark.class);
+
+    private static final long ACCOUNT_ID = 900_000_001L;
+    private static final long OTHER_ACCOUNT_ID = 900_000_002L;
+    private static final int ACCOUNT_TRANSACTIONS = 20;
+    private static final int[] TABLE_SIZES = {10_000, 100_000, 1_000_000};
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Test
+    void historyLatencyStaysFlatAsTableGrows() {
+        jdbcTemplate.update("DELETE FROM transactions WHERE source_account_id = ? OR target_account_id = ?", ACCOUNT_ID, ACCOUNT_ID);
+        for (int i = 0; i < ACCOUNT_TRANSACTIONS; i++) {
+            jdbcTemplate.update("INSERT INTO transactions (id, source_account_id, target_account_id, amount, currency) VALUES (nextval('transactions_seq'), ?, ?, 100, 'EUR')",
+                    i % 2 == 0 ? ACCOUNT_ID : OTHER_ACCOUNT_ID, i % 2 == 0 ? OTHER_ACCOUNT_ID : ACCOUNT_ID);
+        }
+
+        Map<Integer, Long> medians = new LinkedHashMap<>();
+        long rows = countRows();
+        for (int size : TABLE_SIZES) {
+            if (rows < size) {
+                seed(size - rows);
+                rows = size;
+            }
+            medians.put(size, medianNanos());
+        }
+
+        medians.forEach((size, median) -> logger.info("Account history over {} rows: median {} us", size, median / 1_000));
+        long smallest = medians.get(TABLE_SIZES[0]);
+        long largest = medians.get(TABLE_SIZES[TABLE_SIZES.length - 1]);
+        // A full scan grows a hundredfold between the smallest and the largest table, an index lookup does not
+        assertTrue(largest < smallest * 5 + 2_000_000, "History latency grew from " + smallest + " ns to " + largest + " ns");
+    }
+
+    private long countRows() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM transactions", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private void seed(long rows) {
+        jdbcTemplate.update("""
+                INSERT INTO transactions (id, source_account_id, target_account_id, amount, currency)
+                SELECT nextval('transactions_seq'), 1 + (random() * 100000)::bigint, 1 + (random() * 100000)::bigint, 100, 'EUR'
+                FROM generate_series(1, ?)""", rows);
+        jdbcTemplate.execute("ANALYZE transactions");
+    }
+
+    private long medianNanos() {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            queryHistory();
+        }
+        long[] samples = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            queryHistory();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private void queryHistory() {
+        assertEquals(ACCOUNT_TRANSACTIONS, accountService.getAllTransactions(ACCOUNT_ID).size());
+        assertEquals(ACCOUNT_TRANSACTIONS / 2, accountService.getIncomingTransactions(ACCOUNT_ID).size());
+        assertEquals(ACCOUNT_TRANSACTIONS / 2, accountService.getOutgoingTransactions(ACCOUNT_ID).size());
+    }
+}
@@ -0,0 +1,103 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.service.AccountService;
+import com.anastasiakassari.financialtransactionservice.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the throughput of single transfers through the in-memory ledger engine, from many threads over a small set
+ * of accounts, which is where locking the account rows in the database hurts the most.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "fts.transaction.engine=in-memory")
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.anastasiakassari.financialtransactionservice=warn"
+})
+class InMemoryLedgerBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryLedgerBenchmark.class);
+
+    private static final int ACCOUNTS = 100;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 500_000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Test
+    void transfersPerSecond() throws Exception {
+        List<AccountDTO> dtos = IntStream.range(0, ACCOUNTS).mapToObj(i -> {
+            AccountDTO dto = new AccountDTO();
+            dto.setBalance(1_000_000_000L);
+            dto.setCurrency(Currency.EUR);
+            return dto;
+        }).toList();
+        List<Long> accountIds = accountService.createAccounts(dtos).stream().map(Account::getId).toList();
+
+        // Warm up before measuring
+        runTransfers(accountIds, TRANSFERS / 10);
+        long nanos = runTransfers(accountIds, TRANSFERS);
+
+        logger.warn("Applied {} transfers over {} accounts from {} threads: {} transfers/s", TRANSFERS, ACCOUNTS, THREADS,
+                TRANSFERS * 1_000_000_000L / nanos);
+    }
+
+    private long runTransfers(List<Long> accountIds, int transfers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int applied = 0;
+                    for (int i = 0; i < transfers / THREADS; i++) {
+                        int source = random.nextInt(ACCOUNTS);
+                        int target = (source + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        TransactionDTO dto = new TransactionDTO();
+                        dto.setSourceAccountId(accountIds.get(source));
+                        dto.setTargetAccountId(accountIds.get(target));
+                        dto.setAmount(100L);
+                        dto.setCurrency(Currency.EUR);
+                        transactionService.createTransaction(dto);
+                        applied++;
+                    }
+                    return applied;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(transfers / THREADS, future.get());
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the throughput of inserting transactions through JPA with JDBC batching turned off and on.
+ * With a JDBC batch size of one every insert is its own round-trip, as it was with identity IDs, where Hibernate had to
+ * run each insert immediately to learn the ID.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+class InsertBatchingBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsertBatchingBenchmark.class);
+
+    private static final int ROWS = 20_000;
+    private static final int FLUSH_INTERVAL = 1_000;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void batchedInsertsAreFaster() {
+        // Warm up both paths before measuring
+        insertRows(1, ROWS / 10);
+        insertRows(BATCH_SIZE, ROWS / 10);
+
+        long unbatched = insertRows(1, ROWS);
+        long batched = insertRows(BATCH_SIZE, ROWS);
+
+        logger.info("Inserted {} transactions: unbatched {} rows/s, batched {} rows/s", ROWS, rowsPerSecond(unbatched),
+                rowsPerSecond(batched));
+        assertTrue(batched < unbatched, "Batched inserts took " + batched + " ns, unbatched " + unbatched + " ns");
+    }
+
+    private long insertRows(int jdbcBatchSize, int rows) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            for (int i = 0; i < rows; i++) {
+                entityManager.persist(new Transaction(null, 1L + i % 100, 101L + i % 100, 100L, Currency.EUR));
+                if ((i + 1) % FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+        return System.nanoTime() - start;
+    }
+
+    private static long rowsPerSecond(long nanos) {
+        return ROWS * 1_000_000_000L / nanos;
+    }
+}
@@ -0,0 +1,233 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.InsufficientBalanceException;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.service.AccountService;
+import com.anastasiakassari.financialtransactionservice.service.TransactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * LoadGenerator fires concurrent transfers at {@link TransactionService#createTransaction} from a number of clients,
+ * each sending its next transfer once the previous one returns. The accounts of every transfer are picked according to
+ * a {@link Contention} profile, and the amounts are random, so that busy accounts also run out of money now and then.
+ * <p>
+ * A run reports the throughput, the latency percentiles, and the rates of insufficient-balance rejections, of transient
+ * database failures that were retried, and of those that still failed after the last retry.
+ */
+class LoadGenerator {
+
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    /**
+     * How the accounts of each transfer are picked.
+     */
+    enum Contention {
+        /**
+         * Every account is equally likely.
+         */
+        UNIFORM,
+        /**
+         * Accounts are picked by a zipfian distribution over their rank, with the constant used by YCSB, so that a
+         * handful of accounts take part in most transfers.
+         */
+        ZIPFIAN,
+        /**
+         * One account, such as a fee account, is the source or target of every transfer. The other account is uniform.
+         */
+        HOT_ACCOUNT
+    }
+
+    record Settings(Contention contention, int clients, int transfersPerClient, long maxAmount) {
+    }
+
+    record Report(Settings settings, long transfersPerSecond, double p50Millis, double p99Millis, double p999Millis,
+                  double insufficientBalanceRate, double retryRate, double failureRate) {
+
+        @Override
+        public String toString() {
+            return String.format("%-11s %4d clients: %6d transfers/s, p50 %7.2f ms, p99 %7.2f ms, p99.9 %7.2f ms, " +
+                            "insufficient balance %5.1f%%, retried %5.1f%%, failed %5.1f%%",
+                    settings.contention(), settings.clients(), transfersPerSecond, p50Millis, p99Millis, p999Millis,
+                    insufficientBalanceRate * 100, retryRate * 100, failureRate * 100);
+        }
+    }
+
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final MeterRegistry meterRegistry;
+
+    LoadGenerator(AccountService accountService, TransactionService transactionService, MeterRegistry meterRegistry) {
+        this.accountService = accountService;
+        this.transactionService = transactionService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Creates the accounts, in batches.
+     *
+     * @return The IDs of the accounts, the first being the hottest for the skewed profiles.
+     */
+    List<Long> seed(int accounts, long balance) {
+        List<Long> accountIds = new ArrayList<>(accounts);
+        for (int offset = 0; offset < accounts; offset += SEED_BATCH_SIZE) {
+            List<AccountDTO> dtos = IntStream.range(offset, Math.min(accounts, offset + SEED_BATCH_SIZE)).mapToObj(i -> {
+                AccountDTO dto = new AccountDTO();
+                dto.setBalance(balance);
+                dto.setCurrency(Currency.EUR);
+                return dto;
+            }).toList();
+            accountService.createAccounts(dtos).stream().map(Account::getId).forEach(accountIds::add);
+        }
+        return accountIds;
+    }
+
+    Report run(List<Long> accountIds, Settings settings) throws Exception {
+        TransferPicker picker = picker(settings.contention(), accountIds.size());
+        int transfers = settings.clients() * settings.transfersPerClient();
+        long[] latencies = new long[transfers];
+        LongAdder insufficientBalance = new LongAdder();
+        LongAdder failures = new LongAdder();
+        double retriesBefore = retries();
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newFixedThreadPool(settings.clients())) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < settings.clients(); c++) {
+                int offset = c * settings.transfersPerClient();
+                futures.add(clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < settings.transfersPerClient(); i++) {
+                        int[] pair = picker.pick(random);
+                        TransactionDTO dto = new TransactionDTO();
+                        dto.setSourceAccountId(accountIds.get(pair[0]));
+                        dto.setTargetAccountId(accountIds.get(pair[1]));
+                        dto.setAmount(random.nextLong(1, settings.maxAmount() + 1));
+                        dto.setCurrency(Currency.EUR);
+
+                        long sent = System.nanoTime();
+                        try {
+                            transactionService.createTransaction(dto);
+                        } catch (InsufficientBalanceException e) {
+                            insufficientBalance.increment();
+                        } catch (TransientDataAccessException e) {
+                            failures.increment();
+                        }
+                        latencies[offset + i] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long nanos = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Report(settings,
+                transfers * 1_000_000_000L / nanos,
+                percentileMillis(latencies, 0.50),
+                percentileMillis(latencies, 0.99),
+                percentileMillis(latencies, 0.999),
+                insufficientBalance.doubleValue() / transfers,
+                (retries() - retriesBefore) / transfers,
+                failures.doubleValue() / transfers);
+    }
+
+    private double retries() {
+        return meterRegistry.find("fts.transfer.retries").counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private static double percentileMillis(long[] sortedLatencies, double percentile) {
+        int index = Math.max(0, (int) Math.ceil(sortedLatencies.length * percentile) - 1);
+        return sortedLatencies[index] / 1_000_000.0;
+    }
+
+    /**
+     * Picks the indexes of the source and target accounts of a transfer, which are always distinct.
+     */
+    private interface TransferPicker {
+        int[] pick(ThreadLocalRandom random);
+    }
+
+    private static TransferPicker picker(Contention contention, int accounts) {
+        return switch (contention) {
+            case UNIFORM -> distinct(random -> random.nextInt(accounts));
+            case ZIPFIAN -> distinct(new ZipfianPicker(accounts, ZipfianPicker.YCSB_THETA)::pick);
+            case HOT_ACCOUNT -> random -> {
+                int other = 1 + random.nextInt(accounts - 1);
+                return random.nextBoolean() ? new int[]{0, other} : new int[]{other, 0};
+            };
+        };
+    }
+
+    private static TransferPicker distinct(ToIntFunction<ThreadLocalRandom> account) {
+        return random -> {
+            int source = account.applyAsInt(random);
+            int target;
+            do {
+                target = account.applyAsInt(random);
+            } while (target == source);
+            return new int[]{source, target};
+        };
+    }
+
+    /**
+     * Picks ranks from a zipfian distribution in constant time, after computing the zeta constant once, as described by
+     * Gray et al. in "Quickly Generating Billion-Record Synthetic Databases". Rank zero is the most likely.
+     */
+    private static final class ZipfianPicker {
+
+        static final double YCSB_THETA = 0.99;
+
+        private final int items;
+        private final double theta;
+        private final double zetaN;
+        private final double alpha;
+        private final double eta;
+
+        ZipfianPicker(int items, double theta) {
+            this.items = items;
+            this.theta = theta;
+            this.zetaN = zeta(items, theta);
+            this.alpha = 1 / (1 - theta);
+            this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+        }
+
+        int pick(ThreadLocalRandom random) {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            if (uz < 1) {
+                return 0;
+            }
+            if (uz < 1 + Math.pow(0.5, theta)) {
+                return 1;
+            }
+            return Math.min(items - 1, (int) (items * Math.pow(eta * u - eta + 1, alpha)));
+        }
+
+        private static double zeta(int items, double theta) {
+            double sum = 0;
+            for (int i = 1; i <= items; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.FinancialTransactionServiceApplication;
+import com.anastasiakassari.financialtransactionservice.service.AccountService;
+import com.anastasiakassari.financialtransactionservice.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how {@code createTransaction} scales with the number of concurrent clients under each contention profile of
+ * {@link LoadGenerator}, against the database of the test profile. Every run transfers between freshly seeded accounts.
+ * The database is needed with every engine, the in-memory one included: it takes the database out of the transfer path
+ * only, the accounts are still seeded in and loaded from the database and the transfers are written behind to it.
+ * <p>
+ * The runs are configured with system properties, all optional:
+ * <ul>
+ *     <li>{@code fts.load.engine}: the transaction engine, {@code jpa}, {@code sql} or {@code in-memory}</li>
+ *     <li>{@code fts.load.contention}: comma-separated profiles, {@code uniform}, {@code zipfian}, {@code hot_account}</li>
+ *     <li>{@code fts.load.clients}: comma-separated numbers of concurrent clients</li>
+ *     <li>{@code fts.load.accounts}, {@code fts.load.transfers-per-client}, {@code fts.load.balance} and
+ *     {@code fts.load.max-amount}, the amounts being in cents</li>
+ * </ul>
+ * Run with {@code ./gradlew benchmark --tests '*LoadGeneratorBenchmark' -Dfts.load.contention=zipfian}.
+ */
+@Tag("benchmark")
+class LoadGeneratorBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGeneratorBenchmark.class);
+
+    private static final String ENGINE = System.getProperty("fts.load.engine", "jpa");
+    private static final List<LoadGenerator.Contention> CONTENTIONS = Arrays.stream(
+                    System.getProperty("fts.load.contention", "uniform,zipfian,hot_account").split(","))
+            .map(contention -> LoadGenerator.Contention.valueOf(contention.trim().toUpperCase()))
+            .toList();
+    private static final List<Integer> CLIENTS = Arrays.stream(System.getProperty("fts.load.clients", "1,8,32").split(","))
+            .map(clients -> Integer.parseInt(clients.trim()))
+            .toList();
+    private static final int ACCOUNTS = Integer.getInteger("fts.load.accounts", 1_000);
+    private static final int TRANSFERS_PER_CLIENT = Integer.getInteger("fts.load.transfers-per-client", 200);
+    private static final long BALANCE = Long.getLong("fts.load.balance", 10_000L);
+    private static final long MAX_AMOUNT = Long.getLong("fts.load.max-amount", 1_000L);
+
+    @Test
+    void contentionProfiles() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FinancialTransactionServiceApplication.class)
+                .profiles("test")
+                // Passed as arguments to override the test profile
+                .run("--fts.transaction.engine=" + ENGINE,
+                        "--spring.jpa.show-sql=false",
+                        // Every rejected transfer is logged as an error
+                        "--logging.level.com.anastasiakassari.financialtransactionservice=off",
+                        "--logging.level.com.anastasiakassari.financialtransactionservice.benchmark=warn")) {
+            LoadGenerator loadGenerator = new LoadGenerator(context.getBean(AccountService.class),
+                    context.getBean(TransactionService.class), context.getBean(MeterRegistry.class));
+
+            for (LoadGenerator.Contention contention : CONTENTIONS) {
+                for (int clients : CLIENTS) {
+                    List<Long> accountIds = loadGenerator.seed(ACCOUNTS, BALANCE);
+                    LoadGenerator.Settings settings = new LoadGenerator.Settings(contention, clients, TRANSFERS_PER_CLIENT, MAX_AMOUNT);
+                    // Warm up before measuring
+                    loadGenerator.run(accountIds, new LoadGenerator.Settings(contention, clients, TRANSFERS_PER_CLIENT / 4, MAX_AMOUNT));
+                    LoadGenerator.Report report = loadGenerator.run(accountIds, settings);
+                    logger.warn("{} engine, {} accounts: {}", ENGINE, ACCOUNTS, report);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import com.anastasiakassari.financialtransactionservice.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures reading a transaction by ID with the transaction in the second-level cache and with it evicted before every
+ * read, which is what every read cost before the cache.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.anastasiakassari.financialtransactionservice=warn"
+})
+class TransactionCacheBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionCacheBenchmark.class);
+
+    private static final int READS = 20_000;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void cachedReadsAreFaster() {
+        long id = transactionRepository.save(new Transaction(null, 1L, 2L, 100L, Currency.EUR)).getId();
+
+        // Warm up both paths before measuring
+        readTransaction(id, false, READS / 10);
+        readTransaction(id, true, READS / 10);
+
+        long uncached = readTransaction(id, true, READS);
+        long cached = readTransaction(id, false, READS);
+
+        logger.warn("Read a transaction {} times: uncached {} us/read, cached {} us/read", READS,
+                uncached / READS / 1_000.0, cached / READS / 1_000.0);
+        assertTrue(cached < uncached, "Cached reads took " + cached + " ns, uncached " + uncached + " ns");
+    }
+
+    private long readTransaction(long id, boolean evict, int reads) {
+        long total = 0;
+        for (int i = 0; i < reads; i++) {
+            if (evict) {
+                entityManagerFactory.getCache().evict(Transaction.class, id);
+            }
+            long start = System.nanoTime();
+            transactionService.getTransactionById(id);
+            total += System.nanoTime() - start;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,129 @@
+package com.anastasiakassari.financialtransactionservice.benchmark;
+
+import com.anastasiakassari.financialtransactionservice.FinancialTransactionServiceApplication;
+import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.service.AccountService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the throughput and p99 latency of {@code POST /transaction} over HTTP from many concurrent clients, with
+ * requests handled by the Tomcat thread pool and with requests handled on virtual threads. The application is started
+ * once for each mode, with the same connection pool, so only the threads differ.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadBenchmark.class);
+
+    private static final int ACCOUNTS = 1_000;
+    private static final int CLIENTS = 1_000;
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final int CONNECTION_POOL_SIZE = 50;
+
+    @Test
+    void platformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        logger.warn("{} clients, {} requests each, {} connections: platform threads {} requests/s, p99 {} ms; " +
+                        "virtual threads {} requests/s, p99 {} ms", CLIENTS, REQUESTS_PER_CLIENT, CONNECTION_POOL_SIZE,
+                platform.requestsPerSecond(), platform.p99Millis(), virtual.requestsPerSecond(), virtual.p99Millis());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FinancialTransactionServiceApplication.class)
+                .profiles("test")
+                // Passed as arguments to override the test profile
+                .run("--server.port=0",
+                        "--fts.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.hikari.maximum-pool-size=" + CONNECTION_POOL_SIZE,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.anastasiakassari.financialtransactionservice=warn")) {
+            List<AccountDTO> dtos = IntStream.range(0, ACCOUNTS).mapToObj(i -> {
+                AccountDTO dto = new AccountDTO();
+                dto.setBalance(1_000_000_000L);
+                dto.setCurrency(Currency.EUR);
+                return dto;
+            }).toList();
+            List<Long> accountIds = context.getBean(AccountService.class).createAccounts(dtos).stream().map(Account::getId).toList();
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/api/v1/fts/transaction");
+
+            // Warm up before measuring
+            sendTransfers(uri, accountIds, REQUESTS_PER_CLIENT / 4);
+            return sendTransfers(uri, accountIds, REQUESTS_PER_CLIENT);
+        }
+    }
+
+    /**
+     * Sends transfers between random accounts from every client, each client waiting for its response before sending
+     * the next request.
+     */
+    private Result sendTransfers(URI uri, List<Long> accountIds, int requestsPerClient) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        long[] latencies = new long[CLIENTS * requestsPerClient];
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                int offset = c * requestsPerClient;
+                futures.add(clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        long source = accountIds.get(random.nextInt(accountIds.size()));
+                        long target;
+                        do {
+                            target = accountIds.get(random.nextInt(accountIds.size()));
+                        } while (target == source);
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString("{\"sourceAccountId\":" + source +
+                                        ",\"targetAccountId\":" + target + ",\"amount\":0.01,\"currency\":\"EUR\"}"))
+                                .build();
+                        long sent = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[offset + i] = System.nanoTime() - sent;
+                        assertEquals(201, response.statusCode());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long nanos = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            long p99 = latencies[(int) (latencies.length * 0.99) - 1];
+            return new Result(latencies.length * 1_000_000_000L / nanos, p99 / 1_000_000);
+        }
+    }
+
+    private record Result(long requestsPerSecond, long p99Millis) {
+    }
+}
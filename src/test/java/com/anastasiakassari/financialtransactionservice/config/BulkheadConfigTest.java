@@ -0,0 +1,103 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import com.anastasiakassari.financialtransactionservice.service.Bulkhead;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {"fts.bulkhead.enabled=true", "fts.bulkhead.read.max-concurrent=1", "fts.bulkhead.read.max-queued=0",
+        "fts.bulkhead.read.pool-size=2", "fts.bulkhead.write.pool-size=3"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+// Closes the two pools, so that the cached contexts of the other tests do not run out of database connections
+@DirtiesContext
+class BulkheadConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Bulkhead readBulkhead;
+
+    @Autowired
+    @Qualifier("readDataSource")
+    private HikariDataSource readDataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource writeDataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testReadOnlyTransactionsUseTheReadPool() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        int active = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return readDataSource.getHikariPoolMXBean().getActiveConnections();
+        });
+
+        assertEquals(1, active);
+        assertEquals(2, readDataSource.getMaximumPoolSize());
+        assertEquals(3, writeDataSource.getMaximumPoolSize());
+    }
+
+    @Test
+    void testStreamedResponsesHoldTheirPlaceUntilComplete() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/fts/transactions/export"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5_000);
+        assertEquals(Bulkhead.Partition.WRITE, Bulkhead.currentPartition());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/fts/accounts"))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests());
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/fts/accounts"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    void testWritesAreServedWhileTheReadPartitionIsFull() throws Exception {
+        readBulkhead.enter();
+        readBulkhead.detach();
+        try {
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/fts/accounts"))
+                    .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+                    .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"));
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/fts/account")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"balance\":10.00,\"currency\":\"EUR\"}"))
+                    .andExpect(MockMvcResultMatchers.status().isCreated());
+        } finally {
+            readBulkhead.exit();
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/fts/accounts"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+}
@@ -0,0 +1,95 @@
+package com.anastasiakassari.financialtransactionservice.config;
+
+import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.service.AccountService;
+import com.anastasiakassari.financialtransactionservice.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The replica is the test database itself, through a pool of its own, which is enough to tell where statements go
+@SpringBootTest(properties = {"fts.replica.enabled=true", "fts.replica.url=${spring.datasource.url}",
+        "fts.replica.username=${spring.datasource.username}", "fts.replica.password=${spring.datasource.password}",
+        "fts.replica.pool-size=2", "fts.replica.read-your-writes.enabled=true", "fts.replica.read-your-writes.window=1m",
+        "spring.datasource.hikari.maximum-pool-size=3"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+// Closes the two pools, so that the cached contexts of the other tests do not run out of database connections
+@DirtiesContext
+class ReplicaConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testReadsUseTheReplicaAndWritesThePrimary() {
+        long primary = connectionsUsed("fts-primary");
+        AccountDTO dto = new AccountDTO();
+        dto.setBalance(1000L);
+        dto.setCurrency(Currency.EUR);
+        Account account = accountService.createAccount(dto);
+        assertEquals(primary + 1, connectionsUsed("fts-primary"));
+
+        long replica = connectionsUsed("fts-replica");
+        accountService.getAccounts();
+        accountService.getAccounts(null, 10);
+        accountService.getAccountById(account.getId());
+        accountService.getAllTransactions(account.getId());
+        accountService.getIncomingTransactions(account.getId());
+        accountService.getOutgoingTransactions(account.getId());
+        transactionService.getTransactions();
+        transactionService.getTransactions(null, 10);
+
+        assertEquals(replica + 8, connectionsUsed("fts-replica"));
+        assertEquals(primary + 1, connectionsUsed("fts-primary"));
+    }
+
+    @Test
+    void testClientsThatWroteReadTheirWritesFromThePrimary() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/fts/account")
+                        .header("X-Client-Id", "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"balance\":10.00,\"currency\":\"EUR\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        long primary = connectionsUsed("fts-primary");
+        long replica = connectionsUsed("fts-replica");
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/fts/accounts").header("X-Client-Id", "writer"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        assertEquals(primary + 1, connectionsUsed("fts-primary"));
+        assertEquals(replica, connectionsUsed("fts-replica"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/fts/accounts").header("X-Client-Id", "reader"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        assertEquals(primary + 1, connectionsUsed("fts-primary"));
+        assertTrue(connectionsUsed("fts-replica") > replica);
+    }
+
+    private long connectionsUsed(String pool) {
+        return meterRegistry.find("hikaricp.connections.usage").tag("pool", pool).timers().stream()
+                .mapToLong(timer -> timer.count())
+                .sum();
+    }
+}
@@ -2,16 +2,21 @@ package com.anastasiakassari.financialtransactionservice.controller;
 
 import com.anastasiakassari.financialtransactionservice.FinancialTransactionServiceApplication;
 import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
 import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
 import com.anastasiakassari.financialtransactionservice.exception.*;
 import com.anastasiakassari.financialtransactionservice.model.Account;
 import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.MinorUnits;
 import com.anastasiakassari.financialtransactionservice.model.Transaction;
 import com.anastasiakassari.financialtransactionservice.service.AccountService;
+import com.anastasiakassari.financialtransactionservice.service.AdmissionLimiter;
 import com.anastasiakassari.financialtransactionservice.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -19,13 +24,19 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.OutputStream;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Supplier;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.Mockito.*;
 
 @WebMvcTest(FinancialTransactionController.class)
@@ -45,46 +56,76 @@ class FinancialTransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private AdmissionLimiter admissionLimiter;
+
     private List<Account> accounts;
     private List<Transaction> transactions;
 
     @BeforeEach
     void setUp() {
         accounts = new ArrayList<>();
-        accounts.add(new Account(1L, 250.0, Currency.EUR, new Timestamp(System.currentTimeMillis())));
-        accounts.add(new Account(2L, 100.0, Currency.EUR, new Timestamp(System.currentTimeMillis())));
-        accounts.add(new Account(3L, 0.0, Currency.USD, new Timestamp(System.currentTimeMillis())));
+        accounts.add(new Account(1L, 25000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        accounts.add(new Account(2L, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        accounts.add(new Account(3L, 0L, Currency.USD, new Timestamp(System.currentTimeMillis()), null));
         transactions = new ArrayList<>();
-        transactions.add(new Transaction(1L, 1L, 2L, 100.0, Currency.EUR));
-        transactions.add(new Transaction(2L, 2L, 1L, 50.0, Currency.EUR));
+        transactions.add(new Transaction(1L, 1L, 2L, 10000L, Currency.EUR));
+        transactions.add(new Transaction(2L, 2L, 1L, 5000L, Currency.EUR));
+        when(admissionLimiter.execute(ArgumentMatchers.<Supplier<Transaction>>any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Transaction>>getArgument(0).get());
     }
 
     @Test
     void shouldGetAccounts() throws Exception {
         Account account = accounts.get(0);
-        when(accountService.getAccounts()).thenReturn(accounts);
+        when(accountService.getAccounts(null, null)).thenReturn(new PageDTO<>(accounts, null));
 
         mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/accounts"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(accounts.size()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(account.getId()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].currency").value(account.getCurrency().name()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].balance").value(account.getBalance()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.size()").value(accounts.size()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(account.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].currency").value(account.getCurrency().name()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].balance").value(MinorUnits.toMajor(account.getBalance()).doubleValue()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").isEmpty());
 
-        verify(accountService, times(1)).getAccounts();
+        verify(accountService, times(1)).getAccounts(null, null);
 
     }
 
     @Test
     void shouldGetAccountsReturnsEmptyList() throws Exception {
-        when(accountService.getAccounts()).thenReturn(new ArrayList<>());
+        when(accountService.getAccounts(null, null)).thenReturn(new PageDTO<>(new ArrayList<>(), null));
 
         mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/accounts"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(0));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.size()").value(0));
+
+        verify(accountService, times(1)).getAccounts(null, null);
+
+    }
+
+    @Test
+    void shouldGetAccountsPageWithCursor() throws Exception {
+        when(accountService.getAccounts("MQ", 1)).thenReturn(new PageDTO<>(List.of(accounts.get(1)), "Mg"));
 
-        verify(accountService, times(1)).getAccounts();
+        mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/accounts")
+                        .param("cursor", "MQ")
+                        .param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.size()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(2L))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value("Mg"));
 
+        verify(accountService, times(1)).getAccounts("MQ", 1);
+    }
+
+    @Test
+    void shouldFailToGetAccountsWithInvalidCursor() throws Exception {
+        when(accountService.getAccounts("invalid", null)).thenThrow(InvalidParametersException.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/accounts")
+                        .param("cursor", "invalid"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
 
     @Test
@@ -123,7 +164,7 @@ class FinancialTransactionControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isCreated())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(account.getId()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.currency").value(account.getCurrency().name()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.balance").value(account.getBalance()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.balance").value(MinorUnits.toMajor(account.getBalance()).doubleValue()));
 
     }
 
@@ -140,7 +181,7 @@ class FinancialTransactionControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isCreated())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(account.getId()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.currency").value(account.getCurrency().name()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.balance").value(account.getBalance()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.balance").value(MinorUnits.toMajor(account.getBalance()).doubleValue()));
 
     }
 
@@ -160,7 +201,7 @@ class FinancialTransactionControllerTest {
     void shouldFailToCreateAccountWithInvalidBalance() throws Exception {
         AccountDTO dto = new AccountDTO();
         dto.setCurrency(Currency.USD);
-        dto.setBalance(-10.0);
+        dto.setBalance(-1000L);
         when(accountService.createAccount(any(AccountDTO.class))).thenThrow(InvalidAmountException.class);
 
         mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/account")
@@ -170,34 +211,153 @@ class FinancialTransactionControllerTest {
 
     }
 
+    @Test
+    void shouldCreateAccounts() throws Exception {
+        AccountDTO dto = new AccountDTO();
+        dto.setCurrency(Currency.EUR);
+        when(accountService.createAccounts(anyList())).thenReturn(accounts.subList(0, 2));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/accounts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(dto, dto))))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(accounts.get(0).getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id").value(accounts.get(1).getId()));
+
+        verify(accountService, times(1)).createAccounts(anyList());
+    }
+
+    @Test
+    void shouldStripeAccount() throws Exception {
+        Account account = accounts.get(0);
+        account.setSlotCount(4);
+        when(accountService.stripeAccount(account.getId(), 4)).thenReturn(account);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/account/" + account.getId() + "/slots")
+                        .param("count", "4"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(account.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.slotCount").value(4))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.balance").value(MinorUnits.toMajor(account.getBalance()).doubleValue()));
+
+        verify(accountService, times(1)).stripeAccount(account.getId(), 4);
+    }
+
+    @Test
+    void shouldFailToStripeAccountWithInvalidCount() throws Exception {
+        when(accountService.stripeAccount(1L, 1)).thenThrow(InvalidParametersException.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/account/1/slots")
+                        .param("count", "1"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void shouldGetAccountTransactions() throws Exception {
+        when(accountService.getAllTransactions(1L)).thenReturn(transactions);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/account/1/transactions"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(transactions.size()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(transactions.get(0).getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id").value(transactions.get(1).getId()));
+
+        verify(accountService, times(1)).getAllTransactions(1L);
+    }
+
+    @Test
+    void shouldGetIncomingAccountTransactions() throws Exception {
+        when(accountService.getIncomingTransactions(1L)).thenReturn(List.of(transactions.get(1)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/account/1/transactions/incoming"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].targetAccountId").value(1L));
+
+        verify(accountService, times(1)).getIncomingTransactions(1L);
+    }
+
+    @Test
+    void shouldGetOutgoingAccountTransactions() throws Exception {
+        when(accountService.getOutgoingTransactions(1L)).thenReturn(List.of(transactions.get(0)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/account/1/transactions/outgoing"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].sourceAccountId").value(1L));
+
+        verify(accountService, times(1)).getOutgoingTransactions(1L);
+    }
+
     @Test
     void shouldGetTransactions() throws Exception {
         Transaction transaction = transactions.get(0);
-        when(transactionService.getTransactions()).thenReturn(transactions);
+        when(transactionService.getTransactions(null, null)).thenReturn(new PageDTO<>(transactions, null));
 
         mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/transactions"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(transactions.size()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(transaction.getId()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].sourceAccountId").value(transaction.getSourceAccountId()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].targetAccountId").value(transaction.getTargetAccountId()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].currency").value(transaction.getCurrency().name()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].amount").value(transaction.getAmount()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.size()").value(transactions.size()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(transaction.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].sourceAccountId").value(transaction.getSourceAccountId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].targetAccountId").value(transaction.getTargetAccountId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].currency").value(transaction.getCurrency().name()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].amount").value(MinorUnits.toMajor(transaction.getAmount()).doubleValue()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").isEmpty());
 
-        verify(transactionService, times(1)).getTransactions();
+        verify(transactionService, times(1)).getTransactions(null, null);
 
     }
 
+    @Test
+    void shouldGetTransactionsCreatedInTimeRange() throws Exception {
+        Instant from = Instant.parse("2020-01-01T00:00:00Z");
+        Instant to = Instant.parse("2020-02-01T00:00:00Z");
+        when(transactionService.getTransactions(null, null, from, to)).thenReturn(new PageDTO<>(transactions, null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/transactions")
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.size()").value(transactions.size()));
+
+        verify(transactionService, times(1)).getTransactions(null, null, from, to);
+    }
+
     @Test
     void shouldGetTransactionsReturnsEmptyList() throws Exception {
-        when(transactionService.getTransactions()).thenReturn(new ArrayList<>());
+        when(transactionService.getTransactions(null, null)).thenReturn(new PageDTO<>(new ArrayList<>(), null));
 
         mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/transactions"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(0));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.size()").value(0));
+
+        verify(transactionService, times(1)).getTransactions(null, null);
+
+    }
 
-        verify(transactionService, times(1)).getTransactions();
+    @Test
+    void shouldExportTransactions() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            for (Transaction transaction : transactions) {
+                out.write(objectMapper.writeValueAsBytes(transaction));
+                out.write('\n');
+            }
+            return null;
+        }).when(transactionService).exportTransactions(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(URL_API + "/transactions/export"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        objectMapper.writeValueAsString(transactions.get(0)) + "\n" + objectMapper.writeValueAsString(transactions.get(1)) + "\n"));
 
+        verify(transactionService, times(1)).exportTransactions(any(OutputStream.class));
     }
 
     @Test
@@ -241,10 +401,51 @@ class FinancialTransactionControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.sourceAccountId").value(transaction.getSourceAccountId()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.targetAccountId").value(transaction.getTargetAccountId()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.currency").value(transaction.getCurrency().name()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.amount").value(transaction.getAmount()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.amount").value(MinorUnits.toMajor(transaction.getAmount()).doubleValue()));
 
     }
 
+    @Test
+    void shouldCreateTransactionWithIdempotencyKey() throws Exception {
+        when(transactionService.createTransaction(any(TransactionDTO.class), eq("key-1"))).thenReturn(transactions.get(0));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/transaction")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "key-1")
+                        .content("{\"sourceAccountId\":1,\"targetAccountId\":2,\"amount\":10.25,\"currency\":\"EUR\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(transactions.get(0).getId()));
+
+        verify(transactionService, times(1)).createTransaction(any(TransactionDTO.class), eq("key-1"));
+        verify(transactionService, never()).createTransaction(any(TransactionDTO.class));
+    }
+
+    @Test
+    void shouldFailToCreateTransactionWithReusedIdempotencyKey() throws Exception {
+        when(transactionService.createTransaction(any(TransactionDTO.class), eq("key-1"))).thenThrow(IdempotencyKeyReusedException.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/transaction")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "key-1")
+                        .content("{\"sourceAccountId\":1,\"targetAccountId\":2,\"amount\":10.25,\"currency\":\"EUR\"}"))
+                .andExpect(MockMvcResultMatchers.status().isUnprocessableEntity());
+    }
+
+    @Test
+    void shouldFailToCreateTransactionWhenOverloaded() throws Exception {
+        doThrow(new TooManyRequestsException(ExceptionMessage.TOO_MANY_REQUESTS, Duration.ofMillis(1500)))
+                .when(admissionLimiter).execute(ArgumentMatchers.<Supplier<Transaction>>any());
+
+        mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/transaction")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sourceAccountId\":1,\"targetAccountId\":2,\"amount\":10.25,\"currency\":\"EUR\"}"))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "2"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errorMessage").value(ExceptionMessage.TOO_MANY_REQUESTS));
+
+        verify(transactionService, never()).createTransaction(any(TransactionDTO.class));
+    }
+
     @Test
     void shouldFailToCreateTransactionWithoutParams() throws Exception {
         TransactionDTO dto = new TransactionDTO();
@@ -262,7 +463,7 @@ class FinancialTransactionControllerTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(123L);
         dto.setTargetAccountId(1L);
-        dto.setAmount(10.0);
+        dto.setAmount(1000L);
         dto.setCurrency(Currency.USD);
         when(transactionService.createTransaction(any(TransactionDTO.class))).thenThrow(AccountNotFoundException.class);
 
@@ -277,7 +478,7 @@ class FinancialTransactionControllerTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(1L);
         dto.setTargetAccountId(123L);
-        dto.setAmount(10.0);
+        dto.setAmount(1000L);
         dto.setCurrency(Currency.USD);
         when(transactionService.createTransaction(any(TransactionDTO.class))).thenThrow(AccountNotFoundException.class);
 
@@ -292,7 +493,7 @@ class FinancialTransactionControllerTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(1L);
         dto.setTargetAccountId(1L);
-        dto.setAmount(10.0);
+        dto.setAmount(1000L);
         dto.setCurrency(Currency.USD);
         when(transactionService.createTransaction(any(TransactionDTO.class))).thenThrow(SameAccountException.class);
 
@@ -308,7 +509,7 @@ class FinancialTransactionControllerTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(1L);
         dto.setTargetAccountId(1L);
-        dto.setAmount(-10.0);
+        dto.setAmount(-1000L);
         dto.setCurrency(Currency.USD);
         when(transactionService.createTransaction(any(TransactionDTO.class))).thenThrow(InvalidAmountException.class);
 
@@ -324,7 +525,7 @@ class FinancialTransactionControllerTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(1L);
         dto.setTargetAccountId(3L);
-        dto.setAmount(10.0);
+        dto.setAmount(1000L);
         dto.setCurrency(Currency.EUR);
         when(transactionService.createTransaction(any(TransactionDTO.class))).thenThrow(InvalidCurrencyException.class);
 
@@ -340,7 +541,7 @@ class FinancialTransactionControllerTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(1L);
         dto.setTargetAccountId(3L);
-        dto.setAmount(1000.0);
+        dto.setAmount(100000L);
         dto.setCurrency(Currency.USD);
         when(transactionService.createTransaction(any(TransactionDTO.class))).thenThrow(InsufficientBalanceException.class);
 
@@ -350,4 +551,61 @@ class FinancialTransactionControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
 
     }
+
+    @Test
+    void shouldReadTransactionAmountInMinorUnits() throws Exception {
+        when(transactionService.createTransaction(any(TransactionDTO.class))).thenReturn(transactions.get(0));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/transaction")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sourceAccountId\":1,\"targetAccountId\":2,\"amount\":10.25,\"currency\":\"EUR\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.content().string(containsString("\"amount\":100.00")));
+
+        verify(transactionService, times(1)).createTransaction(argThat(dto -> dto.getAmount() == 1025L));
+    }
+
+    @Test
+    void shouldFailToCreateTransactionWithSubCentAmount() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/transaction")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sourceAccountId\":1,\"targetAccountId\":2,\"amount\":10.255,\"currency\":\"EUR\"}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        verify(transactionService, never()).createTransaction(any(TransactionDTO.class));
+    }
+
+    @Test
+    void shouldCreateTransactions() throws Exception {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setSourceAccountId(1L);
+        dto.setTargetAccountId(2L);
+        dto.setAmount(10000L);
+        dto.setCurrency(Currency.EUR);
+        when(transactionService.createTransactions(anyList())).thenReturn(List.of(
+                new BatchTransactionResultDTO(0, transactions.get(0), null),
+                new BatchTransactionResultDTO(1, null, ExceptionMessage.INSUFFICIENT_BALANCE)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(dto, dto))))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].index").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].transaction.id").value(transactions.get(0).getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].index").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].errorMessage").value(ExceptionMessage.INSUFFICIENT_BALANCE));
+
+        verify(transactionService, times(1)).createTransactions(anyList());
+    }
+
+    @Test
+    void shouldFailToCreateTransactionsWithTooManyTransactions() throws Exception {
+        when(transactionService.createTransactions(anyList())).thenThrow(InvalidParametersException.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(URL_API + "/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(new TransactionDTO()))))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
 }
@@ -0,0 +1,122 @@
+package com.anastasiakassari.financialtransactionservice.controller;
+
+import com.anastasiakassari.financialtransactionservice.exception.ExceptionMessage;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles({"test", "reactive"})
+class ReactiveFinancialTransactionControllerTest {
+
+    public static final String URL_API = "/api/v1/fts";
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Account source;
+    private Account target;
+
+    @BeforeEach
+    void setUp() {
+        source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+    }
+
+    @Test
+    void testCreateTransaction() {
+        Transaction transaction = webTestClient.post().uri(URL_API + "/transaction")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(transactionJson(source.getId(), target.getId(), "40.00"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Transaction.class)
+                .returnResult().getResponseBody();
+
+        assertNotNull(transaction);
+        assertEquals(4000L, transaction.getAmount());
+        webTestClient.get().uri(URL_API + "/account/" + target.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.balance").isEqualTo(40.0);
+    }
+
+    @Test
+    void testCreateTransactionReturnsTheSameErrorsAsTheServletApi() {
+        webTestClient.post().uri(URL_API + "/transaction")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(transactionJson(-1L, target.getId(), "1.00"))
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.errorMessage").isEqualTo(ExceptionMessage.ACCOUNT_NOT_FOUND)
+                .jsonPath("$.request").isEqualTo(URL_API + "/transaction")
+                .jsonPath("$.requestType").isEqualTo("POST");
+
+        webTestClient.post().uri(URL_API + "/transaction")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(transactionJson(source.getId(), target.getId(), "1.001"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errorMessage").isEqualTo(ExceptionMessage.INVALID_REQUEST);
+
+        webTestClient.post().uri(URL_API + "/transaction")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(transactionJson(source.getId(), target.getId(), "100.01"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errorMessage").isEqualTo(ExceptionMessage.INSUFFICIENT_BALANCE);
+    }
+
+    @Test
+    void testExportTransactions() {
+        Transaction transaction = webTestClient.post().uri(URL_API + "/transaction")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(transactionJson(source.getId(), target.getId(), "1.00"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Transaction.class)
+                .returnResult().getResponseBody();
+
+        List<Transaction> transactions = webTestClient.get().uri(URL_API + "/transactions/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Transaction.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(transactions);
+        assertEquals(true, transactions.contains(transaction));
+        webTestClient.get().uri(URL_API + "/account/" + source.getId() + "/transactions/outgoing")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[*].id").value(hasItem(transaction.getId().intValue()));
+    }
+
+    private String transactionJson(Long sourceId, Long targetId, String amount) {
+        return "{\"sourceAccountId\":" + sourceId + ",\"targetAccountId\":" + targetId + ",\"amount\":" + amount + ",\"currency\":\"EUR\"}";
+    }
+}
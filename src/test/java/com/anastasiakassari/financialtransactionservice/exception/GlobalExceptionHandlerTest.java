@@ -5,14 +5,19 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.mock;
@@ -45,6 +50,28 @@ class GlobalExceptionHandlerTest {
         assertEquals(ExceptionMessage.INVALID_REQUEST, response.getBody().getErrorMessage());
     }
 
+    @Test
+    void httpMessageNotReadableExceptionHandler() {
+        HttpMessageNotReadableException exception = new HttpMessageNotReadableException("Not a valid amount", mock(HttpInputMessage.class));
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+        ResponseEntity<APIError> response = handler.httpMessageNotReadableException(exception, mockRequest);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(ExceptionMessage.INVALID_REQUEST, response.getBody().getErrorMessage());
+    }
+
+    @Test
+    void idempotencyKeyReusedExceptionHandler() {
+        IdempotencyKeyReusedException exception = new IdempotencyKeyReusedException("Idempotency key was already used for a different request: key");
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+        ResponseEntity<APIError> response = handler.idempotencyKeyReusedException(exception, mockRequest);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(ExceptionMessage.IDEMPOTENCY_KEY_REUSED, response.getBody().getErrorMessage());
+    }
+
     @Test
     void insufficientBalanceExceptionHandler() {
         InsufficientBalanceException exception = new InsufficientBalanceException("Insufficient balance");
@@ -101,6 +128,18 @@ class GlobalExceptionHandlerTest {
         assertEquals(ExceptionMessage.SAME_ACCOUNT, response.getBody().getErrorMessage());
     }
 
+    @Test
+    void tooManyRequestsException() {
+        TooManyRequestsException exception = new TooManyRequestsException("Too many requests", Duration.ofMillis(2500));
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+        ResponseEntity<APIError> response = handler.tooManyRequestsException(exception, mockRequest);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNotNull(response.getBody());
+        assertEquals(ExceptionMessage.TOO_MANY_REQUESTS, response.getBody().getErrorMessage());
+    }
+
     @Test
     void transactionNotFoundException() {
         TransactionNotFoundException exception = new TransactionNotFoundException("Transaction not found");
@@ -1,9 +1,11 @@
 package com.anastasiakassari.financialtransactionservice.service;
 
 import com.anastasiakassari.financialtransactionservice.dto.AccountDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
 import com.anastasiakassari.financialtransactionservice.exception.*;
 import com.anastasiakassari.financialtransactionservice.model.Account;
 import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
 import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
 import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
 import org.junit.jupiter.api.Test;
@@ -12,6 +14,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,13 +33,16 @@ class AccountServiceTest {
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private AccountCache accountCache;
+
     @Test
     void testGetAccounts() {
         List<Account> accounts = accountService.getAccounts();
         assertNotNull(accounts);
         int initialSize = accounts.size();
 
-        Account account = accountRepository.save(new Account(null, 1.0, Currency.USD, new Timestamp(System.currentTimeMillis())));
+        Account account = accountRepository.save(new Account(null, 100L, Currency.USD, new Timestamp(System.currentTimeMillis()), null));
 
         accounts = accountService.getAccounts();
         Optional<Account> optional = accounts.stream().filter(a -> a.getId().equals(account.getId())).findFirst();
@@ -46,9 +52,34 @@ class AccountServiceTest {
         assertEquals(initialSize + 1, accounts.size());
     }
 
+    @Test
+    void testGetAccountsPages() {
+        Account first = accountRepository.save(new Account(null, 100L, Currency.USD, new Timestamp(System.currentTimeMillis()), null));
+        Account second = accountRepository.save(new Account(null, 100L, Currency.USD, new Timestamp(System.currentTimeMillis()), null));
+
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageDTO<Account> page = accountService.getAccounts(cursor, 1);
+            assertTrue(page.getItems().size() <= 1);
+            page.getItems().forEach(account -> ids.add(account.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertTrue(ids.containsAll(List.of(first.getId(), second.getId())));
+        assertEquals(ids.stream().sorted().distinct().toList(), ids);
+        assertEquals(accountService.getAccounts().size(), ids.size());
+    }
+
+    @Test
+    void testGetAccountsFailsWithInvalidCursor() {
+        assertThrows(InvalidParametersException.class, () -> accountService.getAccounts("not a cursor", null));
+        assertThrows(InvalidParametersException.class, () -> accountService.getAccounts(null, 0));
+    }
+
     @Test
     void testGetAccountById() {
-        Account account = accountRepository.save(new Account(null, 100.0, Currency.GBP, new Timestamp(System.currentTimeMillis())));
+        Account account = accountRepository.save(new Account(null, 10000L, Currency.GBP, new Timestamp(System.currentTimeMillis()), null));
         Account serviceAccount = accountService.getAccountById(account.getId());
         assertNotNull(serviceAccount);
         assertEquals(account, serviceAccount);
@@ -61,15 +92,52 @@ class AccountServiceTest {
         assertEquals(ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: " + invalidId, exception.getMessage());
     }
 
+    @Test
+    void testGetAccountByIdIsCached() {
+        Account account = accountRepository.save(new Account(null, 10000L, Currency.GBP, new Timestamp(System.currentTimeMillis()), null));
+        accountService.getAccountById(account.getId());
+        long hits = accountCache.stats().hitCount();
+
+        Account cached = accountService.getAccountById(account.getId());
+        assertEquals(hits + 1, accountCache.stats().hitCount());
+        assertEquals(account, cached);
+
+        // Changing the returned account leaves the cached one alone
+        cached.setBalance(0L);
+        assertEquals(10000L, accountService.getAccountById(account.getId()).getBalance());
+    }
+
+    @Test
+    void testUpdateAccountReplacesCachedAccount() {
+        Account account = accountRepository.save(new Account(null, 10000L, Currency.USD, new Timestamp(System.currentTimeMillis()), null));
+        accountService.getAccountById(account.getId());
+
+        accountService.updateAccount(new Account(account.getId(), 20000L, Currency.EUR, account.getCreatedAt(), null));
+
+        Account cached = accountService.getAccountById(account.getId());
+        assertEquals(20000L, cached.getBalance());
+        assertEquals(Currency.EUR, cached.getCurrency());
+    }
+
+    @Test
+    void testDeleteAccountEvictsCachedAccount() {
+        Account account = accountRepository.save(new Account(null, 10000L, Currency.USD, new Timestamp(System.currentTimeMillis()), null));
+        accountService.getAccountById(account.getId());
+
+        assertTrue(accountService.deleteAccount(account.getId()));
+
+        assertThrows(AccountNotFoundException.class, () -> accountService.getAccountById(account.getId()));
+    }
+
     @Test
     void testCreateAccountWithAllParams() {
         AccountDTO dto = new AccountDTO();
-        dto.setBalance(10.0);
+        dto.setBalance(1000L);
         dto.setCurrency(Currency.USD);
 
         Account account = accountService.createAccount(dto);
         assertNotNull(account);
-        assertEquals(10.0, account.getBalance());
+        assertEquals(1000L, account.getBalance());
         assertEquals(Currency.USD, account.getCurrency());
     }
 
@@ -80,7 +148,7 @@ class AccountServiceTest {
 
         Account account = accountService.createAccount(dto);
         assertNotNull(account);
-        assertEquals(0.0, account.getBalance());
+        assertEquals(0L, account.getBalance());
         assertEquals(Currency.USD, account.getCurrency());
     }
 
@@ -91,26 +159,91 @@ class AccountServiceTest {
         assertEquals("One or more parameters are missing", exception.getMessage());
     }
 
+    @Test
+    void testCreateAccounts() {
+        List<AccountDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            AccountDTO dto = new AccountDTO();
+            dto.setBalance((long) i);
+            dto.setCurrency(Currency.EUR);
+            dtos.add(dto);
+        }
+
+        List<Account> accounts = accountService.createAccounts(dtos);
+
+        assertEquals(dtos.size(), accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            assertEquals((long) i, accounts.get(i).getBalance());
+            assertEquals(accounts.get(i), accountRepository.findById(accounts.get(i).getId()).orElseThrow());
+        }
+        assertEquals(dtos.size(), accounts.stream().map(Account::getId).distinct().count());
+    }
+
+    @Test
+    void testCreateAccountsFailsWithInvalidAccount() {
+        AccountDTO valid = new AccountDTO();
+        valid.setCurrency(Currency.EUR);
+        AccountDTO invalid = new AccountDTO();
+        invalid.setCurrency(Currency.EUR);
+        invalid.setBalance(-1000L);
+        int initialSize = accountService.getAccounts().size();
+
+        assertThrows(InvalidAmountException.class, () -> accountService.createAccounts(List.of(valid, invalid)));
+        assertThrows(MissingParameterException.class, () -> accountService.createAccounts(null));
+        assertEquals(initialSize, accountService.getAccounts().size());
+    }
+
+    @Test
+    void testStripeAccount() {
+        Account account = accountRepository.save(new Account(null, 1001L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+
+        Account hot = accountService.stripeAccount(account.getId(), 4);
+
+        assertEquals(4, hot.getSlotCount());
+        assertEquals(1001L, hot.getBalance());
+        assertEquals(1001L, accountService.getAccountById(account.getId()).getBalance());
+        assertEquals(0L, accountRepository.findById(account.getId()).orElseThrow().getBalance());
+        assertTrue(accountService.getAccounts().contains(hot));
+
+        Account updated = accountService.updateAccount(new Account(account.getId(), 500L, Currency.EUR, account.getCreatedAt(), null));
+        assertEquals(500L, updated.getBalance());
+        assertEquals(500L, accountService.getAccountById(account.getId()).getBalance());
+    }
+
+    @Test
+    void testStripeAccountFailsWithInvalidParams() {
+        Account account = accountRepository.save(new Account(null, 1000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Long id = account.getId();
+
+        assertThrows(InvalidParametersException.class, () -> accountService.stripeAccount(id, 1));
+        assertThrows(InvalidParametersException.class, () -> accountService.stripeAccount(id, HotAccounts.MAX_SLOT_COUNT + 1));
+        assertThrows(MissingParameterException.class, () -> accountService.stripeAccount(id, null));
+        assertThrows(AccountNotFoundException.class, () -> accountService.stripeAccount(-1L, 2));
+        accountService.stripeAccount(id, 2);
+        var exception = assertThrows(InvalidParametersException.class, () -> accountService.stripeAccount(id, 2));
+        assertEquals(ExceptionMessage.ACCOUNT_ALREADY_HOT + id, exception.getMessage());
+    }
+
     @Test
     void testCreateAccountFailsWithInvalidBalance() {
         AccountDTO dto = new AccountDTO();
         dto.setCurrency(Currency.USD);
-        dto.setBalance(-10.0);
+        dto.setBalance(-1000L);
         var exception = assertThrows(InvalidAmountException.class, () -> accountService.createAccount(dto));
         assertEquals(ExceptionMessage.INVALID_AMOUNT, exception.getMessage());
     }
 
     @Test
     void testUpdateAccountWithValidAccount() {
-        Account account = accountRepository.save(new Account(null, 100.0, Currency.USD, new Timestamp(System.currentTimeMillis())));
-        Account updatedAccount = new Account(account.getId(), 200.0, Currency.EUR, account.getCreatedAt());
+        Account account = accountRepository.save(new Account(null, 10000L, Currency.USD, new Timestamp(System.currentTimeMillis()), null));
+        Account updatedAccount = new Account(account.getId(), 20000L, Currency.EUR, account.getCreatedAt(), null);
         Account result = accountService.updateAccount(updatedAccount);
         assertEquals(updatedAccount, result);
     }
 
     @Test
     void testUpdateAccountFailsWithInvalidAccountParams() {
-        Account account = new Account(null, 200.0, Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        Account account = new Account(null, 20000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null);
 
         var exception = assertThrows(InvalidParametersException.class, () -> accountService.updateAccount(account));
         assertEquals(ExceptionMessage.INVALID_PARAMETERS, exception.getMessage());
@@ -119,7 +252,7 @@ class AccountServiceTest {
     @Test
     void testUpdateAccountFailsWithInvalidAccountId() {
         long invalidId = 123456L;
-        Account account = new Account(invalidId, 200.0, Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        Account account = new Account(invalidId, 20000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null);
 
         var exception = assertThrows(AccountNotFoundException.class, () -> accountService.updateAccount(account));
         assertEquals(ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: " + invalidId, exception.getMessage());
@@ -127,8 +260,8 @@ class AccountServiceTest {
 
     @Test
     void testUpdateAccountFailsWithInvalidBalance() {
-        Account account = accountRepository.save(new Account(null, 100.0, Currency.USD, new Timestamp(System.currentTimeMillis())));
-        Account updatedAccount = new Account(account.getId(), -100.0, Currency.USD, account.getCreatedAt());
+        Account account = accountRepository.save(new Account(null, 10000L, Currency.USD, new Timestamp(System.currentTimeMillis()), null));
+        Account updatedAccount = new Account(account.getId(), -10000L, Currency.USD, account.getCreatedAt(), null);
 
         var exception = assertThrows(InvalidAmountException.class, () -> accountService.updateAccount(updatedAccount));
         assertEquals(ExceptionMessage.INVALID_AMOUNT, exception.getMessage());
@@ -136,7 +269,7 @@ class AccountServiceTest {
 
     @Test
     void testDeleteAccountById() {
-        Account account = accountRepository.save(new Account(null, 100.0, Currency.USD, new Timestamp(System.currentTimeMillis())));
+        Account account = accountRepository.save(new Account(null, 10000L, Currency.USD, new Timestamp(System.currentTimeMillis()), null));
         long id = account.getId();
         assertTrue(accountService.deleteAccount(id));
         assertTrue(accountRepository.findById(id).isEmpty());
@@ -148,4 +281,20 @@ class AccountServiceTest {
         var exception = assertThrows(AccountNotFoundException.class, () -> accountService.deleteAccount(invalidId));
         assertEquals(ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: " + invalidId, exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetAccountTransactions() {
+        Account first = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account second = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account third = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Transaction outgoing = transactionRepository.save(new Transaction(null, first.getId(), second.getId(), 100L, Currency.EUR));
+        Transaction incoming = transactionRepository.save(new Transaction(null, second.getId(), first.getId(), 200L, Currency.EUR));
+        Transaction unrelated = transactionRepository.save(new Transaction(null, second.getId(), third.getId(), 300L, Currency.EUR));
+
+        assertEquals(List.of(outgoing, incoming), accountService.getAllTransactions(first.getId()));
+        assertEquals(List.of(incoming), accountService.getIncomingTransactions(first.getId()));
+        assertEquals(List.of(outgoing), accountService.getOutgoingTransactions(first.getId()));
+        assertEquals(List.of(unrelated), accountService.getIncomingTransactions(third.getId()));
+        assertTrue(accountService.getOutgoingTransactions(third.getId()).isEmpty());
+    }
+}
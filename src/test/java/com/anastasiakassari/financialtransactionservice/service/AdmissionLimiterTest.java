@@ -0,0 +1,143 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.AdmissionProperties;
+import com.anastasiakassari.financialtransactionservice.exception.InsufficientBalanceException;
+import com.anastasiakassari.financialtransactionservice.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionLimiterTest {
+
+    private AdmissionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AdmissionProperties();
+        properties.setEnabled(true);
+        properties.setInitialLimit(4);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(5);
+        properties.setLatencyThreshold(Duration.ofSeconds(10));
+        properties.setBackoffRatio(0.5);
+        properties.setRetryAfter(Duration.ofSeconds(2));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void rejectsTransfersOverTheLimit() {
+        AdmissionLimiter limiter = new AdmissionLimiter(properties, meterRegistry);
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, () -> limiter.execute(() -> "done"));
+        assertEquals(Duration.ofSeconds(2), exception.getRetryAfter());
+        assertEquals(1.0, meterRegistry.get("fts.admission.rejected").counter().count());
+        assertEquals(4.0, meterRegistry.get("fts.admission.in.flight").gauge().value());
+        assertEquals(4.0, meterRegistry.get("fts.admission.limit").gauge().value());
+    }
+
+    @Test
+    void raisesTheLimitWhileItIsInUse() {
+        AdmissionLimiter limiter = new AdmissionLimiter(properties, meterRegistry);
+        long first = limiter.acquire();
+        long second = limiter.acquire();
+
+        limiter.release(first, false);
+        limiter.release(second, false);
+        assertEquals(5, limiter.getLimit());
+
+        // Up to the maximum
+        limiter.release(limiter.acquire(), false);
+        assertEquals(5, limiter.getLimit());
+
+        // Not while the load is low
+        properties.setMaxLimit(10);
+        limiter.release(limiter.acquire(), false);
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void lowersTheLimitOnSlowTransfers() {
+        properties.setLatencyThreshold(Duration.ZERO);
+        AdmissionLimiter limiter = new AdmissionLimiter(properties, meterRegistry);
+
+        assertEquals("done", limiter.execute(() -> "done"));
+        assertEquals(2, limiter.getLimit());
+
+        // Down to the minimum
+        limiter.execute(() -> "done");
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void lowersTheLimitOnceForTheTransfersInFlight() {
+        properties.setMinLimit(1);
+        properties.setLatencyThreshold(Duration.ZERO);
+        AdmissionLimiter limiter = new AdmissionLimiter(properties, meterRegistry);
+        long first = limiter.acquire();
+        long second = limiter.acquire();
+
+        limiter.release(first, true);
+        limiter.release(second, true);
+        assertEquals(2, limiter.getLimit());
+
+        // Started after the decrease
+        limiter.release(limiter.acquire(), true);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void lowersTheLimitOnDatabaseErrorsOnly() {
+        AdmissionLimiter limiter = new AdmissionLimiter(properties, meterRegistry);
+
+        assertThrows(InsufficientBalanceException.class, () -> limiter.execute(() -> {
+            throw new InsufficientBalanceException();
+        }));
+        assertEquals(4, limiter.getLimit());
+
+        assertThrows(CannotAcquireLockException.class, () -> limiter.execute(() -> {
+            throw new CannotAcquireLockException("lock timeout");
+        }));
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0.0, meterRegistry.get("fts.admission.in.flight").gauge().value());
+    }
+
+    @Test
+    void releasesCancelledReactiveTransfers() {
+        properties.setInitialLimit(2);
+        AdmissionLimiter limiter = new AdmissionLimiter(properties, meterRegistry);
+
+        StepVerifier.create(limiter.executeMono(Mono.never()))
+                .thenCancel()
+                .verify();
+        assertEquals(0.0, meterRegistry.get("fts.admission.in.flight").gauge().value());
+        assertEquals(2, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.acquire();
+        StepVerifier.create(limiter.executeMono(Mono.just("done")))
+                .expectError(TooManyRequestsException.class)
+                .verify();
+    }
+
+    @Test
+    void admitsEveryTransferWhenDisabled() {
+        properties.setEnabled(false);
+        properties.setInitialLimit(2);
+        AdmissionLimiter limiter = new AdmissionLimiter(properties, meterRegistry);
+        limiter.acquire();
+        limiter.acquire();
+
+        assertEquals("done", limiter.execute(() -> "done"));
+    }
+}
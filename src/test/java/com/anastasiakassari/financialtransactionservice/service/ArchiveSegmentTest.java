@@ -0,0 +1,112 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.service.ArchiveSegment.Direction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveSegmentTest {
+
+    private static final int BLOCK_SIZE = 100;
+    private static final long START = Timestamp.valueOf("2020-01-01 00:00:00").getTime();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsTransactionsById() throws IOException {
+        List<Transaction> transactions = transactions(1000);
+        try (ArchiveSegment segment = write(transactions)) {
+            for (Transaction transaction : transactions) {
+                assertEquals(transaction, segment.findById(transaction.getId()));
+            }
+            assertNull(segment.findById(0));
+            assertNull(segment.findById(11));
+            assertNull(segment.findById(10_010));
+        }
+    }
+
+    @Test
+    void findsTransactionsOfAccountInTimeRange() throws IOException {
+        List<Transaction> transactions = transactions(1000);
+        try (ArchiveSegment segment = write(transactions)) {
+            assertEquals(transactions.stream().filter(t -> t.getSourceAccountId() == 3 || t.getTargetAccountId() == 3).toList(),
+                    segment.findByAccount(3, Direction.ANY, Long.MIN_VALUE, Long.MAX_VALUE));
+            assertEquals(transactions.stream().filter(t -> t.getTargetAccountId() == 3).toList(),
+                    segment.findByAccount(3, Direction.INCOMING, Long.MIN_VALUE, Long.MAX_VALUE));
+            assertEquals(transactions.stream().filter(t -> t.getSourceAccountId() == 3).toList(),
+                    segment.findByAccount(3, Direction.OUTGOING, Long.MIN_VALUE, Long.MAX_VALUE));
+
+            long from = START + 200_000;
+            long to = START + 300_000;
+            assertEquals(transactions.stream()
+                            .filter(t -> t.getSourceAccountId() == 3 || t.getTargetAccountId() == 3)
+                            .filter(t -> t.getCreatedAt().getTime() >= from && t.getCreatedAt().getTime() < to)
+                            .toList(),
+                    segment.findByAccount(3, Direction.ANY, from, to));
+            assertTrue(segment.findByAccount(1_000_000, Direction.ANY, Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+        }
+    }
+
+    @Test
+    void reopensWrittenSegment() throws IOException {
+        List<Transaction> transactions = transactions(250);
+        write(transactions).close();
+        try (ArchiveSegment segment = ArchiveSegment.open(directory.resolve("segment" + ArchiveSegment.SUFFIX))) {
+            assertEquals(10, segment.firstId());
+            assertEquals(2500, segment.lastId());
+            assertEquals(transactions.get(123), segment.findById(transactions.get(123).getId()));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void discardsUnfinishedSegment() throws IOException {
+        try (ArchiveSegment.Writer writer = ArchiveSegment.writer(directory.resolve("segment" + ArchiveSegment.SUFFIX), BLOCK_SIZE)) {
+            transactions(250).forEach(writer::append);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void rejectsTransactionsOutOfOrder() throws IOException {
+        try (ArchiveSegment.Writer writer = ArchiveSegment.writer(directory.resolve("segment" + ArchiveSegment.SUFFIX), BLOCK_SIZE)) {
+            writer.append(transactions(2).get(1));
+            Transaction first = transactions(1).get(0);
+            assertThrows(IllegalArgumentException.class, () -> writer.append(first));
+        }
+    }
+
+    private ArchiveSegment write(List<Transaction> transactions) throws IOException {
+        try (ArchiveSegment.Writer writer = ArchiveSegment.writer(directory.resolve("segment" + ArchiveSegment.SUFFIX), BLOCK_SIZE)) {
+            transactions.forEach(writer::append);
+            return writer.finish();
+        }
+    }
+
+    /**
+     * Transactions with IDs in steps of ten, between ten accounts, created about a second apart but not in ID order.
+     */
+    private static List<Transaction> transactions(int count) {
+        Currency[] currencies = Currency.values();
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(i -> new Transaction(i * 10, i % 10, (i + 3) % 10, i * 7, currencies[(int) (i % currencies.length)],
+                        new Timestamp(START + i * 1000 + (i % 2 == 0 ? 1500 : 0))))
+                .toList();
+    }
+}
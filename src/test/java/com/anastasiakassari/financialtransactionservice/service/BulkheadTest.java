@@ -0,0 +1,77 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.BulkheadProperties;
+import com.anastasiakassari.financialtransactionservice.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    @AfterEach
+    void tearDown() {
+        new Bulkhead(Bulkhead.Partition.READ, new BulkheadProperties.Partition(1, 0, Duration.ZERO, 1), Duration.ZERO).detach();
+    }
+
+    @Test
+    void rejectsRequestsWhenTheQueueIsFull() {
+        Bulkhead bulkhead = bulkhead(1, 0, Duration.ofSeconds(5));
+        bulkhead.enter();
+
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, bulkhead::enter);
+        assertEquals(Duration.ofSeconds(2), exception.getRetryAfter());
+    }
+
+    @Test
+    void rejectsQueuedRequestsAfterTheMaxWait() {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofMillis(10));
+        bulkhead.enter();
+
+        assertThrows(TooManyRequestsException.class, bulkhead::enter);
+        assertEquals(0, bulkhead.available());
+    }
+
+    @Test
+    void admitsQueuedRequestsOnceAPlaceIsFreed() throws Exception {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofSeconds(5));
+        bulkhead.enter();
+
+        CompletableFuture<Bulkhead.Partition> queued = CompletableFuture.supplyAsync(() -> {
+            bulkhead.enter();
+            return Bulkhead.currentPartition();
+        });
+        Thread.sleep(50);
+        assertFalse(queued.isDone());
+        bulkhead.exit();
+
+        assertEquals(Bulkhead.Partition.READ, queued.get(5, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.available());
+    }
+
+    @Test
+    void putsTheCurrentThreadInThePartition() {
+        Bulkhead bulkhead = bulkhead(2, 0, Duration.ZERO);
+        assertEquals(Bulkhead.Partition.WRITE, Bulkhead.currentPartition());
+
+        bulkhead.enter();
+        assertEquals(Bulkhead.Partition.READ, Bulkhead.currentPartition());
+
+        bulkhead.detach();
+        assertEquals(Bulkhead.Partition.WRITE, Bulkhead.currentPartition());
+        assertEquals(1, bulkhead.available());
+
+        bulkhead.attach();
+        bulkhead.exit();
+        assertEquals(Bulkhead.Partition.WRITE, Bulkhead.currentPartition());
+        assertEquals(2, bulkhead.available());
+    }
+
+    private static Bulkhead bulkhead(int maxConcurrent, int maxQueued, Duration maxWait) {
+        return new Bulkhead(Bulkhead.Partition.READ, new BulkheadProperties.Partition(maxConcurrent, maxQueued, maxWait, 1), Duration.ofSeconds(2));
+    }
+}
@@ -0,0 +1,131 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.*;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"fts.transfer.coalescing.enabled=true", "fts.transfer.coalescing.window=20ms"})
+@ActiveProfiles("test")
+class CoalescedTransactionServiceTest {
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransferCoalescer transferCoalescer;
+
+    private Account source;
+    private Account target;
+
+    @BeforeEach
+    void setUp() {
+        source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+    }
+
+    @Test
+    void testCoalescerIsRunning() {
+        assertTrue(transferCoalescer.isRunning());
+    }
+
+    @Test
+    void testCreateTransaction() {
+        Transaction transaction = transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L));
+
+        assertNotNull(transaction.getId());
+        assertEquals(transaction, transactionService.getTransactionById(transaction.getId()));
+        assertEquals(6000L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+        assertEquals(4000L, accountRepository.findById(target.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionFailsWithInvalidTargetAccountId() {
+        var exception = assertThrows(AccountNotFoundException.class,
+                () -> transactionService.createTransaction(transactionDTO(source.getId(), -1L, 100L)));
+        assertEquals(ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: -1", exception.getMessage());
+    }
+
+    @Test
+    void testCreateTransactionFailsWithMissingParameters() {
+        var exception = assertThrows(MissingParameterException.class,
+                () -> transactionService.createTransaction(transactionDTO(null, target.getId(), 100L)));
+        assertEquals(ExceptionMessage.MISSING_PARAMETER, exception.getMessage());
+    }
+
+    @Test
+    void testInvalidTransactionDoesNotAbortItsBatch() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // Submitted within the same window, so they most likely share a batch
+            Future<Transaction> valid = executor.submit(() -> transactionService.createTransaction(
+                    transactionDTO(source.getId(), target.getId(), 4000L)));
+            Future<Transaction> invalid = executor.submit(() -> transactionService.createTransaction(
+                    transactionDTO(source.getId(), target.getId(), 100000L)));
+
+            assertNotNull(valid.get(30, TimeUnit.SECONDS));
+            var exception = assertThrows(ExecutionException.class, () -> invalid.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(InsufficientBalanceException.class, exception.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(6000L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+        assertEquals(4000L, accountRepository.findById(target.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionsConcurrently() throws Exception {
+        Account first = accountRepository.save(new Account(null, 100000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account second = accountRepository.save(new Account(null, 100000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        int transfers = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Transaction>> futures = new ArrayList<>();
+            for (int i = 0; i < transfers; i++) {
+                boolean forward = i % 2 == 0;
+                futures.add(executor.submit(() -> transactionService.createTransaction(transactionDTO(
+                        forward ? first.getId() : second.getId(), forward ? second.getId() : first.getId(), 100L))));
+            }
+            for (Future<Transaction> future : futures) {
+                assertNotNull(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(100000L, accountRepository.findById(first.getId()).orElseThrow().getBalance());
+        assertEquals(100000L, accountRepository.findById(second.getId()).orElseThrow().getBalance());
+    }
+
+    private TransactionDTO transactionDTO(Long sourceId, Long targetId, long amount) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setSourceAccountId(sourceId);
+        dto.setTargetAccountId(targetId);
+        dto.setAmount(amount);
+        dto.setCurrency(Currency.EUR);
+        return dto;
+    }
+}
@@ -0,0 +1,70 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Keeps the schema on close, as the cached contexts of other tests still use it
+@SpringBootTest(properties = {"fts.transaction.engine=in-memory", "spring.jpa.hibernate.ddl-auto=update"})
+@ActiveProfiles("test")
+// The ledger cannot be started again once it has failed
+@DirtiesContext
+class InMemoryLedgerFailureTest {
+
+    private static final long REJECTED_AMOUNT = 4242L;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private InMemoryLedger ledger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("ALTER TABLE transactions DROP CONSTRAINT IF EXISTS chk_rejected_amount");
+    }
+
+    @Test
+    void testBatchTheDatabaseRejectsStopsTheLedger() {
+        Account source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        // A batch that fails the same way on every attempt, unlike a serialization failure or a lost connection
+        jdbcTemplate.execute("ALTER TABLE transactions ADD CONSTRAINT chk_rejected_amount CHECK (amount <> " + REJECTED_AMOUNT + ")");
+
+        transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), REJECTED_AMOUNT));
+
+        assertThrows(CompletionException.class, () -> ledger.flush().join());
+        assertEquals(Status.DOWN, ledger.health().getStatus());
+        assertThrows(IllegalStateException.class,
+                () -> transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 100L)));
+    }
+
+    private static TransactionDTO transactionDTO(Long sourceAccountId, Long targetAccountId, Long amount) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setSourceAccountId(sourceAccountId);
+        dto.setTargetAccountId(targetAccountId);
+        dto.setAmount(amount);
+        dto.setCurrency(Currency.EUR);
+        return dto;
+    }
+}
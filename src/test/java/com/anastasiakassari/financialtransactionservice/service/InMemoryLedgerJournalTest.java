@@ -0,0 +1,96 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.IdempotencyKeyRepository;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"fts.transaction.engine=in-memory", "fts.ledger.journal.enabled=true"})
+@ActiveProfiles("test")
+class InMemoryLedgerJournalTest {
+
+    private static final long JOURNALED_TRANSACTION_ID = 900_000_001L;
+    private static final String JOURNALED_IDEMPOTENCY_KEY = "journaled-key";
+
+    private static Path journalDirectory;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private InMemoryLedger ledger;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        // Leave a transfer in the journal that never reached the database, as after a crash
+        journalDirectory = Files.createTempDirectory("journal");
+        try (TransferJournal journal = new TransferJournal(journalDirectory, 1024 * 1024)) {
+            journal.append(new Transaction(JOURNALED_TRANSACTION_ID, 1L, 2L, 500L, Currency.EUR), JOURNALED_IDEMPOTENCY_KEY);
+            journal.sync();
+        }
+        registry.add("fts.ledger.journal.directory", journalDirectory::toString);
+    }
+
+    @Test
+    void testRecoversJournaledTransactionsOnStartup() {
+        Transaction recovered = transactionRepository.findById(JOURNALED_TRANSACTION_ID).orElseThrow();
+        assertEquals(500L, recovered.getAmount());
+        assertEquals(Currency.EUR, recovered.getCurrency());
+        assertEquals(JOURNALED_TRANSACTION_ID, idempotencyKeyRepository.find(JOURNALED_IDEMPOTENCY_KEY).orElseThrow().getTransactionId());
+    }
+
+    @Test
+    void testJournalsTransactionsBeforeAcknowledging() throws IOException {
+        Account source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        TransactionDTO dto = new TransactionDTO();
+        dto.setSourceAccountId(source.getId());
+        dto.setTargetAccountId(target.getId());
+        dto.setAmount(4000L);
+        dto.setCurrency(Currency.EUR);
+
+        Transaction transaction = transactionService.createTransaction(dto);
+
+        List<Transaction> journaled = new TransferJournal(journalDirectory, 1024 * 1024).recover().stream()
+                .map(TransferJournal.Entry::transaction)
+                .toList();
+        assertTrue(journaled.contains(transaction));
+        ledger.flush().join();
+        assertEquals(6000L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+        assertEquals(4000L, accountRepository.findById(target.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testDiscardsRecoveredSegments() throws IOException {
+        try (Stream<Path> segments = Files.list(journalDirectory)) {
+            assertTrue(segments.noneMatch(segment -> segment.getFileName().toString().startsWith("00000000000000000001")));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.*;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.IdempotencyKey;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles({"test", "reactive"})
+class ReactiveTransactionServiceTest {
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    private ReactiveTransactionService transactionService;
+
+    @Autowired
+    private ReactiveAccountService accountService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Account source;
+    private Account target;
+    private Account other;
+
+    @BeforeEach
+    void setUp() {
+        source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        other = accountRepository.save(new Account(null, 10000L, Currency.GBP, new Timestamp(System.currentTimeMillis()), null));
+    }
+
+    @Test
+    void testCreateTransaction() {
+        Transaction transaction = transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR)).block();
+
+        assertNotNull(transaction);
+        assertNotNull(transaction.getId());
+        assertEquals(transaction, transactionService.getTransactionById(transaction.getId()).block());
+        assertEquals(6000L, accountService.getAccountById(source.getId()).block().getBalance());
+        assertEquals(4000L, accountService.getAccountById(target.getId()).block().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionFailsLikeTheServletApi() {
+        StepVerifier.create(transactionService.createTransaction(transactionDTO(-1L, target.getId(), 100L, Currency.EUR)))
+                .expectError(AccountNotFoundException.class)
+                .verify();
+        StepVerifier.create(transactionService.createTransaction(transactionDTO(source.getId(), source.getId(), 100L, Currency.EUR)))
+                .expectError(SameAccountException.class)
+                .verify();
+        StepVerifier.create(transactionService.createTransaction(transactionDTO(source.getId(), other.getId(), 100L, Currency.EUR)))
+                .expectError(InvalidCurrencyException.class)
+                .verify();
+        StepVerifier.create(transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 10001L, Currency.EUR)))
+                .expectError(InsufficientBalanceException.class)
+                .verify();
+        StepVerifier.create(transactionService.createTransaction(null))
+                .expectError(MissingParameterException.class)
+                .verify();
+
+        assertEquals(10000L, accountService.getAccountById(source.getId()).block().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionWithHotAccounts() {
+        accountService.stripeAccount(source.getId(), 4).block();
+        accountService.stripeAccount(target.getId(), 4).block();
+
+        Flux.range(0, 10)
+                .flatMap(i -> transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 999L, Currency.EUR)))
+                .blockLast();
+        StepVerifier.create(transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 11L, Currency.EUR)))
+                .expectError(InsufficientBalanceException.class)
+                .verify();
+
+        assertEquals(10L, accountService.getAccountById(source.getId()).block().getBalance());
+        assertEquals(9990L, accountService.getAccountById(target.getId()).block().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionWithIdempotencyKeyOnce() {
+        String key = UUID.randomUUID().toString();
+
+        Transaction first = transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR), key).block();
+        Transaction second = transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR), key).block();
+
+        assertEquals(first, second);
+        assertEquals(6000L, accountService.getAccountById(source.getId()).block().getBalance());
+        StepVerifier.create(transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 1L, Currency.EUR), key))
+                .expectError(IdempotencyKeyReusedException.class)
+                .verify();
+    }
+
+    @Test
+    void testCreateTransactionFailsWithIdempotencyKeyStoredWithoutItsTransaction() {
+        String key = UUID.randomUUID().toString();
+        TransactionDTO dto = transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR);
+        idempotencyKeyRepository.insert(new IdempotencyKey(key, IdempotencyStore.request(dto), -1L,
+                new Timestamp(System.currentTimeMillis())), new Timestamp(0));
+
+        StepVerifier.create(transactionService.createTransaction(dto, key))
+                .expectError(TransactionNotFoundException.class)
+                .verify();
+        assertEquals(10000L, accountService.getAccountById(source.getId()).block().getBalance());
+    }
+
+    @Test
+    void testCreateTransactions() {
+        List<BatchTransactionResultDTO> results = transactionService.createTransactions(List.of(
+                transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR),
+                transactionDTO(source.getId(), other.getId(), 100L, Currency.EUR),
+                transactionDTO(source.getId(), target.getId(), 6000L, Currency.EUR))).block();
+
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        assertNotNull(results.get(0).getTransaction());
+        assertEquals(ExceptionMessage.INVALID_CURRENCY, results.get(1).getErrorMessage());
+        assertNotNull(results.get(2).getTransaction());
+        assertEquals(0L, accountService.getAccountById(source.getId()).block().getBalance());
+    }
+
+    @Test
+    void testGetTransactionsStreamsAllInOrder() {
+        Transaction transaction = transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 100L, Currency.EUR)).block();
+
+        List<Transaction> transactions = transactionService.getTransactions().collectList().block();
+
+        assertNotNull(transactions);
+        assertTrue(transactions.contains(transaction));
+        for (int i = 1; i < transactions.size(); i++) {
+            assertTrue(transactions.get(i - 1).getId() < transactions.get(i).getId());
+        }
+        assertEquals(List.of(transaction), accountService.getOutgoingTransactions(source.getId()).collectList().block());
+    }
+
+    private TransactionDTO transactionDTO(Long sourceId, Long targetId, long amount, Currency currency) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setSourceAccountId(sourceId);
+        dto.setTargetAccountId(targetId);
+        dto.setAmount(amount);
+        dto.setCurrency(currency);
+        return dto;
+    }
+}
@@ -0,0 +1,156 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
+import com.anastasiakassari.financialtransactionservice.exception.*;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "fts.transaction.engine=sql")
+@ActiveProfiles("test")
+class SqlTransactionServiceTest {
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    private Account source;
+    private Account target;
+    private Account other;
+
+    @BeforeEach
+    void setUp() {
+        source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        other = accountRepository.save(new Account(null, 10000L, Currency.GBP, new Timestamp(System.currentTimeMillis()), null));
+    }
+
+    @Test
+    void testServiceIsSqlImplementation() {
+        assertInstanceOf(SqlTransactionServiceImpl.class, transactionService);
+    }
+
+    @Test
+    void testCreateTransactionWithHotAccount() {
+        accountService.stripeAccount(target.getId(), 4);
+
+        transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR));
+        transactionService.createTransaction(transactionDTO(target.getId(), source.getId(), 1000L, Currency.EUR));
+
+        assertEquals(7000L, accountService.getAccountById(source.getId()).getBalance());
+        assertEquals(3000L, accountService.getAccountById(target.getId()).getBalance());
+    }
+
+    @Test
+    void testCreateTransaction() {
+        Transaction transaction = transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR));
+
+        assertNotNull(transaction.getId());
+        assertEquals(source.getId(), transaction.getSourceAccountId());
+        assertEquals(target.getId(), transaction.getTargetAccountId());
+        assertEquals(4000L, transaction.getAmount());
+        assertEquals(Currency.EUR, transaction.getCurrency());
+        assertEquals(transaction, transactionService.getTransactionById(transaction.getId()));
+        assertEquals(6000L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+        assertEquals(4000L, accountRepository.findById(target.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionFailsWithInvalidSourceAccountId() {
+        var exception = assertThrows(AccountNotFoundException.class,
+                () -> transactionService.createTransaction(transactionDTO(-1L, target.getId(), 100L, Currency.EUR)));
+        assertEquals(ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: -1", exception.getMessage());
+    }
+
+    @Test
+    void testCreateTransactionFailsWithInvalidTargetAccountId() {
+        var exception = assertThrows(AccountNotFoundException.class,
+                () -> transactionService.createTransaction(transactionDTO(source.getId(), -1L, 100L, Currency.EUR)));
+        assertEquals(ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: -1", exception.getMessage());
+    }
+
+    @Test
+    void testCreateTransactionFailsWithInvalidCurrency() {
+        var exception = assertThrows(InvalidCurrencyException.class,
+                () -> transactionService.createTransaction(transactionDTO(source.getId(), other.getId(), 100L, Currency.EUR)));
+        assertEquals(ExceptionMessage.INVALID_CURRENCY, exception.getMessage());
+        assertEquals(10000L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionFailsWithInsufficientBalance() {
+        var exception = assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 100000L, Currency.EUR)));
+        assertEquals(ExceptionMessage.INSUFFICIENT_BALANCE, exception.getMessage());
+        assertEquals(0L, accountRepository.findById(target.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionFailsWithInvalidAmount() {
+        var exception = assertThrows(InvalidAmountException.class,
+                () -> transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), -100L, Currency.EUR)));
+        assertEquals(ExceptionMessage.INVALID_AMOUNT, exception.getMessage());
+    }
+
+    @Test
+    void testCreateTransactionFailsBetweenSameAccounts() {
+        var exception = assertThrows(SameAccountException.class,
+                () -> transactionService.createTransaction(transactionDTO(source.getId(), source.getId(), 100L, Currency.EUR)));
+        assertEquals(ExceptionMessage.SAME_ACCOUNT, exception.getMessage());
+    }
+
+    @Test
+    void testCreateTransactionsConcurrently() throws Exception {
+        Account first = accountRepository.save(new Account(null, 100000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account second = accountRepository.save(new Account(null, 100000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        int transfers = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Transaction>> futures = new ArrayList<>();
+            for (int i = 0; i < transfers; i++) {
+                boolean forward = i % 2 == 0;
+                futures.add(executor.submit(() -> transactionService.createTransaction(transactionDTO(
+                        forward ? first.getId() : second.getId(), forward ? second.getId() : first.getId(), 100L, Currency.EUR))));
+            }
+            for (Future<Transaction> future : futures) {
+                assertNotNull(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(100000L, accountRepository.findById(first.getId()).orElseThrow().getBalance());
+        assertEquals(100000L, accountRepository.findById(second.getId()).orElseThrow().getBalance());
+    }
+
+    private TransactionDTO transactionDTO(Long sourceId, Long targetId, long amount, Currency currency) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setSourceAccountId(sourceId);
+        dto.setTargetAccountId(targetId);
+        dto.setAmount(amount);
+        dto.setCurrency(currency);
+        return dto;
+    }
+}
@@ -0,0 +1,127 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.exception.TransactionNotFoundException;
+import com.anastasiakassari.financialtransactionservice.model.Account;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionPartitionRepository;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"fts.transaction.partitioning.enabled=true", "fts.archive.enabled=true", "fts.archive.block-size=2"})
+@ActiveProfiles("test")
+// Closes the segments, and drops the schema with the partitions of past months
+@DirtiesContext
+class TransactionArchiveTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2020, 1);
+    private static final YearMonth FEBRUARY = YearMonth.of(2020, 2);
+
+    private static Path directory;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private TransactionPartitionRepository partitionRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Account source;
+    private Account target;
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) throws IOException {
+        directory = Files.createTempDirectory("fts-archive");
+        registry.add("fts.archive.directory", directory::toString);
+    }
+
+    @BeforeEach
+    void setUp() {
+        source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+    }
+
+    @Test
+    void testArchivedTransactionsAreFoundAfterTheirPartitionIsDropped() {
+        partitionRepository.createPartition(JANUARY);
+        Transaction first = transactionRepository.save(new Transaction(null, source.getId(), target.getId(), 100L, Currency.EUR, createdAt(JANUARY, 10)));
+        Transaction second = transactionRepository.save(new Transaction(null, target.getId(), source.getId(), 50L, Currency.EUR, createdAt(JANUARY, 20)));
+        Transaction third = transactionRepository.save(new Transaction(null, source.getId(), target.getId(), 25L, Currency.EUR, createdAt(JANUARY, 25)));
+        Transaction current = transactionRepository.save(new Transaction(null, source.getId(), target.getId(), 10L, Currency.EUR));
+
+        transactionArchive.archive();
+
+        String partition = TransactionPartitionRepository.partitionName(JANUARY);
+        assertFalse(partitionRepository.findPartitionTables().contains(partition));
+        assertTrue(Files.exists(directory.resolve(partition + ArchiveSegment.SUFFIX)));
+        // The cached copies would answer before the archive is asked
+        entityManagerFactory.getCache().evictAll();
+        assertTrue(transactionRepository.findById(first.getId()).isEmpty());
+
+        assertEquals(first, transactionService.getTransactionById(first.getId()));
+        assertEquals(third, transactionService.getTransactionById(third.getId()));
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionById(current.getId() + 1000));
+        assertEquals(List.of(first, second, third, current), accountService.getAllTransactions(source.getId()));
+        assertEquals(List.of(second), accountService.getIncomingTransactions(source.getId()));
+        assertEquals(List.of(first, third, current), accountService.getOutgoingTransactions(source.getId()));
+        assertEquals(List.of(second, third), accountService.getAllTransactions(source.getId(), createdAt(JANUARY, 15).toInstant(), start(FEBRUARY)));
+        assertEquals(List.of(current), accountService.getAllTransactions(source.getId(), start(FEBRUARY), null));
+    }
+
+    @Test
+    void testDetachedPartitionsAreArchivedAndSegmentsReopened() throws IOException {
+        partitionRepository.createPartition(FEBRUARY);
+        Transaction archived = transactionRepository.save(new Transaction(null, source.getId(), target.getId(), 100L, Currency.EUR, createdAt(FEBRUARY, 10)));
+        partitionRepository.detachPartition(TransactionPartitionRepository.partitionName(FEBRUARY));
+
+        transactionArchive.archive();
+        transactionArchive.destroy();
+        transactionArchive.afterSingletonsInstantiated();
+
+        assertFalse(partitionRepository.findPartitionTables().contains(TransactionPartitionRepository.partitionName(FEBRUARY)));
+        assertEquals(archived, transactionArchive.findById(archived.getId()).orElseThrow());
+        assertEquals(List.of(archived), accountService.getAllTransactions(target.getId()));
+    }
+
+    private static Timestamp createdAt(YearMonth month, int day) {
+        return Timestamp.from(month.atDay(day).atTime(12, 0).toInstant(ZoneOffset.UTC));
+    }
+
+    private static Instant start(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
@@ -0,0 +1,118 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.exception.InvalidParametersException;
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionPartitionRepository;
+import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Keeps the schema on close, as the cached contexts of other tests still use it
+@SpringBootTest(properties = {"fts.transaction.partitioning.enabled=true", "spring.jpa.hibernate.ddl-auto=update"})
+@ActiveProfiles("test")
+// The partitions and rows of past months are rolled back with the rest
+@Transactional
+// Releases the connections of its own context
+@DirtiesContext
+class TransactionPartitionsTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2020, 1);
+    private static final YearMonth FEBRUARY = YearMonth.of(2020, 2);
+
+    @Autowired
+    private TransactionPartitions transactionPartitions;
+
+    @Autowired
+    private TransactionPartitionRepository partitionRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void testTableIsPartitionedAhead() {
+        assertTrue(partitionRepository.isPartitioned());
+        List<String> partitions = partitionRepository.findPartitions();
+        for (int i = -1; i <= 3; i++) {
+            assertTrue(partitions.contains(TransactionPartitionRepository.partitionName(YearMonth.now(ZoneOffset.UTC).plusMonths(i))));
+        }
+    }
+
+    @Test
+    void testTimeRangeQueriesOnlyReadTheirPartitions() {
+        partitionRepository.createPartition(JANUARY);
+        partitionRepository.createPartition(FEBRUARY);
+        Transaction january = transactionRepository.save(new Transaction(null, 1L, 2L, 100L, Currency.EUR, createdAt(JANUARY)));
+        Transaction february = transactionRepository.save(new Transaction(null, 2L, 1L, 200L, Currency.EUR, createdAt(FEBRUARY)));
+        // Still January in UTC, whatever the time zone of the application
+        Transaction lastOfJanuary = transactionRepository.save(new Transaction(null, 1L, 2L, 300L, Currency.EUR,
+                Timestamp.from(start(FEBRUARY).minusSeconds(60))));
+        entityManager.flush();
+
+        assertEquals(List.of(january, lastOfJanuary), transactionService.getTransactions(null, 10, start(JANUARY), start(FEBRUARY)).getItems());
+        assertEquals(List.of(january, february, lastOfJanuary), transactionService.getTransactions(null, 10, start(JANUARY), start(FEBRUARY.plusMonths(1))).getItems());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM " + TransactionPartitionRepository.partitionName(JANUARY)
+                + " WHERE id = ?", Integer.class, lastOfJanuary.getId()));
+        assertEquals(List.of(february), accountService.getAllTransactions(1L, start(FEBRUARY), start(FEBRUARY.plusMonths(1))));
+
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM transactions WHERE created_at >= '2020-01-01Z' AND created_at < '2020-02-01Z'", String.class));
+        assertTrue(plan.contains(TransactionPartitionRepository.partitionName(JANUARY)), plan);
+        assertFalse(plan.contains(TransactionPartitionRepository.partitionName(FEBRUARY)), plan);
+    }
+
+    @Test
+    void testInvalidTimeRange() {
+        assertThrows(InvalidParametersException.class,
+                () -> transactionService.getTransactions(null, 10, start(FEBRUARY), start(JANUARY)));
+    }
+
+    @Test
+    void testDetachOldPartitions() {
+        partitionRepository.createPartition(JANUARY);
+        Transaction january = transactionRepository.save(new Transaction(null, 1L, 2L, 100L, Currency.EUR, createdAt(JANUARY)));
+        entityManager.flush();
+
+        assertEquals(List.of(TransactionPartitionRepository.partitionName(JANUARY)), transactionPartitions.detachBefore(FEBRUARY));
+
+        assertFalse(partitionRepository.findPartitions().contains(TransactionPartitionRepository.partitionName(JANUARY)));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM transactions WHERE id = ?", Integer.class, january.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM " + TransactionPartitionRepository.partitionName(JANUARY)
+                + " WHERE id = ?", Integer.class, january.getId()));
+    }
+
+    private static Timestamp createdAt(YearMonth month) {
+        return Timestamp.from(month.atDay(15).atTime(12, 0).toInstant(ZoneOffset.UTC));
+    }
+
+    private static Instant start(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
@@ -1,21 +1,41 @@
 package com.anastasiakassari.financialtransactionservice.service;
 
+import com.anastasiakassari.financialtransactionservice.config.IdempotencyProperties;
+import com.anastasiakassari.financialtransactionservice.dto.BatchTransactionResultDTO;
+import com.anastasiakassari.financialtransactionservice.dto.PageDTO;
 import com.anastasiakassari.financialtransactionservice.dto.TransactionDTO;
 import com.anastasiakassari.financialtransactionservice.exception.*;
 import com.anastasiakassari.financialtransactionservice.model.Account;
 import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.IdempotencyKey;
 import com.anastasiakassari.financialtransactionservice.model.Transaction;
 import com.anastasiakassari.financialtransactionservice.repository.AccountRepository;
+import com.anastasiakassari.financialtransactionservice.repository.IdempotencyKeyRepository;
 import com.anastasiakassari.financialtransactionservice.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,11 +52,29 @@ class TransactionServiceTest {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private IdempotencyProperties idempotencyProperties;
+
     @BeforeEach
     void setUp() {
-        accountRepository.save(new Account(1L, 100.0, Currency.EUR, new Timestamp(System.currentTimeMillis())));
-        accountRepository.save(new Account(2L, 0.0, Currency.EUR, new Timestamp(System.currentTimeMillis())));
-        accountRepository.save(new Account(3L, 100.0, Currency.GBP, new Timestamp(System.currentTimeMillis())));
+        accountRepository.save(new Account(1L, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        accountRepository.save(new Account(2L, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        accountRepository.save(new Account(3L, 10000L, Currency.GBP, new Timestamp(System.currentTimeMillis()), null));
     }
 
     @Test
@@ -46,7 +84,7 @@ class TransactionServiceTest {
         int initialSize = transactions.size();
 
         Transaction transaction = transactionRepository.save(
-                new Transaction(null, 1L, 2L, 1.0, Currency.EUR));
+                new Transaction(null, 1L, 2L, 100L, Currency.EUR));
 
         transactions = transactionService.getTransactions();
         Optional<Transaction> optional = transactions.stream().filter(a -> a.getId().equals(transaction.getId())).findFirst();
@@ -56,16 +94,65 @@ class TransactionServiceTest {
         assertEquals(initialSize + 1, transactions.size());
     }
 
+    @Test
+    void testGetTransactionsPages() {
+        Transaction first = transactionRepository.save(new Transaction(null, 1L, 2L, 100L, Currency.EUR));
+        Transaction second = transactionRepository.save(new Transaction(null, 1L, 2L, 100L, Currency.EUR));
+
+        PageDTO<Transaction> page = transactionService.getTransactions(null, CursorPagination.MAX_PAGE_SIZE + 1);
+        assertTrue(page.getItems().size() <= CursorPagination.MAX_PAGE_SIZE);
+
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            page = transactionService.getTransactions(cursor, 1);
+            page.getItems().forEach(transaction -> ids.add(transaction.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertTrue(ids.containsAll(List.of(first.getId(), second.getId())));
+        assertEquals(ids.stream().sorted().distinct().toList(), ids);
+    }
+
+    @Test
+    void testExportTransactions() throws IOException {
+        Transaction transaction = transactionRepository.save(new Transaction(null, 1L, 2L, 100L, Currency.EUR));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transactionService.exportTransactions(out);
+
+        List<Transaction> exported = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            exported.add(objectMapper.readValue(line, Transaction.class));
+        }
+        assertEquals(transactionService.getTransactions().size(), exported.size());
+        assertTrue(exported.contains(transaction));
+        assertEquals(exported.stream().map(Transaction::getId).sorted().toList(), exported.stream().map(Transaction::getId).toList());
+    }
+
     @Test
     void testGetTransactionById() {
         Transaction transaction = transactionRepository.save(
-                new Transaction(null, 1L, 2L, 1.0, Currency.EUR));
+                new Transaction(null, 1L, 2L, 100L, Currency.EUR));
 
         Transaction serviceTransaction = transactionService.getTransactionById(transaction.getId());
         assertNotNull(serviceTransaction);
         assertEquals(transaction, serviceTransaction);
     }
 
+    @Test
+    void testGetTransactionByIdIsCached() {
+        Transaction transaction = transactionRepository.save(
+                new Transaction(null, 1L, 2L, 100L, Currency.EUR));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionService.getTransactionById(transaction.getId());
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        assertEquals(transaction, transactionService.getTransactionById(transaction.getId()));
+        assertEquals(hits + 1, statistics.getSecondLevelCacheHitCount());
+        assertTrue(statistics.getDomainDataRegionStatistics(Transaction.CACHE_REGION).getHitCount() > 0);
+    }
+
     @Test
     void testGetTransactionFailsWithInvalidId() {
         long invalidId = -1L;
@@ -77,14 +164,14 @@ class TransactionServiceTest {
     void testCreateTransactionFailsWithAllParams() {
         long sourceId = 1L;
         long targetId = 2L;
-        double amount = 1.0;
+        long amount = 100L;
 
         Optional<Account> sourceOptional = accountRepository.findById(sourceId);
         assertTrue(sourceOptional.isPresent());
-        double sourceAccountBalance = sourceOptional.get().getBalance();
+        long sourceAccountBalance = sourceOptional.get().getBalance();
         Optional<Account> targetOptional = accountRepository.findById(targetId);
         assertTrue(targetOptional.isPresent());
-        double targetAccountBalance = targetOptional.get().getBalance();
+        long targetAccountBalance = targetOptional.get().getBalance();
 
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(sourceId);
@@ -108,6 +195,229 @@ class TransactionServiceTest {
         assertEquals(targetAccountBalance + amount, targetOptional.get().getBalance(), "Incorrect target account balance");
     }
 
+    @Test
+    void testCreateTransactionsConcurrentlyBetweenSameAccounts() throws Exception {
+        Account first = accountRepository.save(new Account(null, 100000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account second = accountRepository.save(new Account(null, 100000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        int transfers = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Transaction>> futures = new ArrayList<>();
+            for (int i = 0; i < transfers; i++) {
+                boolean forward = i % 2 == 0;
+                futures.add(executor.submit(() -> transactionService.createTransaction(transactionDTO(
+                        forward ? first.getId() : second.getId(), forward ? second.getId() : first.getId(), 100L, Currency.EUR))));
+            }
+            for (Future<Transaction> future : futures) {
+                assertNotNull(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(100000L, accountRepository.findById(first.getId()).orElseThrow().getBalance());
+        assertEquals(100000L, accountRepository.findById(second.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionEvictsCachedAccounts() {
+        Account source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        accountService.getAccountById(source.getId());
+        accountService.getAccountById(target.getId());
+
+        transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR));
+
+        assertEquals(6000L, accountService.getAccountById(source.getId()).getBalance());
+        assertEquals(4000L, accountService.getAccountById(target.getId()).getBalance());
+    }
+
+    @Test
+    void testCreateTransactionRecordsPhasesAndOutcomes() {
+        Account source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        List<String> phases = List.of("validation", "account_load", "update", "insert", "commit");
+        List<Long> counts = phases.stream().map(this::phaseCount).toList();
+        double succeeded = outcomeCount(TransferMetrics.SUCCESS);
+        double rejected = outcomeCount(InsufficientBalanceException.class.getSimpleName());
+
+        transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR));
+        assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 10000L, Currency.EUR)));
+
+        for (int i = 0; i < phases.size(); i++) {
+            // The rejected transfer is validated too, but never updates or commits
+            long expected = phases.get(i).equals("validation") || phases.get(i).equals("account_load") ? 2 : 1;
+            assertEquals(counts.get(i) + expected, phaseCount(phases.get(i)), phases.get(i));
+        }
+        assertEquals(succeeded + 1, outcomeCount(TransferMetrics.SUCCESS));
+        assertEquals(rejected + 1, outcomeCount(InsufficientBalanceException.class.getSimpleName()));
+    }
+
+    @Test
+    void testConnectionPoolGaugesAreRegistered() {
+        assertTrue(meterRegistry.get("hikaricp.connections.max").gauge().value() > 0);
+        assertNotNull(meterRegistry.get("hikaricp.connections.active").gauge());
+        assertNotNull(meterRegistry.get("hikaricp.connections.pending").gauge());
+    }
+
+    private long phaseCount(String phase) {
+        return meterRegistry.get("fts.transfer.phase").tag("phase", phase).timer().count();
+    }
+
+    private double outcomeCount(String outcome) {
+        return meterRegistry.counter("fts.transfer.outcome", "outcome", outcome).count();
+    }
+
+    @Test
+    void testCreateTransactionWithIdempotencyKeyOnce() {
+        Account source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        String key = UUID.randomUUID().toString();
+
+        Transaction first = transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR), key);
+        Transaction second = transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR), key);
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(6000L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+        assertEquals(4000L, accountRepository.findById(target.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionFailsWithReusedIdempotencyKey() {
+        Account source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        String key = UUID.randomUUID().toString();
+        transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR), key);
+
+        assertThrows(IdempotencyKeyReusedException.class, () ->
+                transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 5000L, Currency.EUR), key));
+        assertThrows(InvalidParametersException.class, () ->
+                transactionService.createTransaction(transactionDTO(source.getId(), target.getId(), 4000L, Currency.EUR), " "));
+        assertEquals(6000L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionReplaysIdempotencyKeyUntilItExpires() throws InterruptedException {
+        Account source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        TransactionDTO dto = transactionDTO(source.getId(), target.getId(), 1000L, Currency.EUR);
+        Transaction stored = transactionService.createTransaction(dto);
+        String key = UUID.randomUUID().toString();
+        // Stored almost a time to live ago, so it expires in two seconds
+        long createdAt = System.currentTimeMillis() - idempotencyProperties.getTimeToLive().toMillis() + 2000;
+        idempotencyKeyRepository.insert(new IdempotencyKey(key, IdempotencyStore.request(dto), stored.getId(),
+                new Timestamp(createdAt)), new Timestamp(0));
+
+        assertEquals(stored.getId(), transactionService.createTransaction(dto, key).getId());
+        Thread.sleep(2500);
+
+        assertNotEquals(stored.getId(), transactionService.createTransaction(dto, key).getId());
+        assertEquals(8000L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionsConcurrentlyWithSameIdempotencyKey() throws Exception {
+        Account source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        String key = UUID.randomUUID().toString();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Transaction>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> transactionService.createTransaction(
+                        transactionDTO(source.getId(), target.getId(), 1000L, Currency.EUR), key)));
+            }
+            long id = futures.get(0).get(30, TimeUnit.SECONDS).getId();
+            for (Future<Transaction> future : futures) {
+                assertEquals(id, future.get(30, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(9000L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+        assertEquals(1000L, accountRepository.findById(target.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionsWithHotAccount() {
+        Account hot = accountRepository.save(new Account(null, 1000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account other = accountRepository.save(new Account(null, 1000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        accountService.stripeAccount(hot.getId(), 4);
+
+        transactionService.createTransaction(transactionDTO(other.getId(), hot.getId(), 100L, Currency.EUR));
+        // No slot covers this on its own, so it is taken from several slots
+        transactionService.createTransaction(transactionDTO(hot.getId(), other.getId(), 900L, Currency.EUR));
+        var exception = assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.createTransaction(transactionDTO(hot.getId(), other.getId(), 201L, Currency.EUR)));
+        assertEquals(ExceptionMessage.INSUFFICIENT_BALANCE, exception.getMessage());
+
+        assertEquals(200L, accountService.getAccountById(hot.getId()).getBalance());
+        assertEquals(1800L, accountService.getAccountById(other.getId()).getBalance());
+        assertEquals(0L, accountRepository.findById(hot.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionsConcurrentlyToHotAccount() throws Exception {
+        Account hot = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        accountService.stripeAccount(hot.getId(), 8);
+        List<Account> sources = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            sources.add(accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null)));
+        }
+        int transfers = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Transaction>> futures = new ArrayList<>();
+            for (int i = 0; i < transfers; i++) {
+                Account source = sources.get(i % sources.size());
+                futures.add(executor.submit(() -> transactionService.createTransaction(transactionDTO(
+                        source.getId(), hot.getId(), 10L, Currency.EUR))));
+            }
+            for (Future<Transaction> future : futures) {
+                assertNotNull(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(transfers * 10L, accountService.getAccountById(hot.getId()).getBalance());
+        for (Account source : sources) {
+            assertEquals(10000L - transfers / sources.size() * 10L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+        }
+    }
+
+    @Test
+    void testCreateTransactionsConcurrentlyBetweenHotAccounts() throws Exception {
+        Account first = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account second = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        accountService.stripeAccount(first.getId(), 8);
+        accountService.stripeAccount(second.getId(), 8);
+        int transfers = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Transaction>> futures = new ArrayList<>();
+            for (int i = 0; i < transfers; i++) {
+                boolean forward = i % 2 == 0;
+                futures.add(executor.submit(() -> transactionService.createTransaction(transactionDTO(
+                        forward ? first.getId() : second.getId(), forward ? second.getId() : first.getId(), 10L, Currency.EUR))));
+            }
+            for (Future<Transaction> future : futures) {
+                assertNotNull(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(10000L, accountService.getAccountById(first.getId()).getBalance());
+        assertEquals(10000L, accountService.getAccountById(second.getId()).getBalance());
+    }
+
     @Test
     void testCreateTransactionFailsWithMissingParams() {
         TransactionDTO dto = new TransactionDTO();
@@ -124,7 +434,7 @@ class TransactionServiceTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(-1L);
         dto.setTargetAccountId(2L);
-        dto.setAmount(1.0);
+        dto.setAmount(100L);
         dto.setCurrency(Currency.EUR);
 
         var exception = assertThrows(AccountNotFoundException.class, () -> transactionService.createTransaction(dto));
@@ -136,7 +446,7 @@ class TransactionServiceTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(1L);
         dto.setTargetAccountId(-1L);
-        dto.setAmount(1.0);
+        dto.setAmount(100L);
         dto.setCurrency(Currency.EUR);
 
         var exception = assertThrows(AccountNotFoundException.class, () -> transactionService.createTransaction(dto));
@@ -148,7 +458,7 @@ class TransactionServiceTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(1L);
         dto.setTargetAccountId(2L);
-        dto.setAmount(-1.0);
+        dto.setAmount(-100L);
         dto.setCurrency(Currency.EUR);
 
         var exception = assertThrows(InvalidAmountException.class, () -> transactionService.createTransaction(dto));
@@ -160,7 +470,7 @@ class TransactionServiceTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(1L);
         dto.setTargetAccountId(2L);
-        dto.setAmount(1000.0);
+        dto.setAmount(100000L);
         dto.setCurrency(Currency.EUR);
 
         var exception = assertThrows(InsufficientBalanceException.class, () -> transactionService.createTransaction(dto));
@@ -172,7 +482,7 @@ class TransactionServiceTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(1L);
         dto.setTargetAccountId(2L);
-        dto.setAmount(1.0);
+        dto.setAmount(100L);
         dto.setCurrency(Currency.USD);
 
         var exception = assertThrows(InvalidCurrencyException.class, () -> transactionService.createTransaction(dto));
@@ -184,10 +494,101 @@ class TransactionServiceTest {
         TransactionDTO dto = new TransactionDTO();
         dto.setSourceAccountId(1L);
         dto.setTargetAccountId(1L);
-        dto.setAmount(1.0);
+        dto.setAmount(100L);
         dto.setCurrency(Currency.EUR);
 
         var exception = assertThrows(SameAccountException.class, () -> transactionService.createTransaction(dto));
         assertEquals(ExceptionMessage.SAME_ACCOUNT, exception.getMessage());
     }
+
+    @Test
+    void testCreateTransactions() {
+        Account source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account other = accountRepository.save(new Account(null, 0L, Currency.GBP, new Timestamp(System.currentTimeMillis()), null));
+
+        List<TransactionDTO> dtos = List.of(
+                transactionDTO(source.getId(), target.getId(), 6000L, Currency.EUR),
+                transactionDTO(target.getId(), source.getId(), 1000L, Currency.EUR),
+                transactionDTO(source.getId(), target.getId(), 6000L, Currency.EUR),
+                transactionDTO(source.getId(), other.getId(), 100L, Currency.EUR),
+                transactionDTO(source.getId(), -1L, 100L, Currency.EUR),
+                transactionDTO(source.getId(), null, 100L, Currency.EUR),
+                transactionDTO(source.getId(), target.getId(), 5000L, Currency.EUR));
+
+        List<BatchTransactionResultDTO> results = transactionService.createTransactions(dtos);
+
+        assertEquals(dtos.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertNotNull(results.get(0).getTransaction());
+        assertNotNull(results.get(1).getTransaction());
+        assertEquals(ExceptionMessage.INSUFFICIENT_BALANCE, results.get(2).getErrorMessage());
+        assertEquals(ExceptionMessage.INVALID_CURRENCY, results.get(3).getErrorMessage());
+        assertEquals(ExceptionMessage.ACCOUNT_NOT_FOUND + " with ID: -1", results.get(4).getErrorMessage());
+        assertEquals(ExceptionMessage.MISSING_PARAMETER, results.get(5).getErrorMessage());
+        assertNotNull(results.get(6).getTransaction());
+
+        Transaction transaction = results.get(0).getTransaction();
+        assertEquals(transaction, transactionService.getTransactionById(transaction.getId()));
+        assertEquals(0L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+        assertEquals(10000L, accountRepository.findById(target.getId()).orElseThrow().getBalance());
+        assertEquals(0L, accountRepository.findById(other.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionsWithHotAccountInBatch() {
+        Account hot = accountRepository.save(new Account(null, 1000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account other = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        accountService.stripeAccount(hot.getId(), 2);
+
+        List<BatchTransactionResultDTO> results = transactionService.createTransactions(List.of(
+                transactionDTO(hot.getId(), other.getId(), 700L, Currency.EUR),
+                transactionDTO(hot.getId(), other.getId(), 400L, Currency.EUR),
+                transactionDTO(other.getId(), hot.getId(), 100L, Currency.EUR)));
+
+        assertNotNull(results.get(0).getTransaction());
+        assertEquals(ExceptionMessage.INSUFFICIENT_BALANCE, results.get(1).getErrorMessage());
+        assertNotNull(results.get(2).getTransaction());
+        assertEquals(400L, accountService.getAccountById(hot.getId()).getBalance());
+        assertEquals(600L, accountService.getAccountById(other.getId()).getBalance());
+    }
+
+    @Test
+    void testCreateTransactionsFailsOnlyTheTransferOverflowingTheBalance() {
+        Account source = accountRepository.save(new Account(null, 10000L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account full = accountRepository.save(new Account(null, Long.MAX_VALUE - 100L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+        Account target = accountRepository.save(new Account(null, 0L, Currency.EUR, new Timestamp(System.currentTimeMillis()), null));
+
+        var exception = assertThrows(InvalidAmountException.class,
+                () -> transactionService.createTransaction(transactionDTO(source.getId(), full.getId(), 101L, Currency.EUR)));
+        assertEquals(ExceptionMessage.BALANCE_OVERFLOW, exception.getMessage());
+
+        List<BatchTransactionResultDTO> results = transactionService.createTransactions(List.of(
+                transactionDTO(source.getId(), target.getId(), 1000L, Currency.EUR),
+                transactionDTO(source.getId(), full.getId(), 101L, Currency.EUR),
+                transactionDTO(source.getId(), full.getId(), 100L, Currency.EUR)));
+
+        assertNotNull(results.get(0).getTransaction());
+        assertEquals(ExceptionMessage.BALANCE_OVERFLOW, results.get(1).getErrorMessage());
+        assertNotNull(results.get(2).getTransaction());
+        assertEquals(8900L, accountRepository.findById(source.getId()).orElseThrow().getBalance());
+        assertEquals(Long.MAX_VALUE, accountRepository.findById(full.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void testCreateTransactionsFailsWithTooManyTransactions() {
+        List<TransactionDTO> dtos = Collections.nCopies(BatchTransferProcessor.MAX_BATCH_SIZE + 1, new TransactionDTO());
+        assertThrows(InvalidParametersException.class, () -> transactionService.createTransactions(dtos));
+    }
+
+    private TransactionDTO transactionDTO(Long sourceId, Long targetId, long amount, Currency currency) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setSourceAccountId(sourceId);
+        dto.setTargetAccountId(targetId);
+        dto.setAmount(amount);
+        dto.setCurrency(currency);
+        return dto;
+    }
 }
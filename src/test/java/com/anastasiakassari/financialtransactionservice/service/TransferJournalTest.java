@@ -0,0 +1,122 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.model.Currency;
+import com.anastasiakassari.financialtransactionservice.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferJournalTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversAppendedTransactions() throws IOException {
+        List<Transaction> transactions = transactions(1, 100);
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE)) {
+            transactions.forEach(journal::append);
+            journal.sync();
+        }
+
+        TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE);
+        assertEquals(transactions, recovered(journal));
+        assertTrue(segments().size() > 1);
+
+        journal.discardRecovered();
+        assertTrue(segments().isEmpty());
+    }
+
+    @Test
+    void continuesSequenceAfterRecovery() throws IOException {
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE)) {
+            transactions(1, 10).forEach(journal::append);
+        }
+
+        TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE);
+        journal.recover();
+        journal.discardRecovered();
+        assertEquals(11, journal.append(transactions(11, 1).get(0)));
+    }
+
+    @Test
+    void deletesReleasedSegments() throws IOException {
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE)) {
+            long last = 0;
+            for (Transaction transaction : transactions(1, 100)) {
+                last = journal.append(transaction);
+            }
+            journal.release(50);
+            List<Path> segments = segments();
+            assertFalse(segments.isEmpty());
+
+            journal.release(last);
+            // The current segment is kept until the journal is closed
+            assertEquals(1, segments().size());
+        }
+        assertTrue(segments().isEmpty());
+    }
+
+    @Test
+    void stopsAtTornEntry() throws IOException {
+        List<Transaction> transactions = transactions(1, 3);
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE)) {
+            transactions.forEach(journal::append);
+        }
+
+        // Corrupt the amount of the last entry
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1}), 3L * entrySize() - 5);
+        }
+
+        assertEquals(transactions.subList(0, 2), recovered(new TransferJournal(directory, SEGMENT_SIZE)));
+    }
+
+    @Test
+    void recoversIdempotencyKeys() throws IOException {
+        List<Transaction> transactions = transactions(1, 2);
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_SIZE)) {
+            journal.append(transactions.get(0), "key-\u00e9");
+            journal.append(transactions.get(1));
+        }
+
+        List<TransferJournal.Entry> entries = new TransferJournal(directory, SEGMENT_SIZE).recover();
+        assertEquals(List.of(new TransferJournal.Entry(transactions.get(0), "key-\u00e9"),
+                new TransferJournal.Entry(transactions.get(1), null)), entries);
+    }
+
+    private static List<Transaction> recovered(TransferJournal journal) throws IOException {
+        return journal.recover().stream().map(TransferJournal.Entry::transaction).toList();
+    }
+
+    private static int entrySize() {
+        // Header, five longs and the currency code with its length
+        return 2 * Integer.BYTES + 5 * Long.BYTES + 1 + 3;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<Transaction> transactions(long firstId, int count) {
+        return LongStream.range(firstId, firstId + count)
+                .mapToObj(id -> new Transaction(id, id, id + 1, id * 100, Currency.values()[(int) (id % 3)]))
+                .toList();
+    }
+}
@@ -0,0 +1,79 @@
+package com.anastasiakassari.financialtransactionservice.service;
+
+import com.anastasiakassari.financialtransactionservice.config.TransferRetryProperties;
+import com.anastasiakassari.financialtransactionservice.exception.InsufficientBalanceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransferRetryExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransferRetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        TransferRetryProperties properties = new TransferRetryProperties();
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoff(Duration.ofMillis(1));
+        properties.setMaxBackoff(Duration.ofMillis(2));
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new TransferRetryExecutor(transactionManager, properties, meterRegistry);
+    }
+
+    @Test
+    void retriesTransientFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("deadlock detected");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, meterRegistry.get("fts.transfer.retries").tag("exception", "CannotAcquireLockException").counter().count());
+        assertEquals(0.0, meterRegistry.get("fts.transfer.retries.exhausted").counter().count());
+    }
+
+    @Test
+    void failsAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(PessimisticLockingFailureException.class, () -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new PessimisticLockingFailureException("could not serialize access");
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(1.0, meterRegistry.get("fts.transfer.retries.exhausted").counter().count());
+    }
+
+    @Test
+    void doesNotRetryBusinessFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(InsufficientBalanceException.class, () -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new InsufficientBalanceException();
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+}